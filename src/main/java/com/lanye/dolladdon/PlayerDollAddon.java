@@ -1,16 +1,29 @@
 package com.lanye.dolladdon;
 
+import com.lanye.dolladdon.base.entity.BaseDollEntity;
+import com.lanye.dolladdon.base.entity.DollTickSystem;
+import com.lanye.dolladdon.config.DollCommonConfig;
+import com.lanye.dolladdon.dynamic.DynamicDollItem;
+import com.lanye.dolladdon.init.ModDataComponents;
 import com.lanye.dolladdon.init.ModEntities;
 import com.lanye.dolladdon.init.ModItems;
+import com.lanye.dolladdon.util.DollSkinRegistry;
 import com.lanye.dolladdon.util.DynamicDollLoader;
+import com.lanye.dolladdon.util.PoseActionReloadListener;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.item.CreativeModeTab;
 import net.minecraft.world.item.ItemStack;
 import net.neoforged.bus.api.IEventBus;
 import net.neoforged.fml.ModContainer;
 import net.neoforged.fml.common.Mod;
+import net.neoforged.fml.config.ModConfig;
+import net.neoforged.neoforge.common.NeoForge;
+import net.neoforged.neoforge.event.AddReloadListenerEvent;
 import net.neoforged.neoforge.event.BuildCreativeModeTabContentsEvent;
+import net.neoforged.neoforge.event.level.BlockEvent;
 import net.neoforged.neoforge.registries.DeferredHolder;
 import net.neoforged.neoforge.registries.DeferredRegister;
 import org.slf4j.Logger;
@@ -39,6 +52,8 @@ public class PlayerDollAddon {
         // 先扫描目录并注册动态玩偶（必须在注册器注册之前）
         registerDynamicDolls();
         
+        // 注册数据组件
+        ModDataComponents.DATA_COMPONENTS.register(modEventBus);
         // 注册物品
         ModItems.ITEMS.register(modEventBus);
         // 注册实体
@@ -49,6 +64,34 @@ public class PlayerDollAddon {
         // 注册物品到创造模式物品栏的事件
         // 注意：BuildCreativeModeTabContentsEvent 是 mod 事件，必须通过 modEventBus 注册
         modEventBus.addListener(this::addCreative);
+        
+        // 服务端也需要加载姿态和动作，实体同步时按名称分配ID
+        NeoForge.EVENT_BUS.addListener(this::onAddReloadListeners);
+        // 方块更新时唤醒附近休眠的玩偶
+        NeoForge.EVENT_BUS.addListener(this::onNeighborNotify);
+        // 集中处理每个世界的玩偶tick
+        NeoForge.EVENT_BUS.addListener(DollTickSystem::onLevelTick);
+        NeoForge.EVENT_BUS.addListener(DollTickSystem::onLevelUnload);
+        
+        // 注册通用配置
+        modContainer.registerConfig(ModConfig.Type.COMMON, DollCommonConfig.SPEC);
+    }
+    
+    /**
+     * 注册服务端资源重载监听器（服务器启动和执行 /reload 时加载姿态和动作）
+     */
+    private void onAddReloadListeners(AddReloadListenerEvent event) {
+        event.addListener(new PoseActionReloadListener(false));
+    }
+    
+    /**
+     * 方块更新后唤醒附近休眠的玩偶，支撑它们的方块可能已经被破坏
+     * 方块更新非常频繁（红石、水流等），没有玩偶的世界不查询实体
+     */
+    private void onNeighborNotify(BlockEvent.NeighborNotifyEvent event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel && DollTickSystem.hasDolls(serverLevel)) {
+            BaseDollEntity.wakeUpNear(serverLevel, event.getPos());
+        }
     }
     
     /**
@@ -73,45 +116,21 @@ public class PlayerDollAddon {
     
     /**
      * 注册动态玩偶（从文件加载）
-     * 在构造函数中调用，确保在注册器注册之前完成
+     * 所有皮肤共用一个实体类型和物品，这里只把扫描到的皮肤加入皮肤注册表
+     * 在构造函数中调用，确保在注册器注册之前完成（需要为旧版本的注册名称添加别名）
      */
     private void registerDynamicDolls() {
-        // 先清理旧的动态模型文件（保留 alex_doll.json 和 steve_doll.json）
-        com.lanye.dolladdon.util.DynamicModelGenerator.cleanupOldModelFiles();
-        
         // 扫描目录
         var dollInfos = DynamicDollLoader.scanDirectory(PNG_DIR);
         
-        // 批量生成所有动态玩偶的模型文件（所有动态玩偶都使用相同的模型内容）
-        java.util.List<String> registryNames = new java.util.ArrayList<>();
-        for (var dollInfo : dollInfos) {
-            registryNames.add(dollInfo.getFileName());
-        }
-        com.lanye.dolladdon.util.DynamicModelGenerator.generateAllItemModels(registryNames);
-        
-        // 注册每个玩偶
-        int successCount = 0;
         for (var dollInfo : dollInfos) {
-            try {
-                // 注册实体
-                var entityHolder = ModEntities.registerDynamicDoll(dollInfo.getFileName());
-                
-                // 模型文件已在上面批量生成，这里不需要再生成
-                
-                // 注册物品（传递 DeferredHolder，延迟获取 EntityType）
-                ModItems.registerDynamicDoll(
-                    dollInfo.getFileName(),
-                    entityHolder,
-                    dollInfo.getTextureLocation(),
-                    dollInfo.isAlexModel(),
-                    dollInfo.getDisplayName()
-                );
-                
-                successCount++;
-            } catch (Exception e) {
-                LOGGER.error("注册动态玩偶失败: {}", dollInfo.getFileName(), e);
-                e.printStackTrace();
-            }
+            DollSkinRegistry.register(dollInfo);
+            
+            // 旧版本为每个皮肤单独注册了实体和物品（zzz_<哈希值>），通过别名迁移到通用的动态玩偶
+            // 皮肤ID在加载时从原来的注册名称中恢复
+            ResourceLocation legacyId = ResourceLocation.fromNamespaceAndPath(MODID, dollInfo.getLegacyRegistryName());
+            ModEntities.ENTITIES.addAlias(legacyId, ModEntities.DYNAMIC_DOLL.getId());
+            ModItems.ITEMS.addAlias(legacyId, ModItems.DYNAMIC_DOLL.getId());
         }
     }
     
@@ -131,16 +150,9 @@ public class PlayerDollAddon {
                         // 添加艾利克斯玩偶物品（固定模型：细手臂 + Alex默认皮肤）
                         output.accept(new ItemStack(ModItems.ALEX_DOLL.get()));
                         
-                        // 添加动态注册的玩偶物品
-                        int dynamicCount = 0;
-                        for (var entry : ModItems.DYNAMIC_DOLLS.entrySet()) {
-                            try {
-                                ItemStack stack = new ItemStack(entry.getValue().get());
-                                output.accept(stack);
-                                dynamicCount++;
-                            } catch (Exception e) {
-                                LOGGER.error("添加动态玩偶到物品栏失败: {}", entry.getKey(), e);
-                            }
+                        // 添加从文件加载的玩偶（每个皮肤一个物品堆）
+                        for (var dollInfo : DollSkinRegistry.getAll()) {
+                            output.accept(DynamicDollItem.createStack(dollInfo.getSkinId()));
                         }
                     })
                     .build()
@@ -1,14 +1,19 @@
 package com.lanye.dolladdon;
 
-import com.lanye.dolladdon.dynamic.DynamicDollEntity;
+import com.lanye.dolladdon.base.render.DollIconCache;
+import com.lanye.dolladdon.base.render.DollImpostorAtlas;
+import com.lanye.dolladdon.base.render.DollRenderStats;
+import com.lanye.dolladdon.config.DollClientConfig;
 import com.lanye.dolladdon.dynamic.render.DynamicDollRenderer;
 import com.lanye.dolladdon.impl.render.AlexDollRenderer;
 import com.lanye.dolladdon.impl.render.SteveDollRenderer;
 import com.lanye.dolladdon.init.ModEntities;
-import com.lanye.dolladdon.init.ModItems;
-import com.lanye.dolladdon.util.DynamicDollLoader;
+import com.lanye.dolladdon.network.DollRegistrySync;
+import com.lanye.dolladdon.network.DollSkinSync;
+import com.lanye.dolladdon.util.DollFileWatcher;
 import com.lanye.dolladdon.util.DynamicResourcePack;
 import com.lanye.dolladdon.util.PoseActionManager;
+import com.lanye.dolladdon.util.PoseActionReloadListener;
 import net.minecraft.client.resources.model.ModelResourceLocation;
 import net.minecraft.network.chat.Component;
 import net.minecraft.network.chat.MutableComponent;
@@ -25,13 +30,15 @@ import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.ModContainer;
 import net.neoforged.fml.common.EventBusSubscriber;
 import net.neoforged.fml.common.Mod;
+import net.neoforged.fml.config.ModConfig;
+import net.neoforged.fml.event.lifecycle.FMLClientSetupEvent;
+import net.neoforged.neoforge.client.event.CustomizeGuiOverlayEvent;
 import net.neoforged.neoforge.client.event.EntityRenderersEvent;
 import net.neoforged.neoforge.event.AddPackFindersEvent;
 import net.neoforged.neoforge.client.event.ClientPlayerNetworkEvent;
 import net.neoforged.neoforge.client.event.RegisterClientReloadListenersEvent;
+import net.neoforged.neoforge.client.event.RenderFrameEvent;
 import net.minecraft.client.Minecraft;
-import net.minecraft.server.packs.resources.ResourceManager;
-import net.minecraft.server.packs.resources.ResourceManagerReloadListener;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collections;
@@ -41,6 +48,8 @@ import java.util.Collections;
 public class PlayerDollAddonClient {
     
     public PlayerDollAddonClient(ModContainer container) {
+        // 注册客户端配置
+        container.registerConfig(ModConfig.Type.CLIENT, DollClientConfig.SPEC);
     }
     
     @SubscribeEvent
@@ -50,22 +59,25 @@ public class PlayerDollAddonClient {
         // 注册艾利克斯玩偶实体渲染器（固定模型）
         event.registerEntityRenderer(ModEntities.ALEX_DOLL.get(), AlexDollRenderer::new);
         
-        // 注册动态玩偶实体渲染器
-        // 需要先扫描目录获取信息
-        var dollInfos = DynamicDollLoader.scanDirectory(PlayerDollAddon.PNG_DIR);
-        for (var dollInfo : dollInfos) {
-            var entityHolder = ModEntities.DYNAMIC_DOLLS.get(dollInfo.getFileName());
-            if (entityHolder != null) {
-                event.registerEntityRenderer(
-                    entityHolder.get(),
-                    context -> new DynamicDollRenderer(
-                        context,
-                        dollInfo.getTextureLocation(),
-                        dollInfo.isAlexModel()
-                    )
-                );
-            }
+        // 注册动态玩偶实体渲染器（所有皮肤共用，按实体的皮肤ID选择纹理和模型）
+        event.registerEntityRenderer(ModEntities.DYNAMIC_DOLL.get(), DynamicDollRenderer::new);
+    }
+    
+    /**
+     * 客户端初始化完成后启动文件监视器
+     * 皮肤、姿态和动作文件变化时自动热重载，无需重启游戏或重新加载资源
+     */
+    @SubscribeEvent
+    public static void onClientSetup(FMLClientSetupEvent event) {
+        Path gameDir;
+        try {
+            Class<?> fmlPathsClass = Class.forName("net.neoforged.fml.loading.FMLPaths");
+            java.lang.reflect.Method gameDirMethod = fmlPathsClass.getMethod("getGamePath");
+            gameDir = (Path) gameDirMethod.invoke(null);
+        } catch (Exception e) {
+            gameDir = Paths.get(".").toAbsolutePath().normalize();
         }
+        DollFileWatcher.start(gameDir, Minecraft.getInstance());
     }
     
     /**
@@ -128,39 +140,38 @@ public class PlayerDollAddonClient {
     /**
      * 注册资源重载监听器
      * 当执行 F3+T 重新加载资源时会触发此监听器
+     * 姿态和动作文件在后台并行解析，主线程只替换解析结果
      */
     @SubscribeEvent
     public static void onRegisterClientReloadListeners(RegisterClientReloadListenersEvent event) {
-        event.registerReloadListener((ResourceManagerReloadListener) resourceManager -> {
-            try {
-                PoseActionManager.loadResources(resourceManager);
-            } catch (Exception e) {
-                PlayerDollAddon.LOGGER.error("资源重载过程中发生异常", e);
-            }
-        });
+        event.registerReloadListener(new PoseActionReloadListener(true));
     }
     
     /**
-     * 在客户端登录后加载姿态和动作资源
+     * 断开连接后不再使用服务器同步的姿态、动作和皮肤
      */
     @SubscribeEvent
-    public static void onClientPlayerLoggedIn(ClientPlayerNetworkEvent.LoggingIn event) {
-        // 延迟加载，确保资源管理器已完全初始化
-        net.minecraft.Util.backgroundExecutor().execute(() -> {
-            try {
-                Thread.sleep(100); // 等待资源管理器完全初始化
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                return;
-            }
-            
-            net.minecraft.Util.ioPool().execute(() -> {
-                Minecraft minecraft = Minecraft.getInstance();
-                if (minecraft != null && minecraft.getResourceManager() != null) {
-                    PoseActionManager.loadResources(minecraft.getResourceManager());
-                }
-            });
-        });
+    public static void onClientPlayerLoggedOut(ClientPlayerNetworkEvent.LoggingOut event) {
+        PoseActionManager.get(true).clearRemote();
+        DollRegistrySync.reset();
+        DollSkinSync.reset();
+    }
+    
+    /**
+     * 每帧开始时重置玩偶渲染统计，并生成上一帧请求的替身快照和物品栏图标
+     */
+    @SubscribeEvent
+    public static void onRenderFramePre(RenderFrameEvent.Pre event) {
+        DollRenderStats.startFrame();
+        DollImpostorAtlas.processPending();
+        DollIconCache.processPending();
+    }
+    
+    /**
+     * 在 F3 调试界面显示各细节层次渲染的玩偶数量
+     */
+    @SubscribeEvent
+    public static void onDebugText(CustomizeGuiOverlayEvent.DebugText event) {
+        event.getLeft().add(DollRenderStats.getDebugText());
     }
 }
-
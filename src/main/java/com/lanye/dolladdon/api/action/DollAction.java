@@ -34,6 +34,33 @@ public interface DollAction {
      */
     DollPose getPoseAt(int tick);
     
+    /**
+     * 获取指定时间点的姿态，时间可以包含小数部分（用于在两个tick之间平滑插值）
+     * 默认实现按整数tick取姿态，实现类可以覆盖此方法提供更平滑的结果
+     * @param time 当前时间（tick，从0开始）
+     * @return 该时间点的姿态，如果超出范围返回null
+     */
+    default DollPose getPoseAt(float time) {
+        return getPoseAt((int) time);
+    }
+    
+    /**
+     * 按 {@link com.lanye.dolladdon.api.pose.DollPoseLayout} 的布局把指定时间点的姿态写入数组
+     * 每帧渲染时应优先使用此方法，配合复用的数组避免分配姿态对象
+     * @param time 当前时间（tick，从0开始，可以包含小数部分）
+     * @param dst 目标数组，长度至少为 offset + {@link com.lanye.dolladdon.api.pose.DollPoseLayout#SIZE}
+     * @param offset 写入的起始下标
+     * @return 是否写入了姿态（超出范围时返回 false）
+     */
+    default boolean sampleInto(float time, float[] dst, int offset) {
+        DollPose pose = getPoseAt(time);
+        if (pose == null) {
+            return false;
+        }
+        pose.copyInto(dst, offset);
+        return true;
+    }
+    
     /**
      * 获取动作的关键帧列表
      * @return 关键帧数组，每个元素为 [tick, pose]
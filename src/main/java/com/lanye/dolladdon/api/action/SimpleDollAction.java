@@ -1,22 +1,38 @@
 package com.lanye.dolladdon.api.action;
 
 import com.lanye.dolladdon.api.pose.DollPose;
+import com.lanye.dolladdon.api.pose.DollPoseLayout;
 import net.minecraft.util.Mth;
 
+import java.util.Arrays;
+import java.util.Comparator;
+
 /**
  * 简单的玩偶动作实现
  * 支持线性插值在关键帧之间过渡
+ * 
+ * 创建时把关键帧打包成紧凑数组；每个tick的姿态表由 {@link com.lanye.dolladdon.util.PoseActionManager}
+ * 在发布快照之前于后台线程生成，保存在只属于这个管理器的副本上（见 {@link #withTable()}）：
+ * {@link #sampleInto(float, float[], int)} 有姿态表时直接查表（两个tick之间线性插值，与按关键帧插值的结果相同），
+ * 没有姿态表时按关键帧二分查找
  */
 public class SimpleDollAction implements DollAction {
     private final String name;
     private final boolean looping;
+    // 按tick排序的关键帧
     private final ActionKeyframe[] keyframes;
     private final int duration;
+    // 关键帧的tick和按 DollPoseLayout 打包的姿态数据
+    private final int[] keyframeTicks;
+    private final float[] keyframeData;
+    // 每个tick的姿态（duration 行，每行 DollPoseLayout.SIZE 个 float），没有生成或已释放时为 null
+    private volatile float[] table;
     
     public SimpleDollAction(String name, boolean looping, ActionKeyframe[] keyframes) {
         this.name = name;
         this.looping = looping;
-        this.keyframes = keyframes;
+        this.keyframes = keyframes.clone();
+        Arrays.sort(this.keyframes, Comparator.comparingInt(ActionKeyframe::getTick));
         
         // 计算总时长（最后一个关键帧的tick + 1）
         int maxTick = 0;
@@ -26,6 +42,61 @@ public class SimpleDollAction implements DollAction {
             }
         }
         this.duration = maxTick + 1;
+        
+        this.keyframeTicks = new int[this.keyframes.length];
+        this.keyframeData = new float[this.keyframes.length * DollPoseLayout.SIZE];
+        for (int i = 0; i < this.keyframes.length; i++) {
+            keyframeTicks[i] = this.keyframes[i].getTick();
+            this.keyframes[i].getPose().copyInto(keyframeData, i * DollPoseLayout.SIZE);
+        }
+    }
+    
+    // 带姿态表的副本，和原动作共用关键帧数据
+    private SimpleDollAction(SimpleDollAction source, float[] table) {
+        this.name = source.name;
+        this.looping = source.looping;
+        this.keyframes = source.keyframes;
+        this.duration = source.duration;
+        this.keyframeTicks = source.keyframeTicks;
+        this.keyframeData = source.keyframeData;
+        this.table = table;
+    }
+    
+    /**
+     * @return 姿态表需要的内存（float 个数），没有关键帧时为0
+     */
+    public long getTableSize() {
+        return keyframes.length == 0 ? 0 : (long) duration * DollPoseLayout.SIZE;
+    }
+    
+    /**
+     * @return 是否已经生成姿态表
+     */
+    public boolean hasTable() {
+        return table != null;
+    }
+    
+    /**
+     * 创建预先计算了每个tick姿态的副本（计算量和姿态表大小成正比，应在后台线程调用）
+     * 副本和原动作共用关键帧数据，姿态表只属于副本，释放时不影响原动作和其他副本
+     * @return 带姿态表的副本，没有关键帧时返回自身
+     */
+    public SimpleDollAction withTable() {
+        if (keyframes.length == 0) {
+            return this;
+        }
+        float[] baked = new float[duration * DollPoseLayout.SIZE];
+        for (int tick = 0; tick < duration; tick++) {
+            sampleKeyframes(tick, baked, tick * DollPoseLayout.SIZE);
+        }
+        return new SimpleDollAction(this, baked);
+    }
+    
+    /**
+     * 释放姿态表，之后按关键帧二分查找
+     */
+    public void releaseTable() {
+        table = null;
     }
     
     @Override
@@ -45,54 +116,46 @@ public class SimpleDollAction implements DollAction {
     
     @Override
     public DollPose getPoseAt(int tick) {
+        return getPoseAt((float) tick);
+    }
+    
+    @Override
+    public DollPose getPoseAt(float time) {
         if (keyframes.length == 0) {
             return null;
         }
         
-        // 如果循环，将tick限制在总时长内
-        int actualTick = looping ? (tick % duration) : Math.min(tick, duration - 1);
-        
-        // 如果只有一个关键帧，直接返回
-        if (keyframes.length == 1) {
+        float actualTime = clampTime(time);
+        int prev = findKeyframe(actualTime);
+        // 在第一个关键帧之前、正好在关键帧上或在最后一个关键帧之后，直接返回关键帧的姿态
+        if (prev < 0) {
             return keyframes[0].getPose();
         }
-        
-        // 找到当前tick所在的关键帧区间
-        ActionKeyframe prevKeyframe = null;
-        ActionKeyframe nextKeyframe = null;
-        
-        for (int i = 0; i < keyframes.length; i++) {
-            if (keyframes[i].getTick() <= actualTick) {
-                prevKeyframe = keyframes[i];
-            }
-            if (keyframes[i].getTick() >= actualTick && nextKeyframe == null) {
-                nextKeyframe = keyframes[i];
-                break;
-            }
-        }
-        
-        // 如果没有找到前一个关键帧，使用第一个
-        if (prevKeyframe == null) {
-            prevKeyframe = keyframes[0];
+        if (prev == keyframes.length - 1 || keyframeTicks[prev] == actualTime) {
+            return keyframes[prev].getPose();
         }
         
-        // 如果没有找到下一个关键帧，使用最后一个
-        if (nextKeyframe == null) {
-            nextKeyframe = keyframes[keyframes.length - 1];
+        // 在两个姿态之间插值
+        return interpolatePoses(keyframes[prev].getPose(), keyframes[prev + 1].getPose(), getProgress(prev, actualTime));
+    }
+    
+    @Override
+    public boolean sampleInto(float time, float[] dst, int offset) {
+        if (keyframes.length == 0) {
+            return false;
         }
-        
-        // 如果前后关键帧相同，直接返回
-        if (prevKeyframe == nextKeyframe) {
-            return prevKeyframe.getPose();
+        float actualTime = clampTime(time);
+        float[] baked = table;
+        if (baked == null) {
+            sampleKeyframes(actualTime, dst, offset);
+            return true;
         }
         
-        // 计算插值比例
-        int tickDiff = nextKeyframe.getTick() - prevKeyframe.getTick();
-        float t = tickDiff > 0 ? (float)(actualTick - prevKeyframe.getTick()) / tickDiff : 0.0F;
-        t = Mth.clamp(t, 0.0F, 1.0F);
-        
-        // 在两个姿态之间插值
-        return interpolatePoses(prevKeyframe.getPose(), nextKeyframe.getPose(), t);
+        // 查表，两个tick之间线性插值（最后一个tick保持不变）
+        int row = (int) actualTime;
+        int nextRow = Math.min(row + 1, duration - 1);
+        lerp(actualTime - row, baked, row * DollPoseLayout.SIZE, nextRow * DollPoseLayout.SIZE, dst, offset);
+        return true;
     }
     
     @Override
@@ -100,6 +163,69 @@ public class SimpleDollAction implements DollAction {
         return keyframes.clone();
     }
     
+    /**
+     * 如果循环，将时间限制在总时长内，否则限制在最后一个tick
+     */
+    private float clampTime(float time) {
+        float actualTime = looping ? (time % duration) : Math.min(time, duration - 1);
+        return Math.max(0.0f, actualTime);
+    }
+    
+    /**
+     * 二分查找最后一个不晚于指定时间的关键帧
+     * @return 关键帧下标，在第一个关键帧之前时返回 -1
+     */
+    private int findKeyframe(float time) {
+        int low = 0;
+        int high = keyframeTicks.length - 1;
+        int result = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (keyframeTicks[mid] <= time) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * 计算在关键帧 prev 和 prev + 1 之间的插值比例
+     */
+    private float getProgress(int prev, float time) {
+        int tickDiff = keyframeTicks[prev + 1] - keyframeTicks[prev];
+        float t = tickDiff > 0 ? (time - keyframeTicks[prev]) / tickDiff : 0.0F;
+        return Mth.clamp(t, 0.0F, 1.0F);
+    }
+    
+    /**
+     * 按关键帧计算指定时间的姿态，写入目标数组
+     */
+    private void sampleKeyframes(float time, float[] dst, int offset) {
+        int prev = findKeyframe(time);
+        if (prev < 0 || prev == keyframes.length - 1) {
+            int index = prev < 0 ? 0 : prev;
+            System.arraycopy(keyframeData, index * DollPoseLayout.SIZE, dst, offset, DollPoseLayout.SIZE);
+            return;
+        }
+        lerp(getProgress(prev, time), keyframeData, prev * DollPoseLayout.SIZE, (prev + 1) * DollPoseLayout.SIZE, dst, offset);
+    }
+    
+    /**
+     * 在源数组的两行之间线性插值，写入目标数组
+     */
+    private static void lerp(float t, float[] src, int from, int to, float[] dst, int offset) {
+        if (t == 0.0f || from == to) {
+            System.arraycopy(src, from, dst, offset, DollPoseLayout.SIZE);
+            return;
+        }
+        for (int i = 0; i < DollPoseLayout.SIZE; i++) {
+            dst[offset + i] = Mth.lerp(t, src[from + i], src[to + i]);
+        }
+    }
+    
     /**
      * 在两个姿态之间插值
      */
@@ -109,6 +235,7 @@ public class SimpleDollAction implements DollAction {
     
     /**
      * 插值姿态的内部实现
+     * 所有部件的旋转、位置和缩放都会插值
      */
     private static class InterpolatedPose implements DollPose {
         private final DollPose pose1;
@@ -126,48 +253,145 @@ public class SimpleDollAction implements DollAction {
             return "interpolated";
         }
         
-        private float[] interpolate(float[] arr1, float[] arr2) {
+        @Override
+        public float get(int part, int channel, int axis) {
+            return Mth.lerp(t, pose1.get(part, channel, axis), pose2.get(part, channel, axis));
+        }
+        
+        @Override
+        public void copyInto(float[] dst, int offset) {
+            pose1.copyInto(dst, offset);
+            for (int part = 0; part < DollPoseLayout.PART_COUNT; part++) {
+                for (int channel = 0; channel < DollPoseLayout.PART_STRIDE; channel += 3) {
+                    int index = offset + DollPoseLayout.index(part, channel);
+                    for (int axis = 0; axis < 3; axis++) {
+                        dst[index + axis] = Mth.lerp(t, dst[index + axis], pose2.get(part, channel, axis));
+                    }
+                }
+            }
+        }
+        
+        private float[] interpolate(int part, int channel) {
             return new float[]{
-                Mth.lerp(t, arr1[0], arr2[0]),
-                Mth.lerp(t, arr1[1], arr2[1]),
-                Mth.lerp(t, arr1[2], arr2[2])
+                get(part, channel, 0),
+                get(part, channel, 1),
+                get(part, channel, 2)
             };
         }
         
         @Override
         public float[] getHeadRotation() {
-            return interpolate(pose1.getHeadRotation(), pose2.getHeadRotation());
+            return interpolate(DollPoseLayout.HEAD, DollPoseLayout.ROTATION);
         }
         
         @Override
         public float[] getHatRotation() {
-            return interpolate(pose1.getHatRotation(), pose2.getHatRotation());
+            return interpolate(DollPoseLayout.HAT, DollPoseLayout.ROTATION);
         }
         
         @Override
         public float[] getBodyRotation() {
-            return interpolate(pose1.getBodyRotation(), pose2.getBodyRotation());
+            return interpolate(DollPoseLayout.BODY, DollPoseLayout.ROTATION);
         }
         
         @Override
         public float[] getRightArmRotation() {
-            return interpolate(pose1.getRightArmRotation(), pose2.getRightArmRotation());
+            return interpolate(DollPoseLayout.RIGHT_ARM, DollPoseLayout.ROTATION);
         }
         
         @Override
         public float[] getLeftArmRotation() {
-            return interpolate(pose1.getLeftArmRotation(), pose2.getLeftArmRotation());
+            return interpolate(DollPoseLayout.LEFT_ARM, DollPoseLayout.ROTATION);
         }
         
         @Override
         public float[] getRightLegRotation() {
-            return interpolate(pose1.getRightLegRotation(), pose2.getRightLegRotation());
+            return interpolate(DollPoseLayout.RIGHT_LEG, DollPoseLayout.ROTATION);
         }
         
         @Override
         public float[] getLeftLegRotation() {
-            return interpolate(pose1.getLeftLegRotation(), pose2.getLeftLegRotation());
+            return interpolate(DollPoseLayout.LEFT_LEG, DollPoseLayout.ROTATION);
+        }
+        
+        @Override
+        public float[] getPosition() {
+            return interpolate(DollPoseLayout.ROOT, DollPoseLayout.POSITION);
+        }
+        
+        @Override
+        public float[] getScale() {
+            return interpolate(DollPoseLayout.ROOT, DollPoseLayout.SCALE);
+        }
+        
+        @Override
+        public float[] getHeadPosition() {
+            return interpolate(DollPoseLayout.HEAD, DollPoseLayout.POSITION);
+        }
+        
+        @Override
+        public float[] getHeadScale() {
+            return interpolate(DollPoseLayout.HEAD, DollPoseLayout.SCALE);
+        }
+        
+        @Override
+        public float[] getHatPosition() {
+            return interpolate(DollPoseLayout.HAT, DollPoseLayout.POSITION);
+        }
+        
+        @Override
+        public float[] getHatScale() {
+            return interpolate(DollPoseLayout.HAT, DollPoseLayout.SCALE);
+        }
+        
+        @Override
+        public float[] getBodyPosition() {
+            return interpolate(DollPoseLayout.BODY, DollPoseLayout.POSITION);
+        }
+        
+        @Override
+        public float[] getBodyScale() {
+            return interpolate(DollPoseLayout.BODY, DollPoseLayout.SCALE);
+        }
+        
+        @Override
+        public float[] getRightArmPosition() {
+            return interpolate(DollPoseLayout.RIGHT_ARM, DollPoseLayout.POSITION);
+        }
+        
+        @Override
+        public float[] getRightArmScale() {
+            return interpolate(DollPoseLayout.RIGHT_ARM, DollPoseLayout.SCALE);
+        }
+        
+        @Override
+        public float[] getLeftArmPosition() {
+            return interpolate(DollPoseLayout.LEFT_ARM, DollPoseLayout.POSITION);
+        }
+        
+        @Override
+        public float[] getLeftArmScale() {
+            return interpolate(DollPoseLayout.LEFT_ARM, DollPoseLayout.SCALE);
+        }
+        
+        @Override
+        public float[] getRightLegPosition() {
+            return interpolate(DollPoseLayout.RIGHT_LEG, DollPoseLayout.POSITION);
+        }
+        
+        @Override
+        public float[] getRightLegScale() {
+            return interpolate(DollPoseLayout.RIGHT_LEG, DollPoseLayout.SCALE);
+        }
+        
+        @Override
+        public float[] getLeftLegPosition() {
+            return interpolate(DollPoseLayout.LEFT_LEG, DollPoseLayout.POSITION);
+        }
+        
+        @Override
+        public float[] getLeftLegScale() {
+            return interpolate(DollPoseLayout.LEFT_LEG, DollPoseLayout.SCALE);
         }
     }
 }
-
@@ -0,0 +1,192 @@
+package com.lanye.dolladdon.api.pose;
+
+import net.minecraft.world.entity.EntityDimensions;
+import org.joml.Matrix4f;
+
+/**
+ * 编译后的姿态
+ * 预先为每个部件计算好变换矩阵（身体旋转中心的旋转、部件的位置偏移和缩放），
+ * 渲染时直接乘上矩阵，不再逐帧计算平移、旋转和缩放
+ *
+ * 矩阵按 {@link DollPoseLayout} 的部件索引存放：
+ * ROOT 为整体的位置和缩放；其余部件已包含身体旋转；HAT 的缩放已合并头部缩放
+ * 部件自身的旋转仍由 ModelPart 应用，通过 {@link #get(int, int, int)} 读取
+ */
+public final class CompiledDollPose {
+    // 身体的旋转中心（身体和头连接处）的Y坐标
+    private static final float BODY_ROTATION_CENTER_Y = 0.375f;
+
+    private final float[] data = DollPoseLayout.createDefault();
+    private final Matrix4f[] matrices = new Matrix4f[DollPoseLayout.PART_COUNT];
+    private final boolean[] identity = new boolean[DollPoseLayout.PART_COUNT];
+    private boolean hasBodyRotation;
+    private boolean hasPartTransforms;
+    // 整体缩放对应的实体尺寸缩放：宽度取X和Z的较大值，高度取Y
+    private float widthScale = 1.0f;
+    private float heightScale = 1.0f;
+    // 按基础尺寸缓存的实体尺寸
+    private volatile ScaledDimensions dimensions;
+
+    private record ScaledDimensions(EntityDimensions base, EntityDimensions scaled) {
+    }
+
+    /**
+     * 创建空的编译姿态（所有部件为单位矩阵），之后可通过 {@link #load(DollPose)} 重复使用
+     */
+    public CompiledDollPose() {
+        for (int part = 0; part < DollPoseLayout.PART_COUNT; part++) {
+            matrices[part] = new Matrix4f();
+            identity[part] = true;
+        }
+    }
+
+    /**
+     * 编译姿态
+     * @param pose 要编译的姿态
+     */
+    public CompiledDollPose(DollPose pose) {
+        this();
+        load(pose);
+    }
+
+    /**
+     * 重新编译为给定的姿态，复用已有的矩阵，不分配对象
+     * @param pose 要编译的姿态
+     * @return this
+     */
+    public CompiledDollPose load(DollPose pose) {
+        pose.copyInto(data, 0);
+        compile();
+        return this;
+    }
+
+    /**
+     * 从紧凑数据重新编译，复用已有的矩阵，不分配对象
+     * @param src 按 {@link DollPoseLayout} 排列的数据
+     * @param offset 数据的起始下标
+     * @return this
+     */
+    public CompiledDollPose load(float[] src, int offset) {
+        System.arraycopy(src, offset, data, 0, DollPoseLayout.SIZE);
+        compile();
+        return this;
+    }
+
+    private void compile() {
+        int bodyRotation = DollPoseLayout.index(DollPoseLayout.BODY, DollPoseLayout.ROTATION);
+        float bodyRotX = data[bodyRotation], bodyRotY = data[bodyRotation + 1], bodyRotZ = data[bodyRotation + 2];
+        hasBodyRotation = bodyRotX != 0 || bodyRotY != 0 || bodyRotZ != 0;
+        hasPartTransforms = false;
+
+        int rootScale = DollPoseLayout.index(DollPoseLayout.ROOT, DollPoseLayout.SCALE);
+        widthScale = Math.max(Math.abs(data[rootScale]), Math.abs(data[rootScale + 2]));
+        heightScale = Math.abs(data[rootScale + 1]);
+        dimensions = null;
+
+        int headScale = DollPoseLayout.index(DollPoseLayout.HEAD, DollPoseLayout.SCALE);
+        for (int part = 0; part < DollPoseLayout.PART_COUNT; part++) {
+            int position = DollPoseLayout.index(part, DollPoseLayout.POSITION);
+            int scale = DollPoseLayout.index(part, DollPoseLayout.SCALE);
+            float scaleX = data[scale], scaleY = data[scale + 1], scaleZ = data[scale + 2];
+            if (part == DollPoseLayout.HAT) {
+                // hat 应该跟随 head 的缩放，所以使用 headScale 和 hatScale 的组合
+                scaleX *= data[headScale];
+                scaleY *= data[headScale + 1];
+                scaleZ *= data[headScale + 2];
+            }
+
+            Matrix4f matrix = matrices[part].identity();
+            boolean isIdentity = true;
+
+            // 身体旋转作用于除整体以外的所有部件
+            if (hasBodyRotation && part != DollPoseLayout.ROOT) {
+                matrix.translate(0.0f, BODY_ROTATION_CENTER_Y, 0.0f)
+                        .rotateX(bodyRotX)
+                        .rotateY(bodyRotY)
+                        .rotateZ(bodyRotZ)
+                        .translate(0.0f, -BODY_ROTATION_CENTER_Y, 0.0f);
+                isIdentity = false;
+            }
+            // 位置偏移（Y轴取反，正数向上）
+            if (data[position] != 0.0f || data[position + 1] != 0.0f || data[position + 2] != 0.0f) {
+                matrix.translate(data[position], -data[position + 1], data[position + 2]);
+                isIdentity = false;
+            }
+            if (scaleX != 1.0f || scaleY != 1.0f || scaleZ != 1.0f) {
+                matrix.scale(scaleX, scaleY, scaleZ);
+                isIdentity = false;
+            }
+
+            identity[part] = isIdentity;
+            hasPartTransforms |= !isIdentity;
+        }
+    }
+
+    /**
+     * 读取单个分量
+     * @see DollPose#get(int, int, int)
+     */
+    public float get(int part, int channel, int axis) {
+        return data[DollPoseLayout.index(part, channel) + axis];
+    }
+
+    /**
+     * 获取部件的变换矩阵，调用者不应修改返回的矩阵
+     * @param part 部件，见 {@link DollPoseLayout}
+     * @return 变换矩阵
+     */
+    public Matrix4f getMatrix(int part) {
+        return matrices[part];
+    }
+
+    /**
+     * 部件的变换矩阵是否为单位矩阵（可以跳过）
+     * @param part 部件，见 {@link DollPoseLayout}
+     */
+    public boolean isIdentity(int part) {
+        return identity[part];
+    }
+
+    /**
+     * 身体是否有旋转
+     */
+    public boolean hasBodyRotation() {
+        return hasBodyRotation;
+    }
+
+    /**
+     * 实体宽度的缩放（整体缩放X和Z的较大绝对值）
+     */
+    public float getWidthScale() {
+        return widthScale;
+    }
+
+    /**
+     * 实体高度的缩放（整体缩放Y的绝对值）
+     */
+    public float getHeightScale() {
+        return heightScale;
+    }
+
+    /**
+     * 获取按整体缩放调整后的实体尺寸，结果按基础尺寸缓存
+     * @param base 实体类型的基础尺寸
+     * @return 缩放后的尺寸
+     */
+    public EntityDimensions getDimensions(EntityDimensions base) {
+        ScaledDimensions cached = dimensions;
+        if (cached == null || cached.base() != base) {
+            cached = new ScaledDimensions(base, base.scale(widthScale, heightScale));
+            dimensions = cached;
+        }
+        return cached.scaled();
+    }
+
+    /**
+     * 是否有任何部件（包括整体）需要额外的变换
+     * 为 false 时所有部件都可以直接渲染
+     */
+    public boolean hasPartTransforms() {
+        return hasPartTransforms;
+    }
+}
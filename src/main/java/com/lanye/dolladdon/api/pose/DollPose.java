@@ -190,5 +190,39 @@ public interface DollPose {
     default float[] getLeftLegScale() {
         return new float[]{1.0f, 1.0f, 1.0f};
     }
+    
+    /**
+     * 读取单个分量，不分配数组
+     * 默认实现通过数组形式的 getter 读取，实现类应覆盖此方法
+     * @param part 部件，见 {@link DollPoseLayout}
+     * @param channel 通道（ROTATION/POSITION/SCALE），见 {@link DollPoseLayout}
+     * @param axis 轴（0=x, 1=y, 2=z）
+     * @return 分量值
+     */
+    default float get(int part, int channel, int axis) {
+        return DollPoseLayout.read(this, part, channel)[axis];
+    }
+    
+    /**
+     * 按 {@link DollPoseLayout} 的布局把整个姿态写入数组
+     * 渲染和 tick 中应优先使用此方法，配合复用的数组避免分配
+     * @param dst 目标数组，长度至少为 offset + {@link DollPoseLayout#SIZE}
+     * @param offset 写入的起始下标
+     */
+    default void copyInto(float[] dst, int offset) {
+        for (int part = 0; part < DollPoseLayout.PART_COUNT; part++) {
+            for (int channel = 0; channel < DollPoseLayout.PART_STRIDE; channel += 3) {
+                System.arraycopy(DollPoseLayout.read(this, part, channel), 0, dst, offset + DollPoseLayout.index(part, channel), 3);
+            }
+        }
+    }
+    
+    /**
+     * 获取预先编译好的姿态（各部件的变换矩阵）
+     * 不会变化的姿态应在创建时编译一次并在这里返回；返回 null 时渲染器会每帧临时编译
+     * @return 编译后的姿态，没有则返回 null
+     */
+    default CompiledDollPose getCompiledPose() {
+        return null;
+    }
 }
-
@@ -0,0 +1,91 @@
+package com.lanye.dolladdon.api.pose;
+
+/**
+ * 姿态数据的紧凑布局
+ * 把姿态中所有部件的旋转、位置和缩放按固定顺序排列在一个 float 数组中，
+ * 配合 {@link DollPose#get(int, int, int)} 和 {@link DollPose#copyInto(float[], int)} 使用，
+ * 读取姿态时不需要为每个部件分配数组
+ *
+ * 下标 = 部件 * PART_STRIDE + 通道 + 轴（0=x, 1=y, 2=z）
+ */
+public final class DollPoseLayout {
+    // 部件
+    public static final int HEAD = 0;
+    public static final int HAT = 1;
+    public static final int BODY = 2;
+    public static final int RIGHT_ARM = 3;
+    public static final int LEFT_ARM = 4;
+    public static final int RIGHT_LEG = 5;
+    public static final int LEFT_LEG = 6;
+    // 整体（对应 getPosition/getScale，旋转始终为0）
+    public static final int ROOT = 7;
+    public static final int PART_COUNT = 8;
+
+    // 通道
+    public static final int ROTATION = 0;
+    public static final int POSITION = 3;
+    public static final int SCALE = 6;
+
+    // 每个部件占用的 float 数量
+    public static final int PART_STRIDE = 9;
+    // 一个姿态占用的 float 数量
+    public static final int SIZE = PART_COUNT * PART_STRIDE;
+
+    private DollPoseLayout() {
+    }
+
+    /**
+     * 计算部件某个通道在紧凑数组中的起始下标
+     * @param part 部件
+     * @param channel 通道
+     * @return 起始下标（x 分量）
+     */
+    public static int index(int part, int channel) {
+        return part * PART_STRIDE + channel;
+    }
+
+    /**
+     * 创建默认数据（旋转和位置为0，缩放为1）
+     */
+    public static float[] createDefault() {
+        float[] data = new float[SIZE];
+        for (int part = 0; part < PART_COUNT; part++) {
+            int scale = index(part, SCALE);
+            data[scale] = 1.0f;
+            data[scale + 1] = 1.0f;
+            data[scale + 2] = 1.0f;
+        }
+        return data;
+    }
+
+    /**
+     * 通过数组形式的 getter 读取部件某个通道的值
+     * 供未覆盖紧凑读取方法的 DollPose 实现使用，会分配数组
+     * @param pose 姿态
+     * @param part 部件
+     * @param channel 通道
+     * @return [x, y, z]
+     */
+    static float[] read(DollPose pose, int part, int channel) {
+        switch (part) {
+            case HEAD:
+                return channel == ROTATION ? pose.getHeadRotation() : channel == POSITION ? pose.getHeadPosition() : pose.getHeadScale();
+            case HAT:
+                return channel == ROTATION ? pose.getHatRotation() : channel == POSITION ? pose.getHatPosition() : pose.getHatScale();
+            case BODY:
+                return channel == ROTATION ? pose.getBodyRotation() : channel == POSITION ? pose.getBodyPosition() : pose.getBodyScale();
+            case RIGHT_ARM:
+                return channel == ROTATION ? pose.getRightArmRotation() : channel == POSITION ? pose.getRightArmPosition() : pose.getRightArmScale();
+            case LEFT_ARM:
+                return channel == ROTATION ? pose.getLeftArmRotation() : channel == POSITION ? pose.getLeftArmPosition() : pose.getLeftArmScale();
+            case RIGHT_LEG:
+                return channel == ROTATION ? pose.getRightLegRotation() : channel == POSITION ? pose.getRightLegPosition() : pose.getRightLegScale();
+            case LEFT_LEG:
+                return channel == ROTATION ? pose.getLeftLegRotation() : channel == POSITION ? pose.getLeftLegPosition() : pose.getLeftLegScale();
+            case ROOT:
+                return channel == ROTATION ? new float[]{0.0f, 0.0f, 0.0f} : channel == POSITION ? pose.getPosition() : pose.getScale();
+            default:
+                throw new IllegalArgumentException("未知的部件索引: " + part);
+        }
+    }
+}
@@ -2,36 +2,18 @@ package com.lanye.dolladdon.api.pose;
 
 /**
  * 简单的玩偶姿态实现
- * 使用数组存储各部分的旋转角度
+ * 使用紧凑数组（见 DollPoseLayout）存储各部分的旋转、位置和缩放
  */
 public class SimpleDollPose implements DollPose {
     private final String name;
     private final String displayName;
-    private final float[] headRotation;
-    private final float[] hatRotation;
-    private final float[] bodyRotation;
-    private final float[] rightArmRotation;
-    private final float[] leftArmRotation;
-    private final float[] rightLegRotation;
-    private final float[] leftLegRotation;
-    private final float[] position;
-    private final float[] scale;
-    
-    // 各部件的位置和缩放
-    private final float[] headPosition;
-    private final float[] headScale;
-    private final float[] hatPosition;
-    private final float[] hatScale;
-    private final float[] bodyPosition;
-    private final float[] bodyScale;
-    private final float[] rightArmPosition;
-    private final float[] rightArmScale;
-    private final float[] leftArmPosition;
-    private final float[] leftArmScale;
-    private final float[] rightLegPosition;
-    private final float[] rightLegScale;
-    private final float[] leftLegPosition;
-    private final float[] leftLegScale;
+    // 按 DollPoseLayout 排列的所有部件的旋转、位置和缩放
+    private final float[] data;
+    // 姿态不会变化，创建时编译一次
+    private final CompiledDollPose compiled;
+    
+    // 姿态不可变，默认站立姿态共用一个实例
+    private static final SimpleDollPose DEFAULT_STANDING_POSE = createDefaultStandingPose();
     
     public SimpleDollPose(String name,
                          float[] headRotation,
@@ -98,31 +80,67 @@ public class SimpleDollPose implements DollPose {
                          float[] leftLegScale) {
         this.name = name;
         this.displayName = displayName != null ? displayName : name;
-        this.headRotation = headRotation != null ? headRotation : new float[]{0, 0, 0};
-        this.hatRotation = hatRotation != null ? hatRotation : new float[]{0, 0, 0};
-        this.bodyRotation = bodyRotation != null ? bodyRotation : new float[]{0, 0, 0};
-        this.rightArmRotation = rightArmRotation != null ? rightArmRotation : new float[]{0, 0, 0};
-        this.leftArmRotation = leftArmRotation != null ? leftArmRotation : new float[]{0, 0, 0};
-        this.rightLegRotation = rightLegRotation != null ? rightLegRotation : new float[]{0, 0, 0};
-        this.leftLegRotation = leftLegRotation != null ? leftLegRotation : new float[]{0, 0, 0};
-        this.position = position != null ? position : new float[]{0.0f, 0.0f, 0.0f};
-        this.scale = scale != null ? scale : new float[]{1.0f, 1.0f, 1.0f};
+        this.data = DollPoseLayout.createDefault();
+        set(DollPoseLayout.HEAD, DollPoseLayout.ROTATION, headRotation);
+        set(DollPoseLayout.HAT, DollPoseLayout.ROTATION, hatRotation);
+        set(DollPoseLayout.BODY, DollPoseLayout.ROTATION, bodyRotation);
+        set(DollPoseLayout.RIGHT_ARM, DollPoseLayout.ROTATION, rightArmRotation);
+        set(DollPoseLayout.LEFT_ARM, DollPoseLayout.ROTATION, leftArmRotation);
+        set(DollPoseLayout.RIGHT_LEG, DollPoseLayout.ROTATION, rightLegRotation);
+        set(DollPoseLayout.LEFT_LEG, DollPoseLayout.ROTATION, leftLegRotation);
+        set(DollPoseLayout.ROOT, DollPoseLayout.POSITION, position);
+        set(DollPoseLayout.ROOT, DollPoseLayout.SCALE, scale);
         
         // 各部件的位置和缩放
-        this.headPosition = headPosition != null ? headPosition : new float[]{0.0f, 0.0f, 0.0f};
-        this.headScale = headScale != null ? headScale : new float[]{1.0f, 1.0f, 1.0f};
-        this.hatPosition = hatPosition != null ? hatPosition : new float[]{0.0f, 0.0f, 0.0f};
-        this.hatScale = hatScale != null ? hatScale : new float[]{1.0f, 1.0f, 1.0f};
-        this.bodyPosition = bodyPosition != null ? bodyPosition : new float[]{0.0f, 0.0f, 0.0f};
-        this.bodyScale = bodyScale != null ? bodyScale : new float[]{1.0f, 1.0f, 1.0f};
-        this.rightArmPosition = rightArmPosition != null ? rightArmPosition : new float[]{0.0f, 0.0f, 0.0f};
-        this.rightArmScale = rightArmScale != null ? rightArmScale : new float[]{1.0f, 1.0f, 1.0f};
-        this.leftArmPosition = leftArmPosition != null ? leftArmPosition : new float[]{0.0f, 0.0f, 0.0f};
-        this.leftArmScale = leftArmScale != null ? leftArmScale : new float[]{1.0f, 1.0f, 1.0f};
-        this.rightLegPosition = rightLegPosition != null ? rightLegPosition : new float[]{0.0f, 0.0f, 0.0f};
-        this.rightLegScale = rightLegScale != null ? rightLegScale : new float[]{1.0f, 1.0f, 1.0f};
-        this.leftLegPosition = leftLegPosition != null ? leftLegPosition : new float[]{0.0f, 0.0f, 0.0f};
-        this.leftLegScale = leftLegScale != null ? leftLegScale : new float[]{1.0f, 1.0f, 1.0f};
+        set(DollPoseLayout.HEAD, DollPoseLayout.POSITION, headPosition);
+        set(DollPoseLayout.HEAD, DollPoseLayout.SCALE, headScale);
+        set(DollPoseLayout.HAT, DollPoseLayout.POSITION, hatPosition);
+        set(DollPoseLayout.HAT, DollPoseLayout.SCALE, hatScale);
+        set(DollPoseLayout.BODY, DollPoseLayout.POSITION, bodyPosition);
+        set(DollPoseLayout.BODY, DollPoseLayout.SCALE, bodyScale);
+        set(DollPoseLayout.RIGHT_ARM, DollPoseLayout.POSITION, rightArmPosition);
+        set(DollPoseLayout.RIGHT_ARM, DollPoseLayout.SCALE, rightArmScale);
+        set(DollPoseLayout.LEFT_ARM, DollPoseLayout.POSITION, leftArmPosition);
+        set(DollPoseLayout.LEFT_ARM, DollPoseLayout.SCALE, leftArmScale);
+        set(DollPoseLayout.RIGHT_LEG, DollPoseLayout.POSITION, rightLegPosition);
+        set(DollPoseLayout.RIGHT_LEG, DollPoseLayout.SCALE, rightLegScale);
+        set(DollPoseLayout.LEFT_LEG, DollPoseLayout.POSITION, leftLegPosition);
+        set(DollPoseLayout.LEFT_LEG, DollPoseLayout.SCALE, leftLegScale);
+        
+        this.compiled = new CompiledDollPose(this);
+    }
+    
+    /**
+     * 从紧凑数据创建姿态（用于网络同步和缓存）
+     * @param name 姿态名称
+     * @param displayName 显示名称
+     * @param data 按 DollPoseLayout 排列的数据，长度为 {@link DollPoseLayout#SIZE}
+     */
+    public SimpleDollPose(String name, String displayName, float[] data) {
+        if (data.length != DollPoseLayout.SIZE) {
+            throw new IllegalArgumentException("姿态数据长度错误: " + data.length);
+        }
+        this.name = name;
+        this.displayName = displayName != null ? displayName : name;
+        this.data = data.clone();
+        this.compiled = new CompiledDollPose(this);
+    }
+    
+    /**
+     * 写入部件某个通道的值，为 null 时保留默认值
+     */
+    private void set(int part, int channel, float[] values) {
+        if (values != null) {
+            System.arraycopy(values, 0, data, DollPoseLayout.index(part, channel), 3);
+        }
+    }
+    
+    /**
+     * 复制部件某个通道的值
+     */
+    private float[] copy(int part, int channel) {
+        int index = DollPoseLayout.index(part, channel);
+        return new float[]{data[index], data[index + 1], data[index + 2]};
     }
     
     @Override
@@ -137,117 +155,140 @@ public class SimpleDollPose implements DollPose {
     
     @Override
     public float[] getHeadRotation() {
-        return headRotation.clone();
+        return copy(DollPoseLayout.HEAD, DollPoseLayout.ROTATION);
     }
     
     @Override
     public float[] getHatRotation() {
-        return hatRotation.clone();
+        return copy(DollPoseLayout.HAT, DollPoseLayout.ROTATION);
     }
     
     @Override
     public float[] getBodyRotation() {
-        return bodyRotation.clone();
+        return copy(DollPoseLayout.BODY, DollPoseLayout.ROTATION);
     }
     
     @Override
     public float[] getRightArmRotation() {
-        return rightArmRotation.clone();
+        return copy(DollPoseLayout.RIGHT_ARM, DollPoseLayout.ROTATION);
     }
     
     @Override
     public float[] getLeftArmRotation() {
-        return leftArmRotation.clone();
+        return copy(DollPoseLayout.LEFT_ARM, DollPoseLayout.ROTATION);
     }
     
     @Override
     public float[] getRightLegRotation() {
-        return rightLegRotation.clone();
+        return copy(DollPoseLayout.RIGHT_LEG, DollPoseLayout.ROTATION);
     }
     
     @Override
     public float[] getLeftLegRotation() {
-        return leftLegRotation.clone();
+        return copy(DollPoseLayout.LEFT_LEG, DollPoseLayout.ROTATION);
     }
     
     @Override
     public float[] getPosition() {
-        return position.clone();
+        return copy(DollPoseLayout.ROOT, DollPoseLayout.POSITION);
     }
     
     @Override
     public float[] getScale() {
-        return scale.clone();
+        return copy(DollPoseLayout.ROOT, DollPoseLayout.SCALE);
     }
     
     @Override
     public float[] getHeadPosition() {
-        return headPosition.clone();
+        return copy(DollPoseLayout.HEAD, DollPoseLayout.POSITION);
     }
     
     @Override
     public float[] getHeadScale() {
-        return headScale.clone();
+        return copy(DollPoseLayout.HEAD, DollPoseLayout.SCALE);
     }
     
     @Override
     public float[] getHatPosition() {
-        return hatPosition.clone();
+        return copy(DollPoseLayout.HAT, DollPoseLayout.POSITION);
     }
     
     @Override
     public float[] getHatScale() {
-        return hatScale.clone();
+        return copy(DollPoseLayout.HAT, DollPoseLayout.SCALE);
     }
     
     @Override
     public float[] getBodyPosition() {
-        return bodyPosition.clone();
+        return copy(DollPoseLayout.BODY, DollPoseLayout.POSITION);
     }
     
     @Override
     public float[] getBodyScale() {
-        return bodyScale.clone();
+        return copy(DollPoseLayout.BODY, DollPoseLayout.SCALE);
     }
     
     @Override
     public float[] getRightArmPosition() {
-        return rightArmPosition.clone();
+        return copy(DollPoseLayout.RIGHT_ARM, DollPoseLayout.POSITION);
     }
     
     @Override
     public float[] getRightArmScale() {
-        return rightArmScale.clone();
+        return copy(DollPoseLayout.RIGHT_ARM, DollPoseLayout.SCALE);
     }
     
     @Override
     public float[] getLeftArmPosition() {
-        return leftArmPosition.clone();
+        return copy(DollPoseLayout.LEFT_ARM, DollPoseLayout.POSITION);
     }
     
     @Override
     public float[] getLeftArmScale() {
-        return leftArmScale.clone();
+        return copy(DollPoseLayout.LEFT_ARM, DollPoseLayout.SCALE);
     }
     
     @Override
     public float[] getRightLegPosition() {
-        return rightLegPosition.clone();
+        return copy(DollPoseLayout.RIGHT_LEG, DollPoseLayout.POSITION);
     }
     
     @Override
     public float[] getRightLegScale() {
-        return rightLegScale.clone();
+        return copy(DollPoseLayout.RIGHT_LEG, DollPoseLayout.SCALE);
     }
     
     @Override
     public float[] getLeftLegPosition() {
-        return leftLegPosition.clone();
+        return copy(DollPoseLayout.LEFT_LEG, DollPoseLayout.POSITION);
     }
     
     @Override
     public float[] getLeftLegScale() {
-        return leftLegScale.clone();
+        return copy(DollPoseLayout.LEFT_LEG, DollPoseLayout.SCALE);
+    }
+    
+    @Override
+    public float get(int part, int channel, int axis) {
+        return data[DollPoseLayout.index(part, channel) + axis];
+    }
+    
+    @Override
+    public void copyInto(float[] dst, int offset) {
+        System.arraycopy(data, 0, dst, offset, DollPoseLayout.SIZE);
+    }
+    
+    @Override
+    public CompiledDollPose getCompiledPose() {
+        return compiled;
+    }
+    
+    /**
+     * 获取共用的默认站立姿态
+     * 渲染缓存按姿态实例查找，回退到默认姿态时应使用这个实例而不是每次创建新的
+     */
+    public static SimpleDollPose getDefaultStandingPose() {
+        return DEFAULT_STANDING_POSE;
     }
     
     /**
@@ -1,8 +1,13 @@
 package com.lanye.dolladdon.base.entity;
 
 import com.lanye.dolladdon.api.action.DollAction;
+import com.lanye.dolladdon.api.pose.CompiledDollPose;
 import com.lanye.dolladdon.api.pose.DollPose;
+import com.lanye.dolladdon.api.pose.DollPoseLayout;
 import com.lanye.dolladdon.api.pose.SimpleDollPose;
+import com.lanye.dolladdon.base.item.DollState;
+import com.lanye.dolladdon.init.ModDataComponents;
+import com.lanye.dolladdon.util.DollIdRegistry;
 import com.lanye.dolladdon.util.PoseActionManager;
 import net.minecraft.network.chat.Component;
 import net.minecraft.network.syncher.EntityDataAccessor;
@@ -31,29 +36,64 @@ import java.util.Map;
  */
 public abstract class BaseDollEntity extends Entity {
     private static final EntityDataAccessor<Byte> DATA_CLIENT_FLAGS = SynchedEntityData.defineId(BaseDollEntity.class, EntityDataSerializers.BYTE);
-    // 同步姿态索引到客户端（使用Byte，支持0-255个姿态，足够使用）
-    private static final EntityDataAccessor<Byte> DATA_POSE_INDEX = SynchedEntityData.defineId(BaseDollEntity.class, EntityDataSerializers.BYTE);
+    // 同步姿态和动作ID到客户端（VarInt，ID由 DollIdRegistry 分配，-1 表示默认standing姿态或没有动作）
+    private static final EntityDataAccessor<Integer> DATA_POSE_ID = SynchedEntityData.defineId(BaseDollEntity.class, EntityDataSerializers.INT);
+    private static final EntityDataAccessor<Integer> DATA_ACTION_ID = SynchedEntityData.defineId(BaseDollEntity.class, EntityDataSerializers.INT);
+    // 动作的播放参数（开始时的游戏时间、速度、是否循环），只在开始播放时同步一次，两端按游戏时间计算当前帧
+    private static final EntityDataAccessor<Long> DATA_ACTION_START = SynchedEntityData.defineId(BaseDollEntity.class, EntityDataSerializers.LONG);
+    private static final EntityDataAccessor<Float> DATA_ACTION_SPEED = SynchedEntityData.defineId(BaseDollEntity.class, EntityDataSerializers.FLOAT);
+    private static final EntityDataAccessor<Boolean> DATA_ACTION_LOOP = SynchedEntityData.defineId(BaseDollEntity.class, EntityDataSerializers.BOOLEAN);
+    
+    // 按管理器和版本号缓存的可用姿态名称列表（同一端的所有玩偶共用）
+    private record PoseNameList(PoseActionManager manager, long version, List<String> names) {
+    }
+    private static volatile PoseNameList poseNameList = new PoseNameList(null, -1, List.of());
+    
+    // 在地面上静止多少tick后进入休眠状态
+    private static final int SETTLE_TICKS = 10;
+    // 速度平方小于这个值视为静止
+    private static final double REST_VELOCITY_SQR = 1.0E-6;
     
     // 姿态和动作相关字段
     private DollPose currentPose;
     private DollAction currentAction;
-    private int actionTick = 0;
+    private long actionStartTime = 0;
+    private float actionSpeed = 1.0f;
+    private boolean actionLooping = false;
+    // 当前姿态和动作对象对应的资源版本号，文件热重载后按名称换成新的对象
+    private long resourceVersion = resources().getVersion();
     
     // 当前姿态索引（用于循环切换）
     private int currentPoseIndex = -1;
+    // 客户端已应用的同步ID
+    private int appliedPoseId = DollIdRegistry.NONE;
+    private int appliedActionId = DollIdRegistry.NONE;
+    private long appliedActionStart = 0;
+    
+    // 休眠状态：静止在地面上且没有动作时跳过重力、移动和碰撞检测，直到被唤醒
+    private boolean dormant = false;
+    private int restingTicks = 0;
+    
+    // 所在世界的集中处理系统（服务端，加入世界后设置）
+    DollTickSystem tickSystem;
+    int tickSlot = -1;
+    
+    // 当前尺寸对应的整体缩放，缩放不变时不需要刷新尺寸
+    private float dimensionWidthScale = 1.0f;
+    private float dimensionHeightScale = 1.0f;
+    
+    // 播放动作时当前帧的姿态（按 DollPoseLayout 排列，只用于碰撞箱），复用同一个数组，不分配姿态对象
+    private float[] actionFrame;
+    private boolean hasActionFrame = false;
     
     protected BaseDollEntity(EntityType<? extends BaseDollEntity> entityType, Level level) {
         super(entityType, level);
         this.noPhysics = false; // 有物理碰撞
         // 默认使用standing姿态
-        DollPose standingPose = PoseActionManager.getPose("standing");
-        this.currentPose = standingPose != null ? standingPose : SimpleDollPose.createDefaultStandingPose();
-        // 初始化时设置为255（默认姿态）
-        if (!level.isClientSide) {
-            this.entityData.set(DATA_POSE_INDEX, (byte) 255);
-        }
-        // 初始化碰撞箱
-        updateBoundingBox();
+        DollPose standingPose = resources().getPose("standing");
+        this.currentPose = standingPose != null ? standingPose : SimpleDollPose.getDefaultStandingPose();
+        // 初始化尺寸和碰撞箱
+        updateDimensions();
     }
     
     protected BaseDollEntity(EntityType<? extends BaseDollEntity> entityType, Level level, double x, double y, double z) {
@@ -64,7 +104,11 @@ public abstract class BaseDollEntity extends Entity {
     @Override
     protected void defineSynchedData(SynchedEntityData.Builder builder) {
         builder.define(DATA_CLIENT_FLAGS, (byte) 0);
-        builder.define(DATA_POSE_INDEX, (byte) 255); // 255 表示未设置（默认姿态）
+        builder.define(DATA_POSE_ID, DollIdRegistry.NONE);
+        builder.define(DATA_ACTION_ID, DollIdRegistry.NONE);
+        builder.define(DATA_ACTION_START, 0L);
+        builder.define(DATA_ACTION_SPEED, 1.0f);
+        builder.define(DATA_ACTION_LOOP, false);
     }
     
     @Override
@@ -78,37 +122,19 @@ public abstract class BaseDollEntity extends Entity {
      */
     public void restoreFromNBT(net.minecraft.nbt.CompoundTag tag) {
         // 优先恢复动作（如果有）
-        if (tag.contains("ActionName", net.minecraft.nbt.Tag.TAG_STRING)) {
-            String actionName = tag.getString("ActionName");
-            DollAction action = PoseActionManager.getAction(actionName);
-            if (action != null) {
-                setAction(action);
-                // 动作已设置，不需要再设置姿态
-                return;
+        if (tag.contains("ActionName", net.minecraft.nbt.Tag.TAG_STRING) && restoreAction(tag.getString("ActionName"))) {
+            // 恢复播放进度（游戏时间随存档保存）
+            if (tag.contains("ActionStart", net.minecraft.nbt.Tag.TAG_LONG)) {
+                float speed = tag.contains("ActionSpeed", net.minecraft.nbt.Tag.TAG_FLOAT) ? tag.getFloat("ActionSpeed") : 1.0f;
+                boolean looping = tag.contains("ActionLoop", net.minecraft.nbt.Tag.TAG_BYTE) ? tag.getBoolean("ActionLoop") : currentAction.isLooping();
+                playAction(currentAction, tag.getLong("ActionStart"), speed, looping);
             }
+            return;
         }
         
         // 优先使用姿态名称恢复（如果保存了）
-        if (tag.contains("PoseName", net.minecraft.nbt.Tag.TAG_STRING)) {
-            String poseName = tag.getString("PoseName");
-            DollPose pose = PoseActionManager.getPose(poseName);
-            if (pose != null) {
-                setPose(pose);
-                // 更新currentPoseIndex（如果可能）
-                List<String> poseNames = getAvailablePoseNames();
-                int index = poseNames.indexOf(poseName);
-                if (index >= 0) {
-                    // 如果索引是0（standing），设置为-1表示默认状态
-                    this.currentPoseIndex = (index == 0) ? -1 : index;
-                    // 同步到客户端
-                    if (currentPoseIndex >= 0 && currentPoseIndex < 255) {
-                        this.entityData.set(DATA_POSE_INDEX, (byte) (currentPoseIndex & 0xFF));
-                    } else {
-                        this.entityData.set(DATA_POSE_INDEX, (byte) 255);
-                    }
-                }
-                return;
-            }
+        if (tag.contains("PoseName", net.minecraft.nbt.Tag.TAG_STRING) && restorePose(tag.getString("PoseName"))) {
+            return;
         }
         
         // 如果没有姿态名称，尝试使用姿态索引（向后兼容）
@@ -118,18 +144,173 @@ public abstract class BaseDollEntity extends Entity {
             this.currentPoseIndex = (savedIndex == 0) ? -1 : savedIndex;
             // 加载时恢复姿态
             loadPoseByIndex();
-            // 同步到客户端
-            if (currentPoseIndex >= 0 && currentPoseIndex < 255) {
-                this.entityData.set(DATA_POSE_INDEX, (byte) (currentPoseIndex & 0xFF));
-            } else {
-                this.entityData.set(DATA_POSE_INDEX, (byte) 255);
-            }
+            syncState();
         } else {
             // NBT中没有姿态信息，使用默认standing姿态
-            this.currentPoseIndex = -1;
-            this.entityData.set(DATA_POSE_INDEX, (byte) 255);
-            DollPose standingPose = PoseActionManager.getPose("standing");
-            this.currentPose = standingPose != null ? standingPose : SimpleDollPose.createDefaultStandingPose();
+            restoreDefaultPose();
+        }
+    }
+    
+    /**
+     * 从物品保存的状态恢复实体（放置玩偶时使用）
+     * @param state 物品上的玩偶状态
+     */
+    public void applyDollState(DollState state) {
+        if (state.action().isPresent() && restoreAction(state.action().get())) {
+            return;
+        }
+        if (state.pose().isPresent() && restorePose(state.pose().get())) {
+            return;
+        }
+        restoreDefaultPose();
+    }
+    
+    /**
+     * 获取要保存到物品上的状态（破坏掉落时使用）
+     * @return 玩偶状态，默认状态返回 {@link DollState#EMPTY}
+     */
+    public DollState getDollState() {
+        if (currentAction != null) {
+            // 播放动作时姿态由动作决定，只保存动作
+            return DollState.of(null, currentAction.getName());
+        }
+        return DollState.of(currentPose != null ? currentPose.getName() : null, null);
+    }
+    
+    /**
+     * 按名称恢复动作
+     * @return 动作存在并已设置时返回 true
+     */
+    private boolean restoreAction(String actionName) {
+        DollAction action = resources().getAction(actionName);
+        if (action == null) {
+            return false;
+        }
+        setAction(action);
+        return true;
+    }
+    
+    /**
+     * 按名称恢复姿态，并更新姿态索引
+     * @return 姿态存在并已设置时返回 true
+     */
+    private boolean restorePose(String poseName) {
+        DollPose pose = resources().getPose(poseName);
+        if (pose == null) {
+            return false;
+        }
+        setPose(pose);
+        // 更新currentPoseIndex（如果可能）
+        List<String> poseNames = getAvailablePoseNames();
+        int index = poseNames.indexOf(poseName);
+        if (index >= 0) {
+            // 如果索引是0（standing），设置为-1表示默认状态
+            this.currentPoseIndex = (index == 0) ? -1 : index;
+        }
+        return true;
+    }
+    
+    /**
+     * 恢复默认standing姿态
+     */
+    private void restoreDefaultPose() {
+        this.currentPoseIndex = -1;
+        DollPose standingPose = resources().getPose("standing");
+        this.currentPose = standingPose != null ? standingPose : SimpleDollPose.getDefaultStandingPose();
+        syncState();
+    }
+    
+    /**
+     * 把当前的姿态和动作以ID的形式同步到客户端（服务端）
+     */
+    private void syncState() {
+        if (this.level().isClientSide) {
+            return;
+        }
+        DollIdRegistry ids = DollIdRegistry.get(false);
+        int actionId = currentAction != null ? ids.getActionId(currentAction.getName()) : DollIdRegistry.NONE;
+        int poseId = DollIdRegistry.NONE;
+        // 播放动作时姿态由动作决定
+        if (currentAction == null && currentPose != null && !"standing".equals(currentPose.getName())) {
+            poseId = ids.getPoseId(currentPose.getName());
+        }
+        this.entityData.set(DATA_ACTION_START, actionStartTime);
+        this.entityData.set(DATA_ACTION_SPEED, actionSpeed);
+        this.entityData.set(DATA_ACTION_LOOP, actionLooping);
+        this.entityData.set(DATA_ACTION_ID, actionId);
+        this.entityData.set(DATA_POSE_ID, poseId);
+        if (tickSystem != null) {
+            tickSystem.update(this, actionId, actionStartTime, actionSpeed, actionLooping);
+        }
+    }
+    
+    /**
+     * 根据同步的ID更新姿态和动作（客户端）
+     * ID映射或服务器的姿态数据还没有收到时先显示standing姿态，下一个tick重试
+     */
+    private void applySyncedState() {
+        int actionId = this.entityData.get(DATA_ACTION_ID);
+        int poseId = this.entityData.get(DATA_POSE_ID);
+        long actionStart = this.entityData.get(DATA_ACTION_START);
+        if (actionId == appliedActionId && poseId == appliedPoseId && actionStart == appliedActionStart) {
+            return;
+        }
+        
+        DollIdRegistry ids = DollIdRegistry.get(true);
+        DollAction action = null;
+        DollPose pose = null;
+        boolean resolved;
+        if (actionId != DollIdRegistry.NONE) {
+            String actionName = ids.getActionName(actionId);
+            action = actionName != null ? resources().getAction(actionName) : null;
+            resolved = action != null;
+        } else if (poseId != DollIdRegistry.NONE) {
+            String poseName = ids.getPoseName(poseId);
+            pose = poseName != null ? resources().getPose(poseName) : null;
+            resolved = pose != null;
+        } else {
+            resolved = true;
+        }
+        
+        if (action != null) {
+            this.currentAction = action;
+            this.hasActionFrame = false;
+            this.actionStartTime = actionStart;
+            this.actionSpeed = this.entityData.get(DATA_ACTION_SPEED);
+            this.actionLooping = this.entityData.get(DATA_ACTION_LOOP);
+            wakeUp();
+        } else {
+            if (pose == null) {
+                DollPose standingPose = resources().getPose("standing");
+                pose = standingPose != null ? standingPose : SimpleDollPose.getDefaultStandingPose();
+            }
+            this.currentAction = null;
+            this.currentPose = pose;
+        }
+        if (resolved) {
+            appliedActionId = actionId;
+            appliedPoseId = poseId;
+            appliedActionStart = actionStart;
+        }
+        // 姿态改变时更新碰撞箱
+        updateDimensions();
+    }
+    
+    /**
+     * 姿态或动作重新加载后，按名称换成新加载的对象（播放进度由开始时间决定，不受影响）
+     */
+    private void refreshPoseAndAction() {
+        if (currentAction != null) {
+            DollAction action = resources().getAction(currentAction.getName());
+            if (action != null) {
+                currentAction = action;
+            }
+        } else if (currentPose != null) {
+            DollPose pose = resources().getPose(currentPose.getName());
+            if (pose != null && pose != currentPose) {
+                currentPose = pose;
+                updateDimensions();
+            }
         }
     }
     
@@ -138,6 +319,9 @@ public abstract class BaseDollEntity extends Entity {
         // 如果当前有动作，保存动作名称
         if (currentAction != null) {
             tag.putString("ActionName", currentAction.getName());
+            tag.putLong("ActionStart", actionStartTime);
+            tag.putFloat("ActionSpeed", actionSpeed);
+            tag.putBoolean("ActionLoop", actionLooping);
         }
         
         // 保存当前姿态名称（而不是索引）
@@ -159,60 +343,118 @@ public abstract class BaseDollEntity extends Entity {
     
     @Override
     public void tick() {
+        // 服务端启用集中处理时，由 DollTickSystem 统一推进所有玩偶
+        if (!this.level().isClientSide && DollTickSystem.isEnabled()) {
+            return;
+        }
         super.tick();
         
-        // 在客户端，根据同步的索引更新姿态
+        refreshResources();
+        
+        // 在客户端，根据同步的ID更新姿态和动作
         if (this.level().isClientSide) {
-            byte syncedIndex = this.entityData.get(DATA_POSE_INDEX);
-            if (syncedIndex != 255) {
-                int index = syncedIndex & 0xFF; // 转换为无符号整数
-                if (index != currentPoseIndex) {
-                    currentPoseIndex = index;
-                    loadPoseByIndex();
-                    // 姿态改变时更新碰撞箱
-                    updateBoundingBox();
-                }
-            } else if (currentPoseIndex != -1) {
-                // 如果同步值为255，使用standing姿态
-                currentPoseIndex = -1;
-                DollPose standingPose = PoseActionManager.getPose("standing");
-                currentPose = standingPose != null ? standingPose : SimpleDollPose.createDefaultStandingPose();
-                // 姿态改变时更新碰撞箱
-                updateBoundingBox();
-            }
+            applySyncedState();
         }
         
-        // 更新动作
-        if (currentAction != null) {
-            actionTick++;
-            
-            // 获取当前tick对应的姿态
-            DollPose actionPose = currentAction.getPoseAt(actionTick);
-            if (actionPose != null) {
-                // 检查姿态是否改变（包括scale的变化）
-                boolean poseChanged = currentPose != actionPose;
-                currentPose = actionPose;
-                // 如果姿态改变，更新碰撞箱
-                if (poseChanged) {
-                    updateBoundingBox();
-                }
-            }
-            
-            // 如果动作不循环且播放完成，停止动作
-            if (!currentAction.isLooping() && actionTick >= currentAction.getDuration()) {
-                currentAction = null;
-                actionTick = 0;
-                // 恢复standing姿态
-                DollPose standingPose = PoseActionManager.getPose("standing");
-                currentPose = standingPose != null ? standingPose : SimpleDollPose.createDefaultStandingPose();
-                // 姿态改变时更新碰撞箱
-                updateBoundingBox();
-            } else if (currentAction.isLooping()) {
-                // 循环动作，重置tick
-                if (actionTick >= currentAction.getDuration()) {
-                    actionTick = 0;
-                }
+        tickAction();
+        tickPhysics();
+    }
+    
+    /**
+     * 姿态或动作重新加载后换成新的对象
+     */
+    void refreshResources() {
+        long version = resources().getVersion();
+        if (resourceVersion != version) {
+            resourceVersion = version;
+            refreshPoseAndAction();
+        }
+    }
+    
+    /**
+     * 按游戏时间更新动作的姿态（用于碰撞箱），不循环的动作到达结束时间后停止
+     */
+    private void tickAction() {
+        if (currentAction == null) {
+            return;
+        }
+        float time = getActionTime(0.0f);
+        // 动作结束由服务端决定，客户端等待同步的状态
+        if (!actionLooping && time >= currentAction.getDuration()) {
+            if (!this.level().isClientSide) {
+                finishAction();
             }
+            return;
+        }
+        applyActionFrame(time);
+    }
+    
+    /**
+     * 获取动作已播放的时间（tick，按速度缩放）
+     * @param partialTick 两个tick之间的插值进度
+     * @return 播放时间，没有动作时返回0
+     */
+    public float getActionTime(float partialTick) {
+        if (currentAction == null) {
+            return 0.0f;
+        }
+        return Math.max(0.0f, (this.level().getGameTime() - actionStartTime + partialTick) * actionSpeed);
+    }
+    
+    /**
+     * 把渲染使用的动作姿态写入数组，按插值后的时间取姿态，在两个tick之间也能平滑过渡
+     * @param partialTick 两个tick之间的插值进度
+     * @param dst 目标数组，长度至少为 {@link DollPoseLayout#SIZE}
+     * @return 是否写入了姿态（没有动作或动作没有姿态时返回 false，此时使用 {@link #getCurrentPose()}）
+     */
+    public boolean sampleRenderPose(float partialTick, float[] dst) {
+        if (currentAction == null) {
+            return false;
+        }
+        int duration = Math.max(1, currentAction.getDuration());
+        float time = getActionTime(partialTick);
+        return currentAction.sampleInto(actionLooping ? time % duration : Math.min(time, duration - 1), dst, 0);
+    }
+    
+    /**
+     * 按播放参数把动作在某个时间点的姿态写入复用的数组（循环标记可以和动作本身的设置不同），
+     * 整体缩放变化时更新尺寸，每个tick不再分配新的姿态对象
+     * @param time 播放时间
+     */
+    void applyActionFrame(float time) {
+        if (actionFrame == null) {
+            actionFrame = new float[DollPoseLayout.SIZE];
+        }
+        int duration = Math.max(1, currentAction.getDuration());
+        hasActionFrame = currentAction.sampleInto(actionLooping ? time % duration : Math.min(time, duration - 1), actionFrame, 0);
+        updateDimensions();
+    }
+    
+    /**
+     * @return 是否正在使用动作当前帧的姿态计算尺寸
+     */
+    private boolean usesActionFrame() {
+        return currentAction != null && hasActionFrame;
+    }
+    
+    /**
+     * 不循环的动作播放完成，恢复standing姿态
+     */
+    void finishAction() {
+        currentAction = null;
+        DollPose standingPose = resources().getPose("standing");
+        currentPose = standingPose != null ? standingPose : SimpleDollPose.getDefaultStandingPose();
+        updateDimensions();
+        syncState();
+    }
+    
+    /**
+     * 重力、移动和摩擦力
+     */
+    void tickPhysics() {
+        // 休眠状态下跳过物理计算
+        if (dormant) {
+            return;
         }
         
         // 应用重力
@@ -220,7 +462,7 @@ public abstract class BaseDollEntity extends Entity {
             this.setDeltaMovement(this.getDeltaMovement().add(0.0, -0.04, 0.0));
         }
         
-        // 移动（使用重写的move方法，会自动恢复碰撞箱）
+        // 移动（碰撞箱由 getDimensions 返回的尺寸决定）
         this.move(MoverType.SELF, this.getDeltaMovement());
         
         // 应用摩擦力
@@ -231,88 +473,175 @@ public abstract class BaseDollEntity extends Entity {
             Vec3 movement = this.getDeltaMovement();
             this.setDeltaMovement(movement.x * 0.7, 0.0, movement.z * 0.7);
         }
+        
+        updateResting();
+    }
+    
+    /**
+     * 在地面上（或无重力）静止且没有动作一段时间后进入休眠状态
+     */
+    private void updateResting() {
+        boolean resting = currentAction == null
+                && (this.onGround() || this.isNoGravity())
+                && this.getDeltaMovement().lengthSqr() < REST_VELOCITY_SQR;
+        if (!resting) {
+            restingTicks = 0;
+            return;
+        }
+        if (++restingTicks >= SETTLE_TICKS) {
+            this.setDeltaMovement(Vec3.ZERO);
+            dormant = true;
+        }
     }
     
     /**
-     * 重写getDimensions方法，根据当前姿态的scale动态返回尺寸
-     * 这样Minecraft会自动使用这个尺寸来计算碰撞箱，无需手动设置
+     * 退出休眠状态，下一个tick重新计算物理
+     */
+    public void wakeUp() {
+        dormant = false;
+        restingTicks = 0;
+    }
+    
+    /**
+     * @return 是否处于休眠状态
+     */
+    public boolean isDormant() {
+        return dormant;
+    }
+    
+    /**
+     * 唤醒附近的休眠玩偶（方块更新时调用，支撑方块可能已经消失）
+     * @param level 世界
+     * @param pos 发生更新的方块位置
+     */
+    public static void wakeUpNear(net.minecraft.world.level.LevelAccessor level, net.minecraft.core.BlockPos pos) {
+        for (BaseDollEntity doll : level.getEntitiesOfClass(BaseDollEntity.class, new AABB(pos).inflate(1.0), BaseDollEntity::isDormant)) {
+            doll.wakeUp();
+        }
+    }
+    
+    /**
+     * 推动、爆炸、水流和服务器同步的速度改变时唤醒
+     */
+    @Override
+    public void setDeltaMovement(Vec3 movement) {
+        super.setDeltaMovement(movement);
+        if (dormant && movement.lengthSqr() >= REST_VELOCITY_SQR) {
+            wakeUp();
+        }
+    }
+    
+    /**
+     * 被活塞推动、传送或收到服务器同步的位置时唤醒
+     */
+    @Override
+    public void setPos(double x, double y, double z) {
+        boolean moved = dormant && this.distanceToSqr(x, y, z) >= REST_VELOCITY_SQR;
+        super.setPos(x, y, z);
+        if (moved) {
+            wakeUp();
+        }
+    }
+    
+    /**
+     * 根据当前姿态的scale返回尺寸，Minecraft会用这个尺寸计算碰撞箱
+     * 姿态有编译结果时直接使用其中缓存的尺寸
      */
     @Override
     public net.minecraft.world.entity.EntityDimensions getDimensions(net.minecraft.world.entity.Pose pose) {
-        // 基础尺寸（与DollEntityFactory中的sized(0.6f, 1f)保持一致）
-        float baseWidth = 0.6f;
-        float baseHeight = 1.0f;
-        
-        // 获取当前姿态的scale
+        // 基础尺寸来自实体类型（DollEntityFactory中的sized(0.6f, 1f)）
+        net.minecraft.world.entity.EntityDimensions base = this.getType().getDimensions();
+        if (usesActionFrame()) {
+            // 动作帧的缩放已经在 updateDimensions 中计算好
+            return base.scale(dimensionWidthScale, dimensionHeightScale);
+        }
         DollPose currentPose = getCurrentPose();
-        if (currentPose != null) {
-            float[] scale = currentPose.getScale();
-            // 应用scale到尺寸
-            double widthScale = Math.max(Math.abs(scale[0]), Math.abs(scale[2]));
-            double heightScale = Math.abs(scale[1]);
-            
-            baseWidth *= widthScale;
-            baseHeight *= heightScale;
+        if (currentPose == null) {
+            return base;
         }
-        
-        // 返回动态计算的尺寸，Minecraft会自动使用这个尺寸来计算碰撞箱
-        return net.minecraft.world.entity.EntityDimensions.scalable(baseWidth, baseHeight);
+        CompiledDollPose compiled = currentPose.getCompiledPose();
+        if (compiled != null) {
+            return compiled.getDimensions(base);
+        }
+        return base.scale(getWidthScale(currentPose), getHeightScale(currentPose));
     }
     
     /**
-     * 重写move方法，在移动后自动恢复自定义碰撞箱
-     * move()方法会根据EntityType的尺寸重置碰撞箱，所以需要在移动后立即恢复
-     * 注意：如果getDimensions()正常工作，这个方法可能不再需要
+     * 姿态改变后，只在整体缩放实际变化时刷新尺寸和碰撞箱
      */
+    private void updateDimensions() {
+        float widthScale;
+        float heightScale;
+        if (usesActionFrame()) {
+            int rootScale = DollPoseLayout.index(DollPoseLayout.ROOT, DollPoseLayout.SCALE);
+            widthScale = Math.max(Math.abs(actionFrame[rootScale]), Math.abs(actionFrame[rootScale + 2]));
+            heightScale = Math.abs(actionFrame[rootScale + 1]);
+        } else {
+            DollPose pose = getCurrentPose();
+            if (pose == null) {
+                return;
+            }
+            widthScale = getWidthScale(pose);
+            heightScale = getHeightScale(pose);
+        }
+        if (widthScale != dimensionWidthScale || heightScale != dimensionHeightScale) {
+            dimensionWidthScale = widthScale;
+            dimensionHeightScale = heightScale;
+            this.refreshDimensions();
+        }
+    }
+    
+    // 宽度使用scale的X和Z的较大值，确保碰撞箱足够大
+    private static float getWidthScale(DollPose pose) {
+        CompiledDollPose compiled = pose.getCompiledPose();
+        if (compiled != null) {
+            return compiled.getWidthScale();
+        }
+        return Math.max(Math.abs(pose.get(DollPoseLayout.ROOT, DollPoseLayout.SCALE, 0)),
+                Math.abs(pose.get(DollPoseLayout.ROOT, DollPoseLayout.SCALE, 2)));
+    }
+    
+    private static float getHeightScale(DollPose pose) {
+        CompiledDollPose compiled = pose.getCompiledPose();
+        if (compiled != null) {
+            return compiled.getHeightScale();
+        }
+        return Math.abs(pose.get(DollPoseLayout.ROOT, DollPoseLayout.SCALE, 1));
+    }
+    
+    @Override
+    public void onAddedToLevel() {
+        super.onAddedToLevel();
+        if (this.level() instanceof net.minecraft.server.level.ServerLevel serverLevel) {
+            DollTickSystem.get(serverLevel).add(this);
+        }
+    }
+    
     @Override
-    public void move(MoverType moverType, Vec3 movement) {
-        super.move(moverType, movement);
-        // 父类的move()方法会根据EntityType的尺寸重置碰撞箱，所以需要立即恢复自定义碰撞箱
-        // 如果getDimensions()正常工作，这行代码可能不再需要
-        updateBoundingBox();
+    public void onRemovedFromLevel() {
+        super.onRemovedFromLevel();
+        if (tickSystem != null) {
+            tickSystem.remove(this);
+        }
     }
     
     /**
-     * 根据当前姿态的scale动态更新碰撞箱大小
-     * 基础尺寸：宽0.6，高1.0（与DollEntityFactory中的sized保持一致）
-     * 注意：如果getDimensions()正常工作，这个方法可能不再需要
+     * @return 当前动作在服务端ID注册表中的ID，没有动作时返回 {@link DollIdRegistry#NONE}
      */
-    private void updateBoundingBox() {
-        // 基础碰撞箱尺寸（与DollEntityFactory中的sized(0.6f, 1f)保持一致）
-        double baseWidth = 0.6;
-        double baseHeight = 1.0;
-        
-        // 获取当前姿态的scale
-        DollPose pose = getCurrentPose();
-        if (pose != null) {
-            float[] scale = pose.getScale();
-            // 应用scale到碰撞箱尺寸
-            // 使用scale的最大值来确保碰撞箱足够大
-            // 这里使用scale的Y值作为高度缩放，X和Z的最大值作为宽度缩放
-            double widthScale = Math.max(Math.abs(scale[0]), Math.abs(scale[2]));
-            double heightScale = Math.abs(scale[1]);
-            
-            baseWidth *= widthScale;
-            baseHeight *= heightScale;
-        }
-        
-        // 计算碰撞箱的半宽
-        double halfWidth = baseWidth / 2.0;
-        
-        // 获取实体位置
-        double x = this.getX();
-        double y = this.getY();
-        double z = this.getZ();
-        
-        // 创建并设置碰撞箱
-        // 碰撞箱以实体底部中心为基准，向上延伸
-        // 注意：position偏移主要用于渲染，不影响碰撞箱位置
-        AABB newBoundingBox = new AABB(
-            x - halfWidth, y, z - halfWidth,
-            x + halfWidth, y + baseHeight, z + halfWidth
-        );
-        
-        this.setBoundingBox(newBoundingBox);
+    int getActionId() {
+        return currentAction != null ? DollIdRegistry.get(false).getActionId(currentAction.getName()) : DollIdRegistry.NONE;
+    }
+    
+    long getActionStartTime() {
+        return actionStartTime;
+    }
+    
+    float getActionSpeed() {
+        return actionSpeed;
+    }
+    
+    boolean isActionLooping() {
+        return actionLooping;
     }
     
     @Override
@@ -338,6 +667,7 @@ public abstract class BaseDollEntity extends Entity {
     @Override
     public InteractionResult interact(Player player, InteractionHand hand) {
         boolean isSneaking = player.isShiftKeyDown();
+        wakeUp();
         
         if (!this.level().isClientSide) {
             // 如果玩家潜行，则破坏实体并掉落物品
@@ -368,129 +698,17 @@ public abstract class BaseDollEntity extends Entity {
         // 创建物品堆
         ItemStack itemStack = getDollItemStack();
         
-        // 保存NBT标签到物品
-        net.minecraft.nbt.CompoundTag entityTag = new net.minecraft.nbt.CompoundTag();
-        this.addAdditionalSaveData(entityTag);
-        
-        // 只有当entityTag不为空时才保存custom_data，否则清除EntityData标签（允许物品叠加）
-        var existingData = itemStack.get(net.minecraft.core.component.DataComponents.CUSTOM_DATA);
-        if (!entityTag.isEmpty()) {
-            // 使用数据组件API保存NBT到custom_data组件
-            net.minecraft.nbt.CompoundTag customDataTag = new net.minecraft.nbt.CompoundTag();
-            customDataTag.put("EntityData", entityTag);
-            
-            // 设置custom_data组件（合并现有的custom_data，如果有的话）
-            net.minecraft.nbt.CompoundTag finalData;
-            if (existingData != null) {
-                var existingTag = existingData.copyTag();
-                if (existingTag != null) {
-                    finalData = existingTag;
-                    finalData.put("EntityData", entityTag);
-                } else {
-                    finalData = customDataTag;
-                }
-            } else {
-                finalData = customDataTag;
-            }
-            
-            // 直接使用 DataComponents.CUSTOM_DATA API 设置 custom_data 组件
-            // 在 Minecraft 1.21.1 中，需要使用 CustomData 对象包装 CompoundTag
-            boolean saved = false;
-            try {
-                // 尝试使用 CustomData.of() 创建（尝试不同的包路径）
-                String[] possiblePaths = {
-                    "net.minecraft.core.component.types.CustomData",
-                    "net.minecraft.core.component.CustomData",
-                    "net.minecraft.world.item.component.CustomData"
-                };
-                
-                Object customDataComponent = null;
-                for (String className : possiblePaths) {
-                    try {
-                        Class<?> customDataClass = Class.forName(className);
-                        java.lang.reflect.Method ofMethod = customDataClass.getMethod("of", net.minecraft.nbt.CompoundTag.class);
-                        customDataComponent = ofMethod.invoke(null, finalData);
-                        break;
-                    } catch (ClassNotFoundException e2) {
-                        // 继续尝试下一个路径
-                        continue;
-                    } catch (Exception e3) {
-                        // 继续尝试下一个路径
-                    }
-                }
-                
-                if (customDataComponent != null) {
-                    // 使用反射调用 set 方法，因为类型可能不匹配
-                    try {
-                        java.lang.reflect.Method setMethod = ItemStack.class.getMethod("set", 
-                            net.minecraft.core.component.DataComponentType.class, Object.class);
-                        setMethod.invoke(itemStack, net.minecraft.core.component.DataComponents.CUSTOM_DATA, customDataComponent);
-                        saved = true;
-                    } catch (Exception e) {
-                        com.lanye.dolladdon.PlayerDollAddon.LOGGER.error("[破坏掉落] 设置custom_data组件失败", e);
-                    }
-                } else {
-                    // 如果所有反射方法都失败，无法创建CustomData对象
-                    com.lanye.dolladdon.PlayerDollAddon.LOGGER.error("[破坏掉落] 无法创建CustomData对象，所有包路径都失败");
-                }
-            } catch (Exception e) {
-                com.lanye.dolladdon.PlayerDollAddon.LOGGER.error("[破坏掉落] NBT保存失败", e);
-            }
-            
-            if (!saved) {
-                com.lanye.dolladdon.PlayerDollAddon.LOGGER.error("[破坏掉落] 无法保存NBT标签到物品，掉落物可能不包含实体状态信息");
-            }
+        // 保存玩偶状态到物品，默认状态不保存（允许物品叠加）
+        DollState state = getDollState();
+        if (state.isEmpty()) {
+            itemStack.remove(ModDataComponents.DOLL_STATE);
         } else {
-            // entityTag为空，需要清除EntityData标签以确保物品可以叠加
-            if (existingData != null) {
-                var existingTag = existingData.copyTag();
-                if (existingTag != null && existingTag.contains("EntityData")) {
-                    // 移除EntityData标签
-                    existingTag.remove("EntityData");
-                    
-                    // 如果移除后tag为空，完全移除custom_data组件
-                    if (existingTag.isEmpty()) {
-                        try {
-                            java.lang.reflect.Method removeMethod = ItemStack.class.getMethod("remove", 
-                                net.minecraft.core.component.DataComponentType.class);
-                            removeMethod.invoke(itemStack, net.minecraft.core.component.DataComponents.CUSTOM_DATA);
-                        } catch (Exception e) {
-                            com.lanye.dolladdon.PlayerDollAddon.LOGGER.error("[破坏掉落] 移除custom_data组件失败", e);
-                        }
-                    } else {
-                        // 还有其他的标签，保留custom_data但移除EntityData
-                        try {
-                            String[] possiblePaths = {
-                                "net.minecraft.core.component.types.CustomData",
-                                "net.minecraft.core.component.CustomData",
-                                "net.minecraft.world.item.component.CustomData"
-                            };
-                            
-                            Object customDataComponent = null;
-                            for (String className : possiblePaths) {
-                                try {
-                                    Class<?> customDataClass = Class.forName(className);
-                                    java.lang.reflect.Method ofMethod = customDataClass.getMethod("of", net.minecraft.nbt.CompoundTag.class);
-                                    customDataComponent = ofMethod.invoke(null, existingTag);
-                                    break;
-                                } catch (ClassNotFoundException e2) {
-                                    continue;
-                                } catch (Exception e3) {
-                                    // 继续尝试下一个路径
-                                }
-                            }
-                            
-                            if (customDataComponent != null) {
-                                java.lang.reflect.Method setMethod = ItemStack.class.getMethod("set", 
-                                    net.minecraft.core.component.DataComponentType.class, Object.class);
-                                setMethod.invoke(itemStack, net.minecraft.core.component.DataComponents.CUSTOM_DATA, customDataComponent);
-                            }
-                        } catch (Exception e) {
-                            com.lanye.dolladdon.PlayerDollAddon.LOGGER.error("[破坏掉落] 更新custom_data组件失败", e);
-                        }
-                    }
-                }
-            }
+            itemStack.set(ModDataComponents.DOLL_STATE, state);
+        }
+        // 清除旧版本保存在custom_data中的EntityData标签
+        if (itemStack.has(net.minecraft.core.component.DataComponents.CUSTOM_DATA)) {
+            net.minecraft.world.item.component.CustomData.update(net.minecraft.core.component.DataComponents.CUSTOM_DATA, itemStack,
+                    tag -> tag.remove("EntityData"));
         }
         
         // 掉落物品
@@ -519,15 +737,21 @@ public abstract class BaseDollEntity extends Entity {
      * standing姿态始终在列表的第一个位置
      */
     private List<String> getAvailablePoseNames() {
-        // 每次都重新获取，因为资源可能在运行时加载
+        // 资源可能在运行时重新加载，版本号变化时重新排序
+        PoseActionManager resources = resources();
+        PoseNameList cached = poseNameList;
+        if (cached.manager() == resources && cached.version() == resources.getVersion()) {
+            return cached.names();
+        }
+        
         List<String> poseNames = new ArrayList<>();
-        Map<String, DollPose> allPoses = PoseActionManager.getAllPoses();
+        Map<String, DollPose> allPoses = resources.getAllPoses();
         poseNames.addAll(allPoses.keySet());
         
         // 如果没有加载任何姿态，至少添加默认姿态
         if (poseNames.isEmpty()) {
             // 注册默认姿态
-            PoseActionManager.registerPose("default", SimpleDollPose.createDefaultStandingPose());
+            resources.registerPose("default", SimpleDollPose.getDefaultStandingPose());
             poseNames.add("default");
         }
         
@@ -540,7 +764,9 @@ public abstract class BaseDollEntity extends Entity {
             poseNames.add(0, "standing");
         }
         
-        return poseNames;
+        List<String> names = List.copyOf(poseNames);
+        poseNameList = new PoseNameList(resources, resources.getVersion(), names);
+        return names;
     }
     
     /**
@@ -569,8 +795,7 @@ public abstract class BaseDollEntity extends Entity {
             } else {
                 // 如果只有一个姿态（standing），则保持在默认状态
                 currentPoseIndex = -1;
-                // 设置为255表示使用默认姿态
-                this.entityData.set(DATA_POSE_INDEX, (byte) 255);
+                syncState();
                 if (player != null) {
                     player.displayClientMessage(Component.literal("只有standing姿态可用"), true);
                 }
@@ -588,14 +813,13 @@ public abstract class BaseDollEntity extends Entity {
             }
         }
         
-        // 如果循环回到standing姿态（索引为-1），设置为255表示默认姿态
+        // 如果循环回到standing姿态（索引为-1）
         if (currentPoseIndex < 0) {
-            this.entityData.set(DATA_POSE_INDEX, (byte) 255);
-            DollPose standingPose = PoseActionManager.getPose("standing");
+            DollPose standingPose = resources().getPose("standing");
             if (standingPose != null) {
                 setPose(standingPose);
             } else {
-                setPose(SimpleDollPose.createDefaultStandingPose());
+                setPose(SimpleDollPose.getDefaultStandingPose());
             }
             if (player != null) {
                 DollPose pose = getCurrentPose();
@@ -603,13 +827,9 @@ public abstract class BaseDollEntity extends Entity {
                 player.displayClientMessage(Component.literal("切换到姿态: " + displayName), true);
             }
         } else {
-            // 同步姿态索引到客户端
-            byte indexToSync = (byte) (currentPoseIndex & 0xFF);
-            this.entityData.set(DATA_POSE_INDEX, indexToSync);
-            
             // 加载新姿态
             String poseName = poseNames.get(currentPoseIndex);
-            DollPose pose = PoseActionManager.getPose(poseName);
+            DollPose pose = resources().getPose(poseName);
             
             if (pose != null) {
                 setPose(pose);
@@ -620,14 +840,12 @@ public abstract class BaseDollEntity extends Entity {
                 }
             } else {
                 // 如果找不到姿态，使用standing姿态
-                DollPose standingPose = PoseActionManager.getPose("standing");
+                DollPose standingPose = resources().getPose("standing");
                 if (standingPose != null) {
                     setPose(standingPose);
                 } else {
-                    setPose(SimpleDollPose.createDefaultStandingPose());
+                    setPose(SimpleDollPose.getDefaultStandingPose());
                 }
-                // 设置为255表示使用默认姿态
-                this.entityData.set(DATA_POSE_INDEX, (byte) 255);
                 currentPoseIndex = -1;
                 if (player != null) {
                     player.displayClientMessage(Component.literal("切换到standing姿态"), true);
@@ -637,28 +855,35 @@ public abstract class BaseDollEntity extends Entity {
     }
     
     /**
-     * 根据索引加载姿态（用于从NBT恢复和客户端同步）
+     * 根据索引加载姿态（用于从旧版本NBT中的姿态索引恢复）
      */
     private void loadPoseByIndex() {
         List<String> poseNames = getAvailablePoseNames();
         
         if (currentPoseIndex >= 0 && currentPoseIndex < poseNames.size()) {
             String poseName = poseNames.get(currentPoseIndex);
-            DollPose pose = PoseActionManager.getPose(poseName);
+            DollPose pose = resources().getPose(poseName);
             if (pose != null) {
                 this.currentPose = pose;
             } else {
                 // 如果找不到姿态，使用standing姿态
-                DollPose standingPose = PoseActionManager.getPose("standing");
-                this.currentPose = standingPose != null ? standingPose : SimpleDollPose.createDefaultStandingPose();
+                DollPose standingPose = resources().getPose("standing");
+                this.currentPose = standingPose != null ? standingPose : SimpleDollPose.getDefaultStandingPose();
             }
         } else {
             // 索引无效，使用standing姿态
-            DollPose standingPose = PoseActionManager.getPose("standing");
-            this.currentPose = standingPose != null ? standingPose : SimpleDollPose.createDefaultStandingPose();
+            DollPose standingPose = resources().getPose("standing");
+            this.currentPose = standingPose != null ? standingPose : SimpleDollPose.getDefaultStandingPose();
         }
     }
     
+    /**
+     * @return 玩偶所在一端的姿态和动作管理器
+     */
+    private PoseActionManager resources() {
+        return PoseActionManager.get(this.level().isClientSide);
+    }
+    
     /**
      * 获取当前姿态
      * @return 当前姿态
@@ -676,9 +901,10 @@ public abstract class BaseDollEntity extends Entity {
             this.currentPose = pose;
             // 设置姿态时停止当前动作
             this.currentAction = null;
-            this.actionTick = 0;
-            // 姿态改变时更新碰撞箱
-            updateBoundingBox();
+            // 姿态改变时更新碰撞箱，碰撞箱变化后可能需要重新下落
+            updateDimensions();
+            wakeUp();
+            syncState();
         }
     }
     
@@ -691,12 +917,34 @@ public abstract class BaseDollEntity extends Entity {
     }
     
     /**
-     * 设置动作
+     * 从当前时间开始按原速播放动作
      * @param action 要播放的动作
      */
     public void setAction(DollAction action) {
+        setAction(action, 1.0f, action != null && action.isLooping());
+    }
+    
+    /**
+     * 从当前时间开始播放动作
+     * @param action 要播放的动作
+     * @param speed 播放速度（1为原速）
+     * @param looping 是否循环播放
+     */
+    public void setAction(DollAction action, float speed, boolean looping) {
+        playAction(action, this.level().getGameTime(), speed, looping);
+    }
+    
+    /**
+     * 设置动作的播放参数并同步到客户端，之后两端都按游戏时间计算当前帧
+     */
+    private void playAction(DollAction action, long startTime, float speed, boolean looping) {
         this.currentAction = action;
-        this.actionTick = 0;
+        this.hasActionFrame = false;
+        this.actionStartTime = startTime;
+        this.actionSpeed = speed;
+        this.actionLooping = looping;
+        wakeUp();
+        syncState();
     }
     
     /**
@@ -704,10 +952,13 @@ public abstract class BaseDollEntity extends Entity {
      */
     public void stopAction() {
         this.currentAction = null;
-        this.actionTick = 0;
         // 恢复standing姿态
-        DollPose standingPose = PoseActionManager.getPose("standing");
-        this.currentPose = standingPose != null ? standingPose : SimpleDollPose.createDefaultStandingPose();
+        DollPose standingPose = resources().getPose("standing");
+        this.currentPose = standingPose != null ? standingPose : SimpleDollPose.getDefaultStandingPose();
+        // 和设置姿态一样，碰撞箱恢复为站立姿态的大小并唤醒休眠的玩偶
+        updateDimensions();
+        wakeUp();
+        syncState();
     }
 }
 
@@ -0,0 +1,272 @@
+package com.lanye.dolladdon.base.entity;
+
+import com.lanye.dolladdon.api.action.ActionKeyframe;
+import com.lanye.dolladdon.api.action.DollAction;
+import com.lanye.dolladdon.config.DollCommonConfig;
+import com.lanye.dolladdon.util.DollIdRegistry;
+import com.lanye.dolladdon.util.PoseActionManager;
+import net.minecraft.server.level.ServerLevel;
+import net.neoforged.neoforge.event.level.LevelEvent;
+import net.neoforged.neoforge.event.tick.LevelTickEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 每个服务端世界的玩偶系统
+ * 启用后玩偶实体自身的tick不做任何事，由这里在世界tick结束后用一个循环推进所有玩偶：
+ * 动作状态（动作ID、开始时间、速度）按数组保存，只有经过关键帧时才更新实体的姿态（用于碰撞箱）；
+ * 和实体自身的tick一样，休眠只跳过物理计算，火焰、虚空、传送门等原版逻辑照常处理
+ */
+public class DollTickSystem {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int[] NO_KEYFRAMES = new int[0];
+    
+    private static final Map<ServerLevel, DollTickSystem> SYSTEMS = new IdentityHashMap<>();
+    
+    private final ServerLevel level;
+    
+    // 按槽位保存的玩偶状态，移除时用最后一个槽位填补空缺
+    private int size;
+    private BaseDollEntity[] dolls = new BaseDollEntity[INITIAL_CAPACITY];
+    private int[] actionIds = new int[INITIAL_CAPACITY];
+    private long[] startTicks = new long[INITIAL_CAPACITY];
+    private float[] speeds = new float[INITIAL_CAPACITY];
+    private boolean[] loops = new boolean[INITIAL_CAPACITY];
+    // 上次应用姿态时所在的关键帧区间，-1 表示还没有应用
+    private int[] segments = new int[INITIAL_CAPACITY];
+    
+    // 按动作ID缓存的动作和排序后的关键帧tick，资源版本号变化时清空
+    private long resourceVersion = Long.MIN_VALUE;
+    private DollAction[] actionCache = new DollAction[0];
+    private int[][] keyframeTicks = new int[0][];
+    
+    // 循环期间被移除的玩偶，循环结束后再移除
+    private boolean ticking;
+    private final List<BaseDollEntity> pendingRemovals = new ArrayList<>();
+    
+    private DollTickSystem(ServerLevel level) {
+        this.level = level;
+    }
+    
+    /**
+     * 获取世界对应的玩偶系统，不存在时创建
+     */
+    public static DollTickSystem get(ServerLevel level) {
+        return SYSTEMS.computeIfAbsent(level, DollTickSystem::new);
+    }
+    
+    /**
+     * 世界中是否有玩偶（所有加入世界的玩偶都会登记，与是否启用集中处理无关）
+     * @param level 世界
+     */
+    public static boolean hasDolls(ServerLevel level) {
+        DollTickSystem system = SYSTEMS.get(level);
+        return system != null && system.size > 0;
+    }
+    
+    /**
+     * @return 是否启用集中处理（见 {@link DollCommonConfig#BATCHED_TICKS}）
+     */
+    public static boolean isEnabled() {
+        return DollCommonConfig.BATCHED_TICKS.get();
+    }
+    
+    /**
+     * 世界tick结束后推进这个世界的所有玩偶
+     */
+    public static void onLevelTick(LevelTickEvent.Post event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel && isEnabled()) {
+            DollTickSystem system = SYSTEMS.get(serverLevel);
+            if (system != null && serverLevel.tickRateManager().runsNormally()) {
+                system.tick();
+            }
+        }
+    }
+    
+    /**
+     * 世界卸载时移除对应的玩偶系统
+     */
+    public static void onLevelUnload(LevelEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel) {
+            SYSTEMS.remove(serverLevel);
+        }
+    }
+    
+    /**
+     * 添加玩偶（实体加入世界时）
+     */
+    void add(BaseDollEntity doll) {
+        if (doll.tickSystem == this) {
+            return;
+        }
+        if (size == dolls.length) {
+            int capacity = size * 2;
+            dolls = Arrays.copyOf(dolls, capacity);
+            actionIds = Arrays.copyOf(actionIds, capacity);
+            startTicks = Arrays.copyOf(startTicks, capacity);
+            speeds = Arrays.copyOf(speeds, capacity);
+            loops = Arrays.copyOf(loops, capacity);
+            segments = Arrays.copyOf(segments, capacity);
+        }
+        int slot = size++;
+        dolls[slot] = doll;
+        doll.tickSystem = this;
+        doll.tickSlot = slot;
+        update(doll, doll.getActionId(), doll.getActionStartTime(), doll.getActionSpeed(), doll.isActionLooping());
+    }
+    
+    /**
+     * 移除玩偶（实体离开世界时）
+     */
+    void remove(BaseDollEntity doll) {
+        if (ticking) {
+            pendingRemovals.add(doll);
+            return;
+        }
+        int slot = doll.tickSlot;
+        if (doll.tickSystem != this || slot < 0) {
+            return;
+        }
+        int last = --size;
+        if (slot != last) {
+            BaseDollEntity moved = dolls[last];
+            dolls[slot] = moved;
+            actionIds[slot] = actionIds[last];
+            startTicks[slot] = startTicks[last];
+            speeds[slot] = speeds[last];
+            loops[slot] = loops[last];
+            segments[slot] = segments[last];
+            moved.tickSlot = slot;
+        }
+        dolls[last] = null;
+        doll.tickSystem = null;
+        doll.tickSlot = -1;
+    }
+    
+    /**
+     * 更新玩偶的动作状态（实体的姿态或动作改变时）
+     * @param doll 玩偶
+     * @param actionId 动作ID，没有动作时为 {@link DollIdRegistry#NONE}
+     * @param startTime 动作开始时的游戏时间
+     * @param speed 播放速度
+     * @param looping 是否循环播放
+     */
+    void update(BaseDollEntity doll, int actionId, long startTime, float speed, boolean looping) {
+        int slot = doll.tickSlot;
+        if (doll.tickSystem != this || slot < 0) {
+            return;
+        }
+        actionIds[slot] = actionId;
+        startTicks[slot] = startTime;
+        speeds[slot] = speed;
+        loops[slot] = looping;
+        segments[slot] = -1;
+    }
+    
+    private void tick() {
+        long version = PoseActionManager.get(false).getVersion();
+        if (version != resourceVersion) {
+            resourceVersion = version;
+            Arrays.fill(actionCache, null);
+        }
+        
+        long gameTime = level.getGameTime();
+        ticking = true;
+        try {
+            for (int i = 0; i < size; i++) {
+                BaseDollEntity doll = dolls[i];
+                // 和原版一样，不处理已移除或位于非实体tick区块中的玩偶
+                if (doll.isRemoved() || !level.isPositionEntityTicking(doll.blockPosition())) {
+                    continue;
+                }
+                doll.refreshResources();
+                if (actionIds[i] != DollIdRegistry.NONE) {
+                    advanceAction(i, doll, gameTime);
+                }
+                doll.baseTick();
+                doll.tickPhysics();
+            }
+        } finally {
+            ticking = false;
+        }
+        
+        for (BaseDollEntity doll : pendingRemovals) {
+            remove(doll);
+        }
+        pendingRemovals.clear();
+    }
+    
+    /**
+     * 推进玩偶的动作，经过关键帧时才把姿态应用到实体上
+     */
+    private void advanceAction(int slot, BaseDollEntity doll, long gameTime) {
+        int actionId = actionIds[slot];
+        DollAction action = resolveAction(actionId);
+        if (action == null) {
+            return;
+        }
+        int duration = Math.max(1, action.getDuration());
+        float time = Math.max(0.0f, (gameTime - startTicks[slot]) * speeds[slot]);
+        if (!loops[slot] && time >= duration) {
+            doll.finishAction();
+            return;
+        }
+        
+        if (loops[slot]) {
+            time %= duration;
+        }
+        int segment = getSegment(keyframeTicks[actionId], (int) time);
+        if (segment != segments[slot]) {
+            segments[slot] = segment;
+            doll.applyActionFrame(time);
+        }
+    }
+    
+    private DollAction resolveAction(int actionId) {
+        if (actionId >= actionCache.length) {
+            int capacity = Math.max(actionId + 1, actionCache.length * 2);
+            actionCache = Arrays.copyOf(actionCache, capacity);
+            keyframeTicks = Arrays.copyOf(keyframeTicks, capacity);
+        }
+        DollAction action = actionCache[actionId];
+        if (action == null) {
+            String name = DollIdRegistry.get(false).getActionName(actionId);
+            action = name != null ? PoseActionManager.get(false).getAction(name) : null;
+            if (action == null) {
+                return null;
+            }
+            actionCache[actionId] = action;
+            keyframeTicks[actionId] = getKeyframeTicks(action);
+        }
+        return action;
+    }
+    
+    private static int[] getKeyframeTicks(DollAction action) {
+        ActionKeyframe[] keyframes = action.getKeyframes();
+        if (keyframes == null || keyframes.length == 0) {
+            return NO_KEYFRAMES;
+        }
+        int[] ticks = new int[keyframes.length];
+        for (int i = 0; i < keyframes.length; i++) {
+            ticks[i] = keyframes[i].getTick();
+        }
+        Arrays.sort(ticks);
+        return ticks;
+    }
+    
+    /**
+     * 获取tick所在的关键帧区间（最后一个不晚于tick的关键帧下标）
+     * 没有关键帧的动作无法判断区间，每个tick都算作新的区间
+     */
+    private static int getSegment(int[] ticks, int tick) {
+        if (ticks.length == 0) {
+            return tick;
+        }
+        int index = Arrays.binarySearch(ticks, tick);
+        return index >= 0 ? index : -index - 2;
+    }
+}
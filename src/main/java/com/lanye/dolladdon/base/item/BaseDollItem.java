@@ -1,6 +1,7 @@
 package com.lanye.dolladdon.base.item;
 
 import com.lanye.dolladdon.base.entity.BaseDollEntity;
+import com.lanye.dolladdon.init.ModDataComponents;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.sounds.SoundEvents;
@@ -30,9 +31,10 @@ public abstract class BaseDollItem extends Item {
      * @param x X坐标
      * @param y Y坐标
      * @param z Z坐标
+     * @param stack 放置玩偶使用的物品堆
      * @return 玩偶实体
      */
-    protected abstract BaseDollEntity createDollEntity(Level level, double x, double y, double z);
+    protected abstract BaseDollEntity createDollEntity(Level level, double x, double y, double z, ItemStack stack);
     
     @Override
     public InteractionResult useOn(UseOnContext context) {
@@ -51,18 +53,23 @@ public abstract class BaseDollItem extends Item {
         Vec3 spawnLocation = Vec3.atBottomCenterOf(spawnPos);
         
         // 创建玩偶实体（由子类实现）
-        BaseDollEntity dollEntity = createDollEntity(level, spawnLocation.x, spawnLocation.y, spawnLocation.z);
+        BaseDollEntity dollEntity = createDollEntity(level, spawnLocation.x, spawnLocation.y, spawnLocation.z, stack);
         
         dollEntity.setYRot(player.getYRot() - 180); // 设置朝向
         
-        // 如果物品有NBT标签，恢复实体的状态（包括姿态）
-        // 从custom_data组件读取NBT
-        var customData = stack.get(net.minecraft.core.component.DataComponents.CUSTOM_DATA);
-        if (customData != null) {
-            var dataTag = customData.copyTag();
-            if (dataTag != null && dataTag.contains("EntityData")) {
-                net.minecraft.nbt.CompoundTag entityTag = dataTag.getCompound("EntityData");
-                dollEntity.restoreFromNBT(entityTag);
+        // 如果物品保存了玩偶状态，恢复实体的状态（包括姿态）
+        DollState state = stack.get(ModDataComponents.DOLL_STATE);
+        if (state != null) {
+            dollEntity.applyDollState(state);
+        } else {
+            // 兼容旧版本保存在custom_data中的EntityData标签（只读，不复制NBT）
+            var customData = stack.get(net.minecraft.core.component.DataComponents.CUSTOM_DATA);
+            if (customData != null) {
+                @SuppressWarnings("deprecation")
+                var dataTag = customData.getUnsafe();
+                if (dataTag.contains("EntityData")) {
+                    dollEntity.restoreFromNBT(dataTag.getCompound("EntityData"));
+                }
             }
         }
         
@@ -0,0 +1,67 @@
+package com.lanye.dolladdon.base.item;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+
+import java.util.Optional;
+
+/**
+ * 玩偶物品保存的实体状态（数据组件）
+ * 记录玩偶当前的姿态名称和动作名称，放置时恢复到实体上
+ * 默认状态（standing 姿态、无动作）不写入物品，保证物品可以叠加
+ *
+ * @param pose 姿态名称（standing 不保存）
+ * @param action 动作名称
+ */
+public record DollState(Optional<String> pose, Optional<String> action) {
+    public static final DollState EMPTY = new DollState(Optional.empty(), Optional.empty());
+
+    public static final Codec<DollState> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+            Codec.STRING.optionalFieldOf("pose").forGetter(DollState::pose),
+            Codec.STRING.optionalFieldOf("action").forGetter(DollState::action)
+    ).apply(instance, DollState::new));
+
+    // 网络格式：1 字节标志位，后面跟着存在的名称
+    private static final int FLAG_POSE = 1;
+    private static final int FLAG_ACTION = 2;
+
+    public static final StreamCodec<ByteBuf, DollState> STREAM_CODEC = StreamCodec.of(
+            (buf, state) -> {
+                int flags = (state.pose.isPresent() ? FLAG_POSE : 0) | (state.action.isPresent() ? FLAG_ACTION : 0);
+                buf.writeByte(flags);
+                state.pose.ifPresent(pose -> ByteBufCodecs.STRING_UTF8.encode(buf, pose));
+                state.action.ifPresent(action -> ByteBufCodecs.STRING_UTF8.encode(buf, action));
+            },
+            buf -> {
+                int flags = buf.readUnsignedByte();
+                if (flags == 0) {
+                    return EMPTY;
+                }
+                Optional<String> pose = (flags & FLAG_POSE) != 0 ? Optional.of(ByteBufCodecs.STRING_UTF8.decode(buf)) : Optional.empty();
+                Optional<String> action = (flags & FLAG_ACTION) != 0 ? Optional.of(ByteBufCodecs.STRING_UTF8.decode(buf)) : Optional.empty();
+                return new DollState(pose, action);
+            }
+    );
+
+    /**
+     * 创建状态
+     * @param poseName 姿态名称，为 null、空或 standing 时不保存
+     * @param actionName 动作名称，可以为 null
+     */
+    public static DollState of(String poseName, String actionName) {
+        Optional<String> pose = poseName == null || poseName.isEmpty() || poseName.equals("standing")
+                ? Optional.empty() : Optional.of(poseName);
+        Optional<String> action = actionName == null || actionName.isEmpty() ? Optional.empty() : Optional.of(actionName);
+        return pose.isEmpty() && action.isEmpty() ? EMPTY : new DollState(pose, action);
+    }
+
+    /**
+     * 是否为默认状态（不需要写入物品）
+     */
+    public boolean isEmpty() {
+        return pose.isEmpty() && action.isEmpty();
+    }
+}
@@ -0,0 +1,151 @@
+package com.lanye.dolladdon.base.render;
+
+import com.mojang.blaze3d.vertex.PoseStack;
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.util.FastColor;
+import org.joml.Matrix3f;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+
+/**
+ * 烘焙好的玩偶网格
+ * 保存某个静态姿态下模型所有顶点（已应用姿态变换后的模型空间坐标），
+ * 渲染时只需乘上当前的 PoseStack 矩阵并直接写入 VertexConsumer，
+ * 不再需要逐个部件设置旋转和遍历 ModelPart
+ */
+public class BakedDollMesh {
+    // 每个顶点占用的 float 数量：x, y, z, u, v, nx, ny, nz
+    private static final int STRIDE = 8;
+
+    // 回放时复用的临时向量（只在渲染线程使用）
+    private static final Vector3f POSITION = new Vector3f();
+    private static final Vector3f NORMAL = new Vector3f();
+
+    private final float[] baseVertices;
+    private final int[] baseColors;
+    private final float[] overlayVertices;
+    private final int[] overlayColors;
+
+    private BakedDollMesh(Capture base, Capture overlay) {
+        this.baseVertices = base.vertices.toFloatArray();
+        this.baseColors = base.colors.toIntArray();
+        this.overlayVertices = overlay.vertices.toFloatArray();
+        this.overlayColors = overlay.colors.toIntArray();
+    }
+
+    /**
+     * 渲染基础层（base layer）
+     * @param poseStack 变换矩阵栈（模型根部的变换）
+     * @param vertexConsumer 顶点消费者
+     * @param packedLight 光照信息
+     * @param overlay 覆盖纹理
+     */
+    public void renderBase(PoseStack poseStack, VertexConsumer vertexConsumer, int packedLight, int overlay) {
+        replay(poseStack.last(), baseVertices, baseColors, vertexConsumer, packedLight, overlay);
+    }
+
+    /**
+     * 渲染外层（overlay layer）
+     * @param poseStack 变换矩阵栈（模型根部的变换）
+     * @param vertexConsumer 顶点消费者
+     * @param packedLight 光照信息
+     * @param overlay 覆盖纹理
+     */
+    public void renderOverlay(PoseStack poseStack, VertexConsumer vertexConsumer, int packedLight, int overlay) {
+        replay(poseStack.last(), overlayVertices, overlayColors, vertexConsumer, packedLight, overlay);
+    }
+
+    private static void replay(PoseStack.Pose pose, float[] vertices, int[] colors,
+                               VertexConsumer vertexConsumer, int packedLight, int overlay) {
+        Matrix4f matrix = pose.pose();
+        Matrix3f normalMatrix = pose.normal();
+        for (int i = 0, vertex = 0; i < vertices.length; i += STRIDE, vertex++) {
+            matrix.transformPosition(vertices[i], vertices[i + 1], vertices[i + 2], POSITION);
+            normalMatrix.transform(vertices[i + 5], vertices[i + 6], vertices[i + 7], NORMAL).normalize();
+            vertexConsumer.addVertex(POSITION.x, POSITION.y, POSITION.z, colors[vertex],
+                    vertices[i + 3], vertices[i + 4], overlay, packedLight,
+                    NORMAL.x, NORMAL.y, NORMAL.z);
+        }
+    }
+
+    /**
+     * 网格构建器
+     * 通过两个记录顶点的 VertexConsumer 分别捕获基础层和外层
+     */
+    public static class Builder {
+        private final Capture base = new Capture();
+        private final Capture overlay = new Capture();
+
+        public VertexConsumer base() {
+            return base;
+        }
+
+        public VertexConsumer overlay() {
+            return overlay;
+        }
+
+        public BakedDollMesh build() {
+            return new BakedDollMesh(base, overlay);
+        }
+    }
+
+    /**
+     * 记录顶点数据的 VertexConsumer
+     * 光照和覆盖纹理不记录，回放时使用实际值
+     */
+    private static class Capture implements VertexConsumer {
+        private final FloatArrayList vertices = new FloatArrayList();
+        private final IntArrayList colors = new IntArrayList();
+        private int current = -1;
+
+        @Override
+        public VertexConsumer addVertex(float x, float y, float z) {
+            current = vertices.size();
+            vertices.add(x);
+            vertices.add(y);
+            vertices.add(z);
+            vertices.add(0.0F); // u
+            vertices.add(0.0F); // v
+            vertices.add(0.0F); // nx
+            vertices.add(1.0F); // ny
+            vertices.add(0.0F); // nz
+            colors.add(-1);
+            return this;
+        }
+
+        @Override
+        public VertexConsumer setColor(int red, int green, int blue, int alpha) {
+            colors.set(colors.size() - 1, FastColor.ARGB32.color(alpha, red, green, blue));
+            return this;
+        }
+
+        @Override
+        public VertexConsumer setUv(float u, float v) {
+            vertices.set(current + 3, u);
+            vertices.set(current + 4, v);
+            return this;
+        }
+
+        @Override
+        public VertexConsumer setUv1(int u, int v) {
+            // 覆盖纹理在回放时替换
+            return this;
+        }
+
+        @Override
+        public VertexConsumer setUv2(int u, int v) {
+            // 光照在回放时替换
+            return this;
+        }
+
+        @Override
+        public VertexConsumer setNormal(float normalX, float normalY, float normalZ) {
+            vertices.set(current + 5, normalX);
+            vertices.set(current + 6, normalY);
+            vertices.set(current + 7, normalZ);
+            return this;
+        }
+    }
+}
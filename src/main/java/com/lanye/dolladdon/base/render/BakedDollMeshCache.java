@@ -0,0 +1,65 @@
+package com.lanye.dolladdon.base.render;
+
+import com.lanye.dolladdon.api.pose.DollPose;
+import com.lanye.dolladdon.util.PoseActionManager;
+import net.minecraft.client.model.PlayerModel;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 静态姿态网格缓存
+ * 按（姿态，模型）缓存烘焙好的网格，模型决定了皮肤对应的粗/细手臂几何
+ * 姿态或动作资源重新加载后（版本号变化）整个缓存失效
+ * 只在渲染线程访问
+ */
+public class BakedDollMeshCache {
+    // 缓存的最大条目数，超出后淘汰最久未使用的条目
+    private static final int MAX_ENTRIES = 256;
+
+    private final Map<Key, BakedDollMesh> meshes = new LinkedHashMap<>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, BakedDollMesh> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private long version = PoseActionManager.get(true).getVersion();
+
+    private record Key(DollPose pose, PlayerModel<?> model) {
+        @Override
+        public boolean equals(Object obj) {
+            // 姿态和模型都按实例比较
+            return obj instanceof Key other && other.pose == pose && other.model == model;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(pose) + System.identityHashCode(model);
+        }
+    }
+
+    /**
+     * 获取姿态对应的网格，不存在时烘焙
+     * @param pose 姿态
+     * @param model 渲染使用的玩家模型
+     * @param baker 烘焙函数
+     * @return 烘焙好的网格
+     */
+    public BakedDollMesh get(DollPose pose, PlayerModel<?> model, Function<DollPose, BakedDollMesh> baker) {
+        long currentVersion = PoseActionManager.get(true).getVersion();
+        if (currentVersion != version) {
+            meshes.clear();
+            version = currentVersion;
+        }
+        return meshes.computeIfAbsent(new Key(pose, model), key -> baker.apply(key.pose()));
+    }
+
+    /**
+     * 清除所有缓存的网格
+     */
+    public void clear() {
+        meshes.clear();
+    }
+}
@@ -2,11 +2,16 @@ package com.lanye.dolladdon.base.render;
 
 import com.lanye.dolladdon.api.action.DollAction;
 import com.lanye.dolladdon.api.pose.DollPose;
+import com.lanye.dolladdon.api.pose.CompiledDollPose;
 import com.lanye.dolladdon.api.pose.SimpleDollPose;
+import com.lanye.dolladdon.config.DollClientConfig;
+import com.lanye.dolladdon.base.item.DollState;
+import com.lanye.dolladdon.init.ModDataComponents;
 import com.lanye.dolladdon.util.PoseActionManager;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.mojang.blaze3d.vertex.PoseStack;
 import com.mojang.math.Axis;
-import net.minecraft.client.Minecraft;
 import net.minecraft.client.model.PlayerModel;
 import net.minecraft.client.model.geom.EntityModelSet;
 import net.minecraft.client.renderer.BlockEntityWithoutLevelRenderer;
@@ -22,10 +27,21 @@ import net.minecraft.world.item.ItemStack;
  */
 public abstract class BaseDollItemRenderer extends BlockEntityWithoutLevelRenderer {
     protected final PlayerModel<net.minecraft.world.entity.player.Player> playerModel;
+    // 模型部件表（包括外层部件），在构造时解析一次
+    protected final DollModelParts parts;
+    // 物品姿态解析缓存：弱引用键（按组件实例比较），值带有解析时的姿态注册表版本
+    private static final Cache<Object, ResolvedPose> POSE_CACHE =
+            CacheBuilder.newBuilder().weakKeys().build();
+    // 没有预编译形式的姿态（如动作插值出的姿态）临时编译用的实例（只在渲染线程使用）
+    private final CompiledDollPose scratchPose = new CompiledDollPose();
+    
+    private record ResolvedPose(DollPose pose, long version) {
+    }
     
     protected BaseDollItemRenderer(BlockEntityRenderDispatcher dispatcher, EntityModelSet modelSet, PlayerModel<net.minecraft.world.entity.player.Player> playerModel) {
         super(dispatcher, modelSet);
         this.playerModel = playerModel;
+        this.parts = new DollModelParts(playerModel);
     }
     
     /**
@@ -34,157 +50,68 @@ public abstract class BaseDollItemRenderer extends BlockEntityWithoutLevelRender
      */
     protected abstract ResourceLocation getSkinLocation();
     
+    /**
+     * 获取物品堆对应的皮肤资源位置
+     * 默认与 {@link #getSkinLocation()} 相同，皮肤随物品变化的子类可以覆盖
+     * @param stack 物品堆
+     * @return 皮肤资源位置
+     */
+    protected ResourceLocation getSkinLocation(ItemStack stack) {
+        return getSkinLocation();
+    }
+    
     @Override
     public void renderByItem(ItemStack stack, ItemDisplayContext transformType, PoseStack poseStack,
                              MultiBufferSource bufferSource, int packedLight, int packedOverlay) {
-        poseStack.pushPose();
-        
-        // 根据显示上下文调整模型的位置、缩放和旋转
-        applyPlayerModelTransform(poseStack, transformType);
-        
-        // 获取皮肤位置（由子类实现）
-        ResourceLocation skinLocation = getSkinLocation();
-        
         // 从NBT读取动作或姿态
-        DollPose pose = getPoseFromNBT(stack);
+        DollPose pose = getPoseFromStack(stack);
+        // 获取皮肤位置（由子类实现）
+        ResourceLocation skinLocation = getSkinLocation(stack);
         
-        // 应用姿态的位置和大小
-        float[] position = pose.getPosition();
-        float[] scale = pose.getScale();
-        if (position[0] != 0.0f || position[1] != 0.0f || position[2] != 0.0f) {
-            poseStack.translate(position[0], -position[1], position[2]);
-        }
-        if (scale[0] != 1.0f || scale[1] != 1.0f || scale[2] != 1.0f) {
-            poseStack.scale(scale[0], scale[1], scale[2]);
+        // 物品栏中使用缓存的图标，不再每帧渲染整个模型
+        if (transformType == ItemDisplayContext.GUI && DollClientConfig.GUI_ICON_CACHE.get()) {
+            int iconSlot = DollIconCache.getOrRequest(skinLocation, pose, playerModel,
+                    (iconStack, iconBuffers) -> renderModel(iconStack, pose, skinLocation, ItemDisplayContext.GUI, iconBuffers,
+                            net.minecraft.client.renderer.LightTexture.FULL_BRIGHT));
+            if (iconSlot >= 0) {
+                DollIconCache.renderIcon(poseStack, bufferSource, iconSlot, packedLight);
+                return;
+            }
         }
         
-        // 从姿态获取旋转角度
-        float[] headRot = pose.getHeadRotation();
-        float[] hatRot = pose.getHatRotation();
-        float[] bodyRot = pose.getBodyRotation();
-        float[] rightArmRot = pose.getRightArmRotation();
-        float[] leftArmRot = pose.getLeftArmRotation();
-        float[] rightLegRot = pose.getRightLegRotation();
-        float[] leftLegRot = pose.getLeftLegRotation();
-        
-        // 从姿态获取各部件的位置和缩放
-        float[] headPosition = pose.getHeadPosition();
-        float[] headScale = pose.getHeadScale();
-        float[] hatPosition = pose.getHatPosition();
-        float[] hatScale = pose.getHatScale();
-        
-        // hat 应该跟随 head 的缩放，所以使用 headScale 和 hatScale 的组合
-        float[] hatCombinedScale = new float[]{
-            headScale[0] * hatScale[0],
-            headScale[1] * hatScale[1],
-            headScale[2] * hatScale[2]
-        };
-        float[] bodyPosition = pose.getBodyPosition();
-        float[] bodyScale = pose.getBodyScale();
-        float[] rightArmPosition = pose.getRightArmPosition();
-        float[] rightArmScale = pose.getRightArmScale();
-        float[] leftArmPosition = pose.getLeftArmPosition();
-        float[] leftArmScale = pose.getLeftArmScale();
-        float[] rightLegPosition = pose.getRightLegPosition();
-        float[] rightLegScale = pose.getRightLegScale();
-        float[] leftLegPosition = pose.getLeftLegPosition();
-        float[] leftLegScale = pose.getLeftLegScale();
-        
-        float headRotX = headRot[0], headRotY = headRot[1], headRotZ = headRot[2];
-        float hatRotX = hatRot[0], hatRotY = hatRot[1], hatRotZ = hatRot[2];
-        float bodyRotX = bodyRot[0], bodyRotY = bodyRot[1], bodyRotZ = bodyRot[2];
-        float rightArmRotX = rightArmRot[0], rightArmRotY = rightArmRot[1], rightArmRotZ = rightArmRot[2];
-        float leftArmRotX = leftArmRot[0], leftArmRotY = leftArmRot[1], leftArmRotZ = leftArmRot[2];
-        float rightLegRotX = rightLegRot[0], rightLegRotY = rightLegRot[1], rightLegRotZ = rightLegRot[2];
-        float leftLegRotX = leftLegRot[0], leftLegRotY = leftLegRot[1], leftLegRotZ = leftLegRot[2];
-        
-        playerModel.head.setRotation(headRotX, headRotY, headRotZ);
-        playerModel.hat.setRotation(hatRotX, hatRotY, hatRotZ);
-        // 注意：身体的旋转通过 PoseStack 应用，不在这里设置，避免双重旋转
-        playerModel.rightArm.setRotation(rightArmRotX, rightArmRotY, rightArmRotZ);
-        playerModel.leftArm.setRotation(leftArmRotX, leftArmRotY, leftArmRotZ);
-        playerModel.rightLeg.setRotation(rightLegRotX, rightLegRotY, rightLegRotZ);
-        playerModel.leftLeg.setRotation(leftLegRotX, leftLegRotY, leftLegRotZ);
+        renderModel(poseStack, pose, skinLocation, transformType, bufferSource, packedLight);
+    }
+    
+    /**
+     * 按姿态渲染玩家模型
+     * @param poseStack 变换矩阵栈（物品空间）
+     * @param pose 姿态
+     * @param skinLocation 皮肤资源位置
+     * @param transformType 显示上下文类型
+     * @param bufferSource 缓冲区源
+     * @param packedLight 光照信息
+     */
+    private void renderModel(PoseStack poseStack, DollPose pose, ResourceLocation skinLocation, ItemDisplayContext transformType,
+                             MultiBufferSource bufferSource, int packedLight) {
+        poseStack.pushPose();
         
-        // 同时设置外层部分的旋转，使它们跟随基础部分的动作
-        // 注意：身体的旋转通过 PoseStack 应用，所以 jacket 的旋转也设为0
-        DollRenderHelper.setOverlayPartsRotation(playerModel, 0, 0, 0, // 身体旋转通过 PoseStack 应用
-                               leftArmRotX, leftArmRotY, leftArmRotZ,
-                               rightArmRotX, rightArmRotY, rightArmRotZ,
-                               leftLegRotX, leftLegRotY, leftLegRotZ,
-                               rightLegRotX, rightLegRotY, rightLegRotZ);
+        // 根据显示上下文调整模型的位置、缩放和旋转
+        applyPlayerModelTransform(poseStack, transformType);
         
         // 获取渲染类型
         var cutoutRenderType = net.minecraft.client.renderer.RenderType.entityCutoutNoCull(skinLocation);
         var translucentRenderType = net.minecraft.client.renderer.RenderType.entityTranslucent(skinLocation);
         int overlay = net.minecraft.client.renderer.texture.OverlayTexture.NO_OVERLAY;
         
-        // 第一步：渲染基础层（base layer）
-        var baseVertexConsumer = bufferSource.getBuffer(cutoutRenderType);
-        
-        // 如果有身体旋转，使用 PoseStack 在身体旋转中心应用旋转，然后渲染身体、头部、手臂和腿部
-        if (bodyRotX != 0 || bodyRotY != 0 || bodyRotZ != 0) {
-            poseStack.pushPose();
-            // 移动到身体的旋转中心（身体和头连接处，Y坐标约为0.375）
-            poseStack.translate(0.0, 0.375, 0.0);
-            // 应用身体旋转（只在这里应用，不在 setRotation 中设置）
-            poseStack.mulPose(Axis.XP.rotation(bodyRotX));
-            poseStack.mulPose(Axis.YP.rotation(bodyRotY));
-            poseStack.mulPose(Axis.ZP.rotation(bodyRotZ));
-            // 移回
-            poseStack.translate(0.0, -0.375, 0.0);
-            // 在旋转后的坐标系中渲染身体、头部、手臂和腿部
-            // 注意：头部和手臂的旋转值已经是相对于身体的，所以保持它们的旋转值
-            playerModel.body.setRotation(0, 0, 0); // 确保身体不额外旋转（旋转已通过 PoseStack 应用）
-            // 头部和手臂保持它们自己的相对旋转值（headRotX等已经在上面设置）
-            renderPartWithTransform(poseStack, playerModel.body, baseVertexConsumer, packedLight, overlay, bodyPosition, bodyScale);
-            renderPartWithTransform(poseStack, playerModel.head, baseVertexConsumer, packedLight, overlay, headPosition, headScale);
-            renderPartWithTransform(poseStack, playerModel.rightArm, baseVertexConsumer, packedLight, overlay, rightArmPosition, rightArmScale);
-            renderPartWithTransform(poseStack, playerModel.leftArm, baseVertexConsumer, packedLight, overlay, leftArmPosition, leftArmScale);
-            renderPartWithTransform(poseStack, playerModel.rightLeg, baseVertexConsumer, packedLight, overlay, rightLegPosition, rightLegScale);
-            renderPartWithTransform(poseStack, playerModel.leftLeg, baseVertexConsumer, packedLight, overlay, leftLegPosition, leftLegScale);
-            poseStack.popPose();
-        } else {
-            // 没有身体旋转时，正常渲染
-            playerModel.body.setRotation(0, 0, 0);
-            renderPartWithTransform(poseStack, playerModel.body, baseVertexConsumer, packedLight, overlay, bodyPosition, bodyScale);
-            renderPartWithTransform(poseStack, playerModel.head, baseVertexConsumer, packedLight, overlay, headPosition, headScale);
-            renderPartWithTransform(poseStack, playerModel.rightArm, baseVertexConsumer, packedLight, overlay, rightArmPosition, rightArmScale);
-            renderPartWithTransform(poseStack, playerModel.leftArm, baseVertexConsumer, packedLight, overlay, leftArmPosition, leftArmScale);
-            renderPartWithTransform(poseStack, playerModel.rightLeg, baseVertexConsumer, packedLight, overlay, rightLegPosition, rightLegScale);
-            renderPartWithTransform(poseStack, playerModel.leftLeg, baseVertexConsumer, packedLight, overlay, leftLegPosition, leftLegScale);
+        // 使用姿态预先编译好的矩阵，没有时临时编译到复用的实例中
+        CompiledDollPose compiled = pose.getCompiledPose();
+        if (compiled == null) {
+            compiled = scratchPose.load(pose);
         }
         
-        // 第二步：渲染外层（overlay layer）- 使用半透明渲染以正确显示多层皮肤
-        var overlayVertexConsumer = bufferSource.getBuffer(translucentRenderType);
-        
-        // 如果有身体旋转，使用 PoseStack 在身体旋转中心应用旋转，然后渲染所有外层部分
-        if (bodyRotX != 0 || bodyRotY != 0 || bodyRotZ != 0) {
-            poseStack.pushPose();
-            // 移动到身体的旋转中心（身体和头连接处，Y坐标约为0.375）
-            poseStack.translate(0.0, 0.375, 0.0);
-            // 应用身体旋转（只在这里应用，不在 setRotation 中设置）
-            poseStack.mulPose(Axis.XP.rotation(bodyRotX));
-            poseStack.mulPose(Axis.YP.rotation(bodyRotY));
-            poseStack.mulPose(Axis.ZP.rotation(bodyRotZ));
-            // 移回
-            poseStack.translate(0.0, -0.375, 0.0);
-            // 在旋转后的坐标系中渲染所有外层部分
-            // hat层（头发外层），使用 headScale 和 hatScale 的组合
-            renderPartWithTransform(poseStack, playerModel.hat, overlayVertexConsumer, packedLight, overlay, hatPosition, hatCombinedScale);
-            // 手臂外层（保持它们自己的旋转值）
-            renderArmOverlayParts(playerModel, poseStack, overlayVertexConsumer, packedLight, overlay, rightArmPosition, rightArmScale, leftArmPosition, leftArmScale);
-            // 身体和腿部外层（jacket 的旋转设为0）
-            setBodyOverlayRotation(playerModel, 0, 0, 0); // 确保身体外层不额外旋转
-            renderBodyLegOverlayParts(playerModel, poseStack, overlayVertexConsumer, packedLight, overlay, bodyPosition, bodyScale, rightLegPosition, rightLegScale, leftLegPosition, leftLegScale);
-            poseStack.popPose();
-        } else {
-            // 没有身体旋转时，正常渲染
-            renderPartWithTransform(poseStack, playerModel.hat, overlayVertexConsumer, packedLight, overlay, hatPosition, hatCombinedScale);
-            renderArmOverlayParts(playerModel, poseStack, overlayVertexConsumer, packedLight, overlay, rightArmPosition, rightArmScale, leftArmPosition, leftArmScale);
-            setBodyOverlayRotation(playerModel, 0, 0, 0);
-            renderBodyLegOverlayParts(playerModel, poseStack, overlayVertexConsumer, packedLight, overlay, bodyPosition, bodyScale, rightLegPosition, rightLegScale, leftLegPosition, leftLegScale);
-        }
+        // 应用姿态的位置、大小和各部件的变换，然后渲染基础层和外层
+        DollRenderHelper.renderPosedModel(parts, poseStack, compiled, bufferSource,
+                cutoutRenderType, translucentRenderType, packedLight, overlay, DollRenderLod.FULL);
         
         poseStack.popPose();
     }
@@ -236,38 +163,63 @@ public abstract class BaseDollItemRenderer extends BlockEntityWithoutLevelRender
     }
     
     /**
-     * 从物品堆的NBT标签中获取姿态
-     * 支持从动作或姿态索引读取
+     * 从物品堆保存的玩偶状态中获取姿态
+     * 解析结果按组件实例缓存（组件不可变，数据变化时会换成新实例），
+     * 姿态或动作资源重新加载后（版本号变化）重新解析
      */
-    private DollPose getPoseFromNBT(ItemStack stack) {
-        // 使用 save 方法获取NBT数据
-        net.minecraft.core.RegistryAccess registryAccess = null;
-        if (Minecraft.getInstance().level != null) {
-            registryAccess = Minecraft.getInstance().level.registryAccess();
-        } else {
-            // 如果没有世界，尝试使用服务器注册表访问（如果可用）
-            try {
-                if (Minecraft.getInstance().getConnection() != null && 
-                    Minecraft.getInstance().getConnection().registryAccess() != null) {
-                    registryAccess = Minecraft.getInstance().getConnection().registryAccess();
-                }
-            } catch (Exception e) {
-                // 如果无法获取，返回standing姿态
+    private DollPose getPoseFromStack(ItemStack stack) {
+        Object component = stack.get(ModDataComponents.DOLL_STATE);
+        if (component == null) {
+            // 兼容旧版本保存在custom_data中的EntityData标签
+            component = stack.get(net.minecraft.core.component.DataComponents.CUSTOM_DATA);
+            if (component == null) {
                 return getDefaultPose();
             }
         }
         
-        // 从custom_data组件读取NBT
-        var customData = stack.get(net.minecraft.core.component.DataComponents.CUSTOM_DATA);
-        if (customData == null) {
-            return getDefaultPose();
+        long version = PoseActionManager.get(true).getVersion();
+        ResolvedPose cached = POSE_CACHE.getIfPresent(component);
+        if (cached != null && cached.version() == version) {
+            return cached.pose();
         }
-        
-        var dataTag = customData.copyTag();
-        if (dataTag == null) {
-            return getDefaultPose();
+        DollPose pose = component instanceof DollState state
+                ? resolvePose(state)
+                : resolvePose((net.minecraft.world.item.component.CustomData) component);
+        POSE_CACHE.put(component, new ResolvedPose(pose, version));
+        return pose;
+    }
+    
+    /**
+     * 解析玩偶状态中的动作或姿态
+     */
+    private DollPose resolvePose(DollState state) {
+        // 注意：对于物品渲染，动作应该显示第一帧（tick=0）的姿态
+        if (state.action().isPresent()) {
+            DollAction action = PoseActionManager.get(true).getAction(state.action().get());
+            if (action != null) {
+                DollPose actionPose = action.getPoseAt(0);
+                if (actionPose != null) {
+                    return actionPose;
+                }
+            }
         }
-        
+        if (state.pose().isPresent()) {
+            DollPose pose = PoseActionManager.get(true).getPose(state.pose().get());
+            if (pose != null) {
+                return pose;
+            }
+        }
+        return getDefaultPose();
+    }
+    
+    /**
+     * 解析旧版本 CustomData 中保存的动作或姿态
+     * 支持从动作、姿态名称或姿态索引读取
+     */
+    @SuppressWarnings("deprecation")
+    private DollPose resolvePose(net.minecraft.world.item.component.CustomData customData) {
+        // 只读访问，不复制NBT
+        var dataTag = customData.getUnsafe();
         if (!dataTag.contains("EntityData")) {
             return getDefaultPose();
         }
@@ -279,7 +231,7 @@ public abstract class BaseDollItemRenderer extends BlockEntityWithoutLevelRender
         // 因为动作是动态的，物品应该显示静态的姿态
         if (entityTag.contains("ActionName", net.minecraft.nbt.Tag.TAG_STRING)) {
             String actionName = entityTag.getString("ActionName");
-            DollAction action = PoseActionManager.getAction(actionName);
+            DollAction action = PoseActionManager.get(true).getAction(actionName);
             if (action != null) {
                 // 物品渲染时，动作显示第一帧的姿态
                 DollPose actionPose = action.getPoseAt(0);
@@ -292,7 +244,7 @@ public abstract class BaseDollItemRenderer extends BlockEntityWithoutLevelRender
         // 优先使用姿态名称（如果保存了）
         if (entityTag.contains("PoseName", net.minecraft.nbt.Tag.TAG_STRING)) {
             String poseName = entityTag.getString("PoseName");
-            DollPose pose = PoseActionManager.getPose(poseName);
+            DollPose pose = PoseActionManager.get(true).getPose(poseName);
             if (pose != null) {
                 return pose;
             }
@@ -303,13 +255,13 @@ public abstract class BaseDollItemRenderer extends BlockEntityWithoutLevelRender
             int poseIndex = entityTag.getInt("PoseIndex");
             if (poseIndex >= 0) {
                 java.util.List<String> poseNames = new java.util.ArrayList<>();
-                java.util.Map<String, DollPose> allPoses = PoseActionManager.getAllPoses();
+                java.util.Map<String, DollPose> allPoses = PoseActionManager.get(true).getAllPoses();
                 poseNames.addAll(allPoses.keySet());
                 poseNames.sort(String::compareTo);
                 
                 if (poseIndex < poseNames.size()) {
                     String poseName = poseNames.get(poseIndex);
-                    DollPose pose = PoseActionManager.getPose(poseName);
+                    DollPose pose = PoseActionManager.get(true).getPose(poseName);
                     if (pose != null) {
                         return pose;
                     }
@@ -322,162 +274,14 @@ public abstract class BaseDollItemRenderer extends BlockEntityWithoutLevelRender
     }
     
     /**
-     * 获取默认姿态（standing，如果不存在则使用createDefaultStandingPose）
+     * 获取默认姿态（standing，如果不存在则使用共用的默认站立姿态）
      */
     private DollPose getDefaultPose() {
-        DollPose standingPose = PoseActionManager.getPose("standing");
+        DollPose standingPose = PoseActionManager.get(true).getPose("standing");
         if (standingPose != null) {
             return standingPose;
         }
-        // 如果standing姿态不存在，回退到createDefaultStandingPose
-        return SimpleDollPose.createDefaultStandingPose();
-    }
-    
-    /**
-     * 渲染单个部件，应用位置和缩放
-     * @param poseStack 变换矩阵栈
-     * @param part 要渲染的部件
-     * @param vertexConsumer 顶点消费者
-     * @param packedLight 光照信息
-     * @param overlay 覆盖纹理
-     * @param position 位置偏移 [x, y, z]
-     * @param scale 缩放 [x, y, z]
-     */
-    private void renderPartWithTransform(PoseStack poseStack,
-                                         net.minecraft.client.model.geom.ModelPart part,
-                                         com.mojang.blaze3d.vertex.VertexConsumer vertexConsumer,
-                                         int packedLight,
-                                         int overlay,
-                                         float[] position,
-                                         float[] scale) {
-        poseStack.pushPose();
-        
-        // 应用位置偏移（Y轴取反，正数向上）
-        if (position[0] != 0.0f || position[1] != 0.0f || position[2] != 0.0f) {
-            poseStack.translate(position[0], -position[1], position[2]);
-        }
-        
-        // 应用缩放
-        if (scale[0] != 1.0f || scale[1] != 1.0f || scale[2] != 1.0f) {
-            poseStack.scale(scale[0], scale[1], scale[2]);
-        }
-        
-        // 渲染部件
-        part.render(poseStack, vertexConsumer, packedLight, overlay);
-        
-        poseStack.popPose();
-    }
-    
-    /**
-     * 渲染手臂外层部分（overlay layer）以支持多层皮肤
-     * 
-     * @param playerModel 玩家模型
-     * @param poseStack 变换矩阵栈
-     * @param overlayVertexConsumer 外层顶点消费者
-     * @param packedLight 光照信息
-     * @param overlay 覆盖纹理
-     * @param rightArmPosition 右臂位置偏移
-     * @param rightArmScale 右臂缩放
-     * @param leftArmPosition 左臂位置偏移
-     * @param leftArmScale 左臂缩放
-     */
-    private void renderArmOverlayParts(PlayerModel<?> playerModel,
-                                      PoseStack poseStack,
-                                      com.mojang.blaze3d.vertex.VertexConsumer overlayVertexConsumer,
-                                      int packedLight,
-                                      int overlay,
-                                      float[] rightArmPosition,
-                                      float[] rightArmScale,
-                                      float[] leftArmPosition,
-                                      float[] leftArmScale) {
-        try {
-            java.lang.reflect.Field leftSleeveField = PlayerModel.class.getDeclaredField("leftSleeve");
-            java.lang.reflect.Field rightSleeveField = PlayerModel.class.getDeclaredField("rightSleeve");
-            leftSleeveField.setAccessible(true);
-            rightSleeveField.setAccessible(true);
-            
-            Object leftSleeve = leftSleeveField.get(playerModel);
-            if (leftSleeve instanceof net.minecraft.client.model.geom.ModelPart) {
-                renderPartWithTransform(poseStack, (net.minecraft.client.model.geom.ModelPart) leftSleeve, overlayVertexConsumer, packedLight, overlay, leftArmPosition, leftArmScale);
-            }
-            
-            Object rightSleeve = rightSleeveField.get(playerModel);
-            if (rightSleeve instanceof net.minecraft.client.model.geom.ModelPart) {
-                renderPartWithTransform(poseStack, (net.minecraft.client.model.geom.ModelPart) rightSleeve, overlayVertexConsumer, packedLight, overlay, rightArmPosition, rightArmScale);
-            }
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            // 如果模型不支持这些字段，则忽略
-        }
-    }
-    
-    /**
-     * 设置身体外层（jacket）的旋转
-     * 用于在渲染时临时设置，因为身体的旋转通过 PoseStack 应用
-     */
-    private void setBodyOverlayRotation(PlayerModel<?> playerModel, float bodyRotX, float bodyRotY, float bodyRotZ) {
-        try {
-            java.lang.reflect.Field jacketField = PlayerModel.class.getDeclaredField("jacket");
-            jacketField.setAccessible(true);
-            Object jacket = jacketField.get(playerModel);
-            if (jacket instanceof net.minecraft.client.model.geom.ModelPart) {
-                ((net.minecraft.client.model.geom.ModelPart) jacket).setRotation(bodyRotX, bodyRotY, bodyRotZ);
-            }
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            // 如果模型不支持这些字段，则忽略
-        }
-    }
-    
-    /**
-     * 渲染身体和腿部外层部分（overlay layer）以支持多层皮肤
-     * 
-     * @param playerModel 玩家模型
-     * @param poseStack 变换矩阵栈
-     * @param overlayVertexConsumer 外层顶点消费者
-     * @param packedLight 光照信息
-     * @param overlay 覆盖纹理
-     * @param bodyPosition 身体位置偏移
-     * @param bodyScale 身体缩放
-     * @param rightLegPosition 右腿位置偏移
-     * @param rightLegScale 右腿缩放
-     * @param leftLegPosition 左腿位置偏移
-     * @param leftLegScale 左腿缩放
-     */
-    private void renderBodyLegOverlayParts(PlayerModel<?> playerModel,
-                                          PoseStack poseStack,
-                                          com.mojang.blaze3d.vertex.VertexConsumer overlayVertexConsumer,
-                                          int packedLight,
-                                          int overlay,
-                                          float[] bodyPosition,
-                                          float[] bodyScale,
-                                          float[] rightLegPosition,
-                                          float[] rightLegScale,
-                                          float[] leftLegPosition,
-                                          float[] leftLegScale) {
-        try {
-            java.lang.reflect.Field leftPantsField = PlayerModel.class.getDeclaredField("leftPants");
-            java.lang.reflect.Field rightPantsField = PlayerModel.class.getDeclaredField("rightPants");
-            java.lang.reflect.Field jacketField = PlayerModel.class.getDeclaredField("jacket");
-            leftPantsField.setAccessible(true);
-            rightPantsField.setAccessible(true);
-            jacketField.setAccessible(true);
-            
-            Object jacket = jacketField.get(playerModel);
-            if (jacket instanceof net.minecraft.client.model.geom.ModelPart) {
-                renderPartWithTransform(poseStack, (net.minecraft.client.model.geom.ModelPart) jacket, overlayVertexConsumer, packedLight, overlay, bodyPosition, bodyScale);
-            }
-            
-            Object leftPants = leftPantsField.get(playerModel);
-            if (leftPants instanceof net.minecraft.client.model.geom.ModelPart) {
-                renderPartWithTransform(poseStack, (net.minecraft.client.model.geom.ModelPart) leftPants, overlayVertexConsumer, packedLight, overlay, leftLegPosition, leftLegScale);
-            }
-            
-            Object rightPants = rightPantsField.get(playerModel);
-            if (rightPants instanceof net.minecraft.client.model.geom.ModelPart) {
-                renderPartWithTransform(poseStack, (net.minecraft.client.model.geom.ModelPart) rightPants, overlayVertexConsumer, packedLight, overlay, rightLegPosition, rightLegScale);
-            }
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            // 如果模型不支持这些字段，则忽略
-        }
+        // 如果standing姿态不存在，回退到共用的默认站立姿态
+        return SimpleDollPose.getDefaultStandingPose();
     }
 }
-
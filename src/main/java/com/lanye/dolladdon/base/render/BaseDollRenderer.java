@@ -1,5 +1,7 @@
 package com.lanye.dolladdon.base.render;
 
+import com.lanye.dolladdon.api.pose.CompiledDollPose;
+import com.lanye.dolladdon.api.pose.DollPoseLayout;
 import com.lanye.dolladdon.base.entity.BaseDollEntity;
 import com.mojang.blaze3d.vertex.PoseStack;
 import com.mojang.math.Axis;
@@ -19,10 +21,19 @@ import org.slf4j.LoggerFactory;
 public abstract class BaseDollRenderer<T extends BaseDollEntity> extends EntityRenderer<T> {
     private static final Logger LOGGER = LoggerFactory.getLogger(BaseDollRenderer.class);
     protected final PlayerModel<Player> playerModel;
+    // 模型部件表（包括外层部件），在构造时解析一次
+    protected final DollModelParts parts;
+    // 静态姿态的烘焙网格缓存
+    private final BakedDollMeshCache meshCache = new BakedDollMeshCache();
+    // 没有预编译形式的姿态（如动作插值出的姿态）临时编译用的实例（只在渲染线程使用）
+    private final CompiledDollPose scratchPose = new CompiledDollPose();
+    // 动作姿态的采样数组（只在渲染线程使用）
+    private final float[] sampleBuffer = new float[DollPoseLayout.SIZE];
     
     protected BaseDollRenderer(EntityRendererProvider.Context context, PlayerModel<Player> playerModel) {
         super(context);
         this.playerModel = playerModel;
+        this.parts = new DollModelParts(playerModel);
     }
     
     /**
@@ -35,17 +46,9 @@ public abstract class BaseDollRenderer<T extends BaseDollEntity> extends EntityR
     @Override
     public void render(T entity, float entityYaw, float partialTick, 
                       PoseStack poseStack, MultiBufferSource bufferSource, int packedLight) {
-        poseStack.pushPose();
-        
-        // 应用旋转
         float yRot = Mth.lerp(partialTick, entity.yRotO, entity.getYRot());
         float xRot = Mth.lerp(partialTick, entity.xRotO, entity.getXRot());
         
-        poseStack.mulPose(Axis.YP.rotationDegrees(180.0F - yRot));
-        poseStack.mulPose(Axis.XP.rotationDegrees(xRot));
-        
-        float modelScale = 0.5F; 
-        
         // 获取皮肤位置（由子类实现）
         ResourceLocation skinLocation = getSkinLocation(entity);
         
@@ -53,169 +56,65 @@ public abstract class BaseDollRenderer<T extends BaseDollEntity> extends EntityR
         com.lanye.dolladdon.api.pose.DollPose pose = entity.getCurrentPose();
         if (pose == null) {
             // 如果没有姿态，使用默认站立姿态
-            pose = com.lanye.dolladdon.api.pose.SimpleDollPose.createDefaultStandingPose();
-        }
-        
-        // 获取姿态的scale，用于计算Y偏移以保持模型底部对齐碰撞箱底部
-        float[] scale = pose.getScale();
-        // 玩家模型高度约为1.8，应用modelScale(=0.5)后高度为0.9
-        // 应用scale[1]后，模型高度变为0.9 * scale[1]
-        // 变换顺序：translate(yOffset) -> scale(modelScale) -> scale(scale[1])
-        // 由于scale以当前位置为中心，最终模型中心在yOffset，模型底部在 yOffset - 0.45 * scale[1]
-        // 为了保持模型底部对齐碰撞箱底部（y=0），需要：yOffset = 0.45 * scale[1]
-        // 注意：这里0.45 = 1.8 * modelScale / 2 = 0.9 / 2
-        float yOffset = 0.75f * scale[1];
-        
-        poseStack.translate(0.0, yOffset, 0.0);
-        
-        // 应用缩放和翻转
-        poseStack.scale(-modelScale, -modelScale, modelScale);
-        
-        // 应用姿态的位置和大小
-        float[] position = pose.getPosition();
-        if (position[0] != 0.0f || position[1] != 0.0f || position[2] != 0.0f) {
-            poseStack.translate(position[0], -position[1], position[2]);
-        }
-        if (scale[0] != 1.0f || scale[1] != 1.0f || scale[2] != 1.0f) {
-            poseStack.scale(scale[0], scale[1], scale[2]);
+            pose = com.lanye.dolladdon.api.pose.SimpleDollPose.getDefaultStandingPose();
         }
         
-        // 从姿态获取旋转角度
-        float[] headRot = pose.getHeadRotation();
-        float[] hatRot = pose.getHatRotation();
-        float[] bodyRot = pose.getBodyRotation();
-        float[] rightArmRot = pose.getRightArmRotation();
-        float[] leftArmRot = pose.getLeftArmRotation();
-        float[] rightLegRot = pose.getRightLegRotation();
-        float[] leftLegRot = pose.getLeftLegRotation();
-        
-        // 从姿态获取各部件的位置和缩放
-        float[] headPosition = pose.getHeadPosition();
-        float[] headScale = pose.getHeadScale();
-        float[] hatPosition = pose.getHatPosition();
-        float[] hatScale = pose.getHatScale();
-        
-        // hat 应该跟随 head 的缩放，所以使用 headScale 和 hatScale 的组合
-        float[] hatCombinedScale = new float[]{
-            headScale[0] * hatScale[0],
-            headScale[1] * hatScale[1],
-            headScale[2] * hatScale[2]
-        };
-        float[] bodyPosition = pose.getBodyPosition();
-        float[] bodyScale = pose.getBodyScale();
-        float[] rightArmPosition = pose.getRightArmPosition();
-        float[] rightArmScale = pose.getRightArmScale();
-        float[] leftArmPosition = pose.getLeftArmPosition();
-        float[] leftArmScale = pose.getLeftArmScale();
-        float[] rightLegPosition = pose.getRightLegPosition();
-        float[] rightLegScale = pose.getRightLegScale();
-        float[] leftLegPosition = pose.getLeftLegPosition();
-        float[] leftLegScale = pose.getLeftLegScale();
-        
-        float headRotX = headRot[0], headRotY = headRot[1], headRotZ = headRot[2];
-        float hatRotX = hatRot[0], hatRotY = hatRot[1], hatRotZ = hatRot[2];
-        float bodyRotX = bodyRot[0], bodyRotY = bodyRot[1], bodyRotZ = bodyRot[2];
-        float rightArmRotX = rightArmRot[0], rightArmRotY = rightArmRot[1], rightArmRotZ = rightArmRot[2];
-        float leftArmRotX = leftArmRot[0], leftArmRotY = leftArmRot[1], leftArmRotZ = leftArmRot[2];
-        float rightLegRotX = rightLegRot[0], rightLegRotY = rightLegRot[1], rightLegRotZ = rightLegRot[2];
-        float leftLegRotX = leftLegRot[0], leftLegRotY = leftLegRot[1], leftLegRotZ = leftLegRot[2];
-        
-        // 注意：如果身体有旋转，头部、手臂、身体和腿部都在身体的旋转坐标系中渲染
-        // 它们的旋转值都是相对于身体的，所以直接设置即可
-        playerModel.head.setRotation(headRotX, headRotY, headRotZ);
-        playerModel.hat.setRotation(hatRotX, hatRotY, hatRotZ);
-        // 注意：身体的旋转通过 PoseStack 应用，不在这里设置，避免双重旋转
-        playerModel.rightArm.setRotation(rightArmRotX, rightArmRotY, rightArmRotZ);
-        playerModel.leftArm.setRotation(leftArmRotX, leftArmRotY, leftArmRotZ);
-        playerModel.rightLeg.setRotation(rightLegRotX, rightLegRotY, rightLegRotZ);
-        playerModel.leftLeg.setRotation(leftLegRotX, leftLegRotY, leftLegRotZ);
-        
-        // 同时设置外层部分的旋转，使它们跟随基础部分的动作
-        // 注意：身体的旋转通过 PoseStack 应用，所以 jacket 的旋转也设为0
-        setOverlayPartsRotation(0, 0, 0, // 身体旋转通过 PoseStack 应用
-                               leftArmRotX, leftArmRotY, leftArmRotZ,
-                               rightArmRotX, rightArmRotY, rightArmRotZ,
-                               leftLegRotX, leftLegRotY, leftLegRotZ,
-                               rightLegRotX, rightLegRotY, rightLegRotZ);
-        
         // 获取渲染类型
         var cutoutRenderType = net.minecraft.client.renderer.RenderType.entityCutoutNoCull(skinLocation);
         var translucentRenderType = net.minecraft.client.renderer.RenderType.entityTranslucent(skinLocation);
         int overlay = net.minecraft.client.renderer.texture.OverlayTexture.NO_OVERLAY;
         
-        // 第一步：渲染基础层（base layer）
-        var baseVertexConsumer = bufferSource.getBuffer(cutoutRenderType);
-        
-        // 如果有身体旋转，使用 PoseStack 在身体旋转中心应用旋转，然后渲染身体、头部、手臂和腿部
-        if (bodyRotX != 0 || bodyRotY != 0 || bodyRotZ != 0) {
-            poseStack.pushPose();
-            
-            // 移动到身体的旋转中心（身体和头连接处，Y坐标约为0.375）
-            float rotationCenterY = 0.375f;
-            poseStack.translate(0.0, rotationCenterY, 0.0);
-            
-            // 应用身体旋转（只在这里应用，不在 setRotation 中设置）
-            poseStack.mulPose(Axis.XP.rotation(bodyRotX));
-            poseStack.mulPose(Axis.YP.rotation(bodyRotY));
-            poseStack.mulPose(Axis.ZP.rotation(bodyRotZ));
-            
-            // 移回旋转中心
-            poseStack.translate(0.0, -rotationCenterY, 0.0);
-            // 在旋转后的坐标系中渲染身体、头部、手臂和腿部
-            // 注意：头部和手臂的旋转值已经是相对于身体的，所以保持它们的旋转值
-            playerModel.body.setRotation(0, 0, 0); // 确保身体不额外旋转（旋转已通过 PoseStack 应用）
-            // 头部和手臂保持它们自己的相对旋转值（headRotX等已经在上面设置）
-            renderPartWithTransform(poseStack, playerModel.body, baseVertexConsumer, packedLight, overlay, bodyPosition, bodyScale);
-            renderPartWithTransform(poseStack, playerModel.head, baseVertexConsumer, packedLight, overlay, headPosition, headScale);
-            renderPartWithTransform(poseStack, playerModel.rightArm, baseVertexConsumer, packedLight, overlay, rightArmPosition, rightArmScale);
-            renderPartWithTransform(poseStack, playerModel.leftArm, baseVertexConsumer, packedLight, overlay, leftArmPosition, leftArmScale);
-            renderPartWithTransform(poseStack, playerModel.rightLeg, baseVertexConsumer, packedLight, overlay, rightLegPosition, rightLegScale);
-            renderPartWithTransform(poseStack, playerModel.leftLeg, baseVertexConsumer, packedLight, overlay, leftLegPosition, leftLegScale);
-            poseStack.popPose();
-        } else {
-            // 没有身体旋转时，正常渲染
-            playerModel.body.setRotation(0, 0, 0);
-            renderPartWithTransform(poseStack, playerModel.body, baseVertexConsumer, packedLight, overlay, bodyPosition, bodyScale);
-            renderPartWithTransform(poseStack, playerModel.head, baseVertexConsumer, packedLight, overlay, headPosition, headScale);
-            renderPartWithTransform(poseStack, playerModel.rightArm, baseVertexConsumer, packedLight, overlay, rightArmPosition, rightArmScale);
-            renderPartWithTransform(poseStack, playerModel.leftArm, baseVertexConsumer, packedLight, overlay, leftArmPosition, leftArmScale);
-            renderPartWithTransform(poseStack, playerModel.rightLeg, baseVertexConsumer, packedLight, overlay, rightLegPosition, rightLegScale);
-            renderPartWithTransform(poseStack, playerModel.leftLeg, baseVertexConsumer, packedLight, overlay, leftLegPosition, leftLegScale);
+        // 根据与相机的距离选择细节层次
+        // 播放动作时按插值后的时间把姿态写入复用的数组，不分配姿态对象
+        CompiledDollPose compiled = entity.sampleRenderPose(partialTick, sampleBuffer)
+                ? scratchPose.load(sampleBuffer, 0) : compile(pose);
+        float poseScale = Math.max(Math.abs(compiled.get(DollPoseLayout.ROOT, DollPoseLayout.SCALE, 0)),
+                Math.max(Math.abs(compiled.get(DollPoseLayout.ROOT, DollPoseLayout.SCALE, 1)),
+                        Math.abs(compiled.get(DollPoseLayout.ROOT, DollPoseLayout.SCALE, 2))));
+        DollRenderLod lod = DollRenderLod.select(this.entityRenderDispatcher.distanceToSqr(entity), poseScale);
+        
+        // 静态姿态超过截止距离时使用替身图片（正在播放动作的姿态每帧都在变化，不生成快照）
+        int impostorSlot = -1;
+        if (lod == DollRenderLod.PROXY && entity.getCurrentAction() == null
+                && com.lanye.dolladdon.config.DollClientConfig.LOD_IMPOSTORS.get()) {
+            com.lanye.dolladdon.api.pose.DollPose snapshotPose = pose;
+            impostorSlot = DollImpostorAtlas.getOrRequest(skinLocation, pose, playerModel, poseScale,
+                    (snapshotStack, snapshotBuffers) -> renderDollModel(snapshotStack, compile(snapshotPose), snapshotBuffers,
+                            cutoutRenderType, translucentRenderType,
+                            net.minecraft.client.renderer.LightTexture.FULL_BRIGHT, overlay, DollRenderLod.FULL));
+            if (impostorSlot >= 0) {
+                lod = DollRenderLod.IMPOSTOR;
+            }
         }
+        DollRenderStats.record(lod);
         
-        // 第二步：渲染外层（overlay layer）- 使用半透明渲染以正确显示多层皮肤
-        var overlayVertexConsumer = bufferSource.getBuffer(translucentRenderType);
+        poseStack.pushPose();
         
-        // 如果有身体旋转，使用 PoseStack 在身体旋转中心应用旋转，然后渲染所有外层部分
-        if (bodyRotX != 0 || bodyRotY != 0 || bodyRotZ != 0) {
-            poseStack.pushPose();
-            
-            // 移动到身体的旋转中心（身体和头连接处，Y坐标约为0.375）
-            float rotationCenterY = 0.375f;
-            poseStack.translate(0.0, rotationCenterY, 0.0);
-            
-            // 应用身体旋转（只在这里应用，不在 setRotation 中设置）
-            poseStack.mulPose(Axis.XP.rotation(bodyRotX));
-            poseStack.mulPose(Axis.YP.rotation(bodyRotY));
-            poseStack.mulPose(Axis.ZP.rotation(bodyRotZ));
-            
-            // 移回旋转中心
-            poseStack.translate(0.0, -rotationCenterY, 0.0);
-            // 在旋转后的坐标系中 渲染所有外层部分
-            // hat层（头发外层），使用 headScale 和 hatScale 的组合
-            renderPartWithTransform(poseStack, playerModel.hat, overlayVertexConsumer, packedLight, overlay, hatPosition, hatCombinedScale);
-            // 手臂外层（保持它们自己的旋转值）
-            renderArmOverlayParts(poseStack, overlayVertexConsumer, packedLight, overlay, rightArmPosition, rightArmScale, leftArmPosition, leftArmScale);
-            // 身体和腿部外层（jacket 的旋转设为0）
-            setBodyOverlayRotation(0, 0, 0); // 确保身体外层不额外旋转
-            renderBodyLegOverlayParts(poseStack, overlayVertexConsumer, packedLight, overlay, bodyPosition, bodyScale, rightLegPosition, rightLegScale, leftLegPosition, leftLegScale);
-            poseStack.popPose();
+        if (lod == DollRenderLod.IMPOSTOR) {
+            // 替身四边形只绕Y轴转向相机，快照的角度按玩偶相对于相机的朝向选择
+            net.minecraft.world.phys.Vec3 cameraPosition = this.entityRenderDispatcher.camera.getPosition();
+            net.minecraft.world.phys.Vec3 entityPosition = entity.getPosition(partialTick);
+            float cameraAngle = (float) Mth.atan2(cameraPosition.x - entityPosition.x, cameraPosition.z - entityPosition.z);
+            int yaw = DollImpostorAtlas.selectYaw(180.0F - yRot - cameraAngle * Mth.RAD_TO_DEG);
+            poseStack.mulPose(Axis.YP.rotation(cameraAngle));
+            DollImpostorAtlas.renderBillboard(poseStack, bufferSource, impostorSlot, yaw, poseScale, packedLight, overlay);
         } else {
-            // 没有身体旋转时，正常渲染
-            renderPartWithTransform(poseStack, playerModel.hat, overlayVertexConsumer, packedLight, overlay, hatPosition, hatCombinedScale);
-            renderArmOverlayParts(poseStack, overlayVertexConsumer, packedLight, overlay, rightArmPosition, rightArmScale, leftArmPosition, leftArmScale);
-            setBodyOverlayRotation(0, 0, 0);
-            renderBodyLegOverlayParts(poseStack, overlayVertexConsumer, packedLight, overlay, bodyPosition, bodyScale, rightLegPosition, rightLegScale, leftLegPosition, leftLegScale);
+            // 应用旋转
+            poseStack.mulPose(Axis.YP.rotationDegrees(180.0F - yRot));
+            poseStack.mulPose(Axis.XP.rotationDegrees(xRot));
+            
+            if (lod == DollRenderLod.PROXY || (lod != DollRenderLod.HIDDEN && entity.getCurrentAction() != null)) {
+                // 代理模型只有头部和身体，直接渲染即可
+                // 正在播放动作：姿态每帧都在变化，直接渲染模型
+                renderDollModel(poseStack, compiled, bufferSource, cutoutRenderType, translucentRenderType, packedLight, overlay, lod);
+            } else if (lod != DollRenderLod.HIDDEN) {
+                // 静态姿态：回放预先烘焙好的网格，不再逐帧设置旋转和遍历模型部件
+                BakedDollMesh mesh = meshCache.get(pose, playerModel, p -> bakeMesh(p, cutoutRenderType, translucentRenderType));
+                mesh.renderBase(poseStack, bufferSource.getBuffer(cutoutRenderType), packedLight, overlay);
+                if (lod == DollRenderLod.FULL) {
+                    mesh.renderOverlay(poseStack, bufferSource.getBuffer(translucentRenderType), packedLight, overlay);
+                }
+            }
         }
         
         poseStack.popPose();
@@ -224,227 +123,80 @@ public abstract class BaseDollRenderer<T extends BaseDollEntity> extends EntityR
     }
     
     /**
-     * 渲染单个部件，应用位置和缩放
-     * @param poseStack 变换矩阵栈
-     * @param part 要渲染的部件
-     * @param vertexConsumer 顶点消费者
-     * @param packedLight 光照信息
-     * @param overlay 覆盖纹理
-     * @param position 位置偏移 [x, y, z]
-     * @param scale 缩放 [x, y, z]
+     * 烘焙静态姿态的网格
+     * 使用与实时渲染相同的流程，只是把顶点写入记录用的 VertexConsumer
+     * @param pose 姿态
+     * @param cutoutRenderType 基础层渲染类型
+     * @param translucentRenderType 外层渲染类型
+     * @return 烘焙好的网格
      */
-    private void renderPartWithTransform(PoseStack poseStack,
-                                         net.minecraft.client.model.geom.ModelPart part,
-                                         com.mojang.blaze3d.vertex.VertexConsumer vertexConsumer,
-                                         int packedLight,
-                                         int overlay,
-                                         float[] position,
-                                         float[] scale) {
-        poseStack.pushPose();
-        
-        // 应用位置偏移（Y轴取反，正数向上）
-        if (position[0] != 0.0f || position[1] != 0.0f || position[2] != 0.0f) {
-            poseStack.translate(position[0], -position[1], position[2]);
-        }
-        
-        // 应用缩放
-        if (scale[0] != 1.0f || scale[1] != 1.0f || scale[2] != 1.0f) {
-            poseStack.scale(scale[0], scale[1], scale[2]);
-        }
-        
-        // 渲染部件
-        part.render(poseStack, vertexConsumer, packedLight, overlay);
-        
-        poseStack.popPose();
+    private BakedDollMesh bakeMesh(com.lanye.dolladdon.api.pose.DollPose pose,
+                                   net.minecraft.client.renderer.RenderType cutoutRenderType,
+                                   net.minecraft.client.renderer.RenderType translucentRenderType) {
+        BakedDollMesh.Builder builder = new BakedDollMesh.Builder();
+        MultiBufferSource captureSource = renderType -> renderType == cutoutRenderType ? builder.base() : builder.overlay();
+        renderDollModel(new PoseStack(), compile(pose), captureSource, cutoutRenderType, translucentRenderType,
+                net.minecraft.client.renderer.LightTexture.FULL_BRIGHT,
+                net.minecraft.client.renderer.texture.OverlayTexture.NO_OVERLAY,
+                DollRenderLod.FULL);
+        return builder.build();
     }
     
     /**
-     * 设置外层部分的旋转，使它们跟随基础部分的动作
-     * 
-     * @param bodyRotX 身体的X旋转
-     * @param bodyRotY 身体的Y旋转
-     * @param bodyRotZ 身体的Z旋转
-     * @param leftArmRotX 左臂的X旋转
-     * @param leftArmRotY 左臂的Y旋转
-     * @param leftArmRotZ 左臂的Z旋转
-     * @param rightArmRotX 右臂的X旋转
-     * @param rightArmRotY 右臂的Y旋转
-     * @param rightArmRotZ 右臂的Z旋转
-     * @param leftLegRotX 左腿的X旋转
-     * @param leftLegRotY 左腿的Y旋转
-     * @param leftLegRotZ 左腿的Z旋转
-     * @param rightLegRotX 右腿的X旋转
-     * @param rightLegRotY 右腿的Y旋转
-     * @param rightLegRotZ 右腿的Z旋转
+     * 获取姿态预先编译好的形式，没有时临时编译到复用的实例中
+     * @param pose 姿态
+     * @return 编译后的姿态（临时编译的结果在下次调用前有效）
      */
-    private void setOverlayPartsRotation(float bodyRotX, float bodyRotY, float bodyRotZ,
-                                        float leftArmRotX, float leftArmRotY, float leftArmRotZ,
-                                        float rightArmRotX, float rightArmRotY, float rightArmRotZ,
-                                        float leftLegRotX, float leftLegRotY, float leftLegRotZ,
-                                        float rightLegRotX, float rightLegRotY, float rightLegRotZ) {
-        try {
-            // 使用反射访问PlayerModel的外层部分并设置旋转
-            java.lang.reflect.Field leftSleeveField = PlayerModel.class.getDeclaredField("leftSleeve");
-            java.lang.reflect.Field rightSleeveField = PlayerModel.class.getDeclaredField("rightSleeve");
-            java.lang.reflect.Field leftPantsField = PlayerModel.class.getDeclaredField("leftPants");
-            java.lang.reflect.Field rightPantsField = PlayerModel.class.getDeclaredField("rightPants");
-            java.lang.reflect.Field jacketField = PlayerModel.class.getDeclaredField("jacket");
-            
-            leftSleeveField.setAccessible(true);
-            rightSleeveField.setAccessible(true);
-            leftPantsField.setAccessible(true);
-            rightPantsField.setAccessible(true);
-            jacketField.setAccessible(true);
-            
-            // leftSleeve应该跟随leftArm的旋转
-            Object leftSleeve = leftSleeveField.get(playerModel);
-            if (leftSleeve instanceof net.minecraft.client.model.geom.ModelPart) {
-                ((net.minecraft.client.model.geom.ModelPart) leftSleeve).setRotation(leftArmRotX, leftArmRotY, leftArmRotZ);
-            }
-            
-            // rightSleeve应该跟随rightArm的旋转
-            Object rightSleeve = rightSleeveField.get(playerModel);
-            if (rightSleeve instanceof net.minecraft.client.model.geom.ModelPart) {
-                ((net.minecraft.client.model.geom.ModelPart) rightSleeve).setRotation(rightArmRotX, rightArmRotY, rightArmRotZ);
-            }
-            
-            // leftPants应该跟随leftLeg的旋转
-            Object leftPants = leftPantsField.get(playerModel);
-            if (leftPants instanceof net.minecraft.client.model.geom.ModelPart) {
-                ((net.minecraft.client.model.geom.ModelPart) leftPants).setRotation(leftLegRotX, leftLegRotY, leftLegRotZ);
-            }
-            
-            // rightPants应该跟随rightLeg的旋转
-            Object rightPants = rightPantsField.get(playerModel);
-            if (rightPants instanceof net.minecraft.client.model.geom.ModelPart) {
-                ((net.minecraft.client.model.geom.ModelPart) rightPants).setRotation(rightLegRotX, rightLegRotY, rightLegRotZ);
-            }
-            
-            // jacket应该跟随body的旋转（但身体的旋转通过 PoseStack 应用，所以这里设为0）
-            Object jacket = jacketField.get(playerModel);
-            if (jacket instanceof net.minecraft.client.model.geom.ModelPart) {
-                ((net.minecraft.client.model.geom.ModelPart) jacket).setRotation(0, 0, 0);
-            }
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            // 如果模型不支持这些字段，则忽略
-        }
-    }
-    
-    /**
-     * 设置身体外层（jacket）的旋转
-     * 用于在渲染时临时设置，因为身体的旋转通过 PoseStack 应用
-     */
-    private void setBodyOverlayRotation(float bodyRotX, float bodyRotY, float bodyRotZ) {
-        try {
-            java.lang.reflect.Field jacketField = PlayerModel.class.getDeclaredField("jacket");
-            jacketField.setAccessible(true);
-            Object jacket = jacketField.get(playerModel);
-            if (jacket instanceof net.minecraft.client.model.geom.ModelPart) {
-                ((net.minecraft.client.model.geom.ModelPart) jacket).setRotation(bodyRotX, bodyRotY, bodyRotZ);
-            }
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            // 如果模型不支持这些字段，则忽略
-        }
-    }
-    
-    /**
-     * 渲染手臂外层部分（overlay layer）以支持多层皮肤
-     * 
-     * @param poseStack 变换矩阵栈
-     * @param overlayVertexConsumer 外层顶点消费者
-     * @param packedLight 光照信息
-     * @param overlay 覆盖纹理
-     * @param rightArmPosition 右臂位置偏移
-     * @param rightArmScale 右臂缩放
-     * @param leftArmPosition 左臂位置偏移
-     * @param leftArmScale 左臂缩放
-     */
-    private void renderArmOverlayParts(PoseStack poseStack, 
-                                      com.mojang.blaze3d.vertex.VertexConsumer overlayVertexConsumer, 
-                                      int packedLight, 
-                                      int overlay,
-                                      float[] rightArmPosition,
-                                      float[] rightArmScale,
-                                      float[] leftArmPosition,
-                                      float[] leftArmScale) {
-        try {
-            // 使用反射访问PlayerModel的外层部分（如果存在）
-            java.lang.reflect.Field leftSleeveField = PlayerModel.class.getDeclaredField("leftSleeve");
-            java.lang.reflect.Field rightSleeveField = PlayerModel.class.getDeclaredField("rightSleeve");
-            
-            leftSleeveField.setAccessible(true);
-            rightSleeveField.setAccessible(true);
-            
-            // 渲染左袖子外层
-            Object leftSleeve = leftSleeveField.get(playerModel);
-            if (leftSleeve instanceof net.minecraft.client.model.geom.ModelPart) {
-                renderPartWithTransform(poseStack, (net.minecraft.client.model.geom.ModelPart) leftSleeve, overlayVertexConsumer, packedLight, overlay, leftArmPosition, leftArmScale);
-            }
-            
-            // 渲染右袖子外层
-            Object rightSleeve = rightSleeveField.get(playerModel);
-            if (rightSleeve instanceof net.minecraft.client.model.geom.ModelPart) {
-                renderPartWithTransform(poseStack, (net.minecraft.client.model.geom.ModelPart) rightSleeve, overlayVertexConsumer, packedLight, overlay, rightArmPosition, rightArmScale);
-            }
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            // 如果模型不支持这些字段，则忽略
-        }
+    private CompiledDollPose compile(com.lanye.dolladdon.api.pose.DollPose pose) {
+        CompiledDollPose compiled = pose.getCompiledPose();
+        return compiled != null ? compiled : scratchPose.load(pose);
     }
     
     /**
-     * 渲染身体和腿部外层部分（overlay layer）以支持多层皮肤
+     * 按姿态渲染玩家模型（基础层和外层）
+     * poseStack 应位于实体旋转之后，模型根部的变换（偏移、缩放、姿态位置）在这里应用
      * 
      * @param poseStack 变换矩阵栈
-     * @param overlayVertexConsumer 外层顶点消费者
+     * @param compiled 编译后的姿态
+     * @param bufferSource 缓冲区源
+     * @param cutoutRenderType 基础层渲染类型
+     * @param translucentRenderType 外层渲染类型
      * @param packedLight 光照信息
      * @param overlay 覆盖纹理
-     * @param bodyPosition 身体位置偏移
-     * @param bodyScale 身体缩放
-     * @param rightLegPosition 右腿位置偏移
-     * @param rightLegScale 右腿缩放
-     * @param leftLegPosition 左腿位置偏移
-     * @param leftLegScale 左腿缩放
+     * @param lod 细节层次
      */
-    private void renderBodyLegOverlayParts(PoseStack poseStack, 
-                                          com.mojang.blaze3d.vertex.VertexConsumer overlayVertexConsumer, 
-                                          int packedLight, 
-                                          int overlay,
-                                          float[] bodyPosition,
-                                          float[] bodyScale,
-                                          float[] rightLegPosition,
-                                          float[] rightLegScale,
-                                          float[] leftLegPosition,
-                                          float[] leftLegScale) {
-        try {
-            // 使用反射访问PlayerModel的外层部分（如果存在）
-            java.lang.reflect.Field leftPantsField = PlayerModel.class.getDeclaredField("leftPants");
-            java.lang.reflect.Field rightPantsField = PlayerModel.class.getDeclaredField("rightPants");
-            java.lang.reflect.Field jacketField = PlayerModel.class.getDeclaredField("jacket");
-            
-            leftPantsField.setAccessible(true);
-            rightPantsField.setAccessible(true);
-            jacketField.setAccessible(true);
-            
-            // 渲染夹克外层（身体外层）
-            Object jacket = jacketField.get(playerModel);
-            if (jacket instanceof net.minecraft.client.model.geom.ModelPart) {
-                renderPartWithTransform(poseStack, (net.minecraft.client.model.geom.ModelPart) jacket, overlayVertexConsumer, packedLight, overlay, bodyPosition, bodyScale);
-            }
-            
-            // 渲染左腿外层
-            Object leftPants = leftPantsField.get(playerModel);
-            if (leftPants instanceof net.minecraft.client.model.geom.ModelPart) {
-                renderPartWithTransform(poseStack, (net.minecraft.client.model.geom.ModelPart) leftPants, overlayVertexConsumer, packedLight, overlay, leftLegPosition, leftLegScale);
-            }
-            
-            // 渲染右腿外层
-            Object rightPants = rightPantsField.get(playerModel);
-            if (rightPants instanceof net.minecraft.client.model.geom.ModelPart) {
-                renderPartWithTransform(poseStack, (net.minecraft.client.model.geom.ModelPart) rightPants, overlayVertexConsumer, packedLight, overlay, rightLegPosition, rightLegScale);
-            }
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            // 如果模型不支持这些字段，则忽略
-        }
+    private void renderDollModel(PoseStack poseStack,
+                                 CompiledDollPose compiled,
+                                 MultiBufferSource bufferSource,
+                                 net.minecraft.client.renderer.RenderType cutoutRenderType,
+                                 net.minecraft.client.renderer.RenderType translucentRenderType,
+                                 int packedLight,
+                                 int overlay,
+                                 DollRenderLod lod) {
+        poseStack.pushPose();
+        
+        float modelScale = 0.5F; 
+        
+        // 获取姿态的scale，用于计算Y偏移以保持模型底部对齐碰撞箱底部
+        float scaleY = compiled.get(DollPoseLayout.ROOT, DollPoseLayout.SCALE, 1);
+        // 玩家模型高度约为1.8，应用modelScale(=0.5)后高度为0.9
+        // 应用scale[1]后，模型高度变为0.9 * scale[1]
+        // 变换顺序：translate(yOffset) -> scale(modelScale) -> scale(scale[1])
+        // 由于scale以当前位置为中心，最终模型中心在yOffset，模型底部在 yOffset - 0.45 * scale[1]
+        // 为了保持模型底部对齐碰撞箱底部（y=0），需要：yOffset = 0.45 * scale[1]
+        // 注意：这里0.45 = 1.8 * modelScale / 2 = 0.9 / 2
+        float yOffset = 0.75f * scaleY;
+        
+        poseStack.translate(0.0, yOffset, 0.0);
+        
+        // 应用缩放和翻转
+        poseStack.scale(-modelScale, -modelScale, modelScale);
+        
+        // 应用姿态的位置、大小和各部件的变换，然后渲染基础层和外层
+        DollRenderHelper.renderPosedModel(parts, poseStack, compiled, bufferSource,
+                cutoutRenderType, translucentRenderType, packedLight, overlay, lod);
+        
+        poseStack.popPose();
     }
     
     @Override
@@ -0,0 +1,96 @@
+package com.lanye.dolladdon.base.render;
+
+import com.lanye.dolladdon.PlayerDollAddon;
+import com.lanye.dolladdon.api.pose.DollPose;
+import com.lanye.dolladdon.config.DollClientConfig;
+import com.mojang.blaze3d.platform.Lighting;
+import com.mojang.blaze3d.systems.RenderSystem;
+import com.mojang.blaze3d.vertex.PoseStack;
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import com.mojang.blaze3d.vertex.VertexSorting;
+import net.minecraft.client.model.PlayerModel;
+import net.minecraft.client.renderer.MultiBufferSource;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.resources.ResourceLocation;
+import org.joml.Matrix4f;
+
+import java.util.function.BiConsumer;
+
+/**
+ * 玩偶物品的 GUI 图标缓存
+ * 按（皮肤，姿态，模型）把 GUI 中的玩偶模型预先渲染成图标，物品栏格子中只需绘制一个四边形
+ * 快照的生成和淘汰见 {@link DollSnapshotAtlas}
+ */
+public class DollIconCache {
+    private static final DollSnapshotAtlas ATLAS = new DollSnapshotAtlas(
+            ResourceLocation.fromNamespaceAndPath(PlayerDollAddon.MODID, "dynamic/doll_icons"),
+            "icons", 2048, 64, 64, 1);
+
+    private record Key(ResourceLocation skin, DollPose pose, PlayerModel<?> model) {
+        @Override
+        public boolean equals(Object obj) {
+            // 姿态和模型按实例比较
+            return obj instanceof Key other && other.skin.equals(skin) && other.pose == pose && other.model == model;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * skin.hashCode() + System.identityHashCode(pose)) + System.identityHashCode(model);
+        }
+    }
+
+    /**
+     * 查找图标，不存在时加入生成队列
+     * @param skin 皮肤
+     * @param pose 物品显示的姿态
+     * @param model 渲染使用的玩家模型
+     * @param renderer 渲染 GUI 中玩偶模型的回调，坐标系与 renderByItem 中的物品空间（[0, 1] 的方块）相同
+     * @return 图标槽位，尚未生成时返回 -1
+     */
+    public static int getOrRequest(ResourceLocation skin, DollPose pose, PlayerModel<?> model,
+                                   BiConsumer<PoseStack, MultiBufferSource> renderer) {
+        return ATLAS.getOrRequest(new Key(skin, pose, model), (cell, poseStack, bufferSource) -> {
+            RenderSystem.setProjectionMatrix(new Matrix4f().setOrtho(0.0F, 1.0F, 0.0F, 1.0F, -10.0F, 10.0F),
+                    VertexSorting.ORTHOGRAPHIC_Z);
+            // 与物品栏中立体物品的光照一致
+            Lighting.setupFor3DItems();
+            renderer.accept(poseStack, bufferSource);
+        });
+    }
+
+    /**
+     * 在物品空间中绘制图标（覆盖整个 [0, 1] 的格子）
+     * @param poseStack 变换矩阵栈（renderByItem 传入的物品空间）
+     * @param bufferSource 缓冲区源
+     * @param slot 图标槽位
+     * @param packedLight 光照信息
+     */
+    public static void renderIcon(PoseStack poseStack, MultiBufferSource bufferSource, int slot, int packedLight) {
+        float u0 = ATLAS.getU0(slot, 0);
+        float u1 = ATLAS.getU1(slot, 0);
+        float v0 = ATLAS.getV0(slot);
+        float v1 = ATLAS.getV1(slot);
+
+        // 图标已包含光照，使用不受光照方向影响的渲染类型
+        PoseStack.Pose pose = poseStack.last();
+        VertexConsumer consumer = bufferSource.getBuffer(RenderType.text(ATLAS.getLocation()));
+        consumer.addVertex(pose, 0.0F, 0.0F, 0.5F).setColor(-1).setUv(u0, v0).setLight(packedLight);
+        consumer.addVertex(pose, 1.0F, 0.0F, 0.5F).setColor(-1).setUv(u1, v0).setLight(packedLight);
+        consumer.addVertex(pose, 1.0F, 1.0F, 0.5F).setColor(-1).setUv(u1, v1).setLight(packedLight);
+        consumer.addVertex(pose, 0.0F, 1.0F, 0.5F).setColor(-1).setUv(u0, v1).setLight(packedLight);
+    }
+
+    /**
+     * 生成队列中的图标，在每帧开始（世界渲染之前）调用
+     */
+    public static void processPending() {
+        ATLAS.processPending(DollClientConfig.GUI_ICONS_PER_FRAME.get());
+    }
+
+    /**
+     * 清除所有图标
+     */
+    public static void clear() {
+        ATLAS.clear();
+    }
+}
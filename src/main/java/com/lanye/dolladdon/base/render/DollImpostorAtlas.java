@@ -0,0 +1,137 @@
+package com.lanye.dolladdon.base.render;
+
+import com.lanye.dolladdon.PlayerDollAddon;
+import com.lanye.dolladdon.api.pose.DollPose;
+import com.lanye.dolladdon.config.DollClientConfig;
+import com.mojang.blaze3d.platform.Lighting;
+import com.mojang.blaze3d.systems.RenderSystem;
+import com.mojang.blaze3d.vertex.PoseStack;
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import com.mojang.blaze3d.vertex.VertexSorting;
+import com.mojang.math.Axis;
+import net.minecraft.client.model.PlayerModel;
+import net.minecraft.client.renderer.MultiBufferSource;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.resources.ResourceLocation;
+import org.joml.Matrix4f;
+
+import java.util.function.BiConsumer;
+
+/**
+ * 远处玩偶的替身（impostor）图集
+ * 为每个（皮肤，姿态，模型）组合从若干个水平角度预先渲染快照，远处的玩偶只需绘制一个朝向相机的四边形
+ * 快照的生成和淘汰见 {@link DollSnapshotAtlas}
+ */
+public class DollImpostorAtlas {
+    // 每个条目的水平角度数量
+    public static final int YAW_STEPS = 8;
+    private static final float YAW_STEP_DEGREES = 360.0F / YAW_STEPS;
+
+    // 快照覆盖的模型空间范围（以方块为单位，未乘姿态缩放），宽:高 = 1:2，与格子尺寸一致
+    private static final float FRAME_HALF_WIDTH = 0.375F;
+    private static final float FRAME_BOTTOM = -0.25F;
+    private static final float FRAME_TOP = 1.25F;
+
+    private static final DollSnapshotAtlas ATLAS = new DollSnapshotAtlas(
+            ResourceLocation.fromNamespaceAndPath(PlayerDollAddon.MODID, "dynamic/doll_impostors"),
+            "impostors", 2048, 32, 64, YAW_STEPS);
+
+    private record Key(ResourceLocation skin, DollPose pose, PlayerModel<?> model) {
+        @Override
+        public boolean equals(Object obj) {
+            // 姿态和模型按实例比较
+            return obj instanceof Key other && other.skin.equals(skin) && other.pose == pose && other.model == model;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * skin.hashCode() + System.identityHashCode(pose)) + System.identityHashCode(model);
+        }
+    }
+
+    /**
+     * 查找替身快照，不存在时加入生成队列
+     * @param skin 皮肤
+     * @param pose 姿态
+     * @param model 渲染使用的玩家模型
+     * @param scale 姿态缩放（取各轴绝对值的最大值）
+     * @param renderer 在快照的 PoseStack 中渲染玩偶模型的回调，模型底部应位于原点
+     * @return 快照所在的条目槽位，快照尚未生成时返回 -1
+     */
+    public static int getOrRequest(ResourceLocation skin, DollPose pose, PlayerModel<?> model, float scale,
+                                   BiConsumer<PoseStack, MultiBufferSource> renderer) {
+        return ATLAS.getOrRequest(new Key(skin, pose, model), (cell, poseStack, bufferSource) -> {
+            RenderSystem.setProjectionMatrix(new Matrix4f().setOrtho(
+                    -FRAME_HALF_WIDTH * scale, FRAME_HALF_WIDTH * scale,
+                    FRAME_BOTTOM * scale, FRAME_TOP * scale,
+                    -10.0F * scale, 10.0F * scale), VertexSorting.ORTHOGRAPHIC_Z);
+            Lighting.setupForEntityInInventory();
+            poseStack.mulPose(Axis.YP.rotationDegrees(cell * YAW_STEP_DEGREES));
+            renderer.accept(poseStack, bufferSource);
+        });
+    }
+
+    /**
+     * 根据相机方向选择快照的水平角度
+     * @param modelYawDegrees 玩偶相对于相机的朝向（与渲染时应用的 Y 轴旋转相同的角度）
+     * @return 角度索引
+     */
+    public static int selectYaw(float modelYawDegrees) {
+        return Math.floorMod(Math.round(modelYawDegrees / YAW_STEP_DEGREES), YAW_STEPS);
+    }
+
+    /**
+     * 绘制朝向相机的替身四边形
+     * poseStack 应已旋转到四边形的正面（+Z）朝向相机
+     * @param poseStack 变换矩阵栈
+     * @param bufferSource 缓冲区源
+     * @param slot 条目槽位
+     * @param yaw 角度索引
+     * @param scale 姿态缩放
+     * @param packedLight 光照信息
+     * @param overlay 覆盖纹理
+     */
+    public static void renderBillboard(PoseStack poseStack, MultiBufferSource bufferSource, int slot, int yaw, float scale,
+                                       int packedLight, int overlay) {
+        float u0 = ATLAS.getU0(slot, yaw);
+        float u1 = ATLAS.getU1(slot, yaw);
+        float v0 = ATLAS.getV0(slot);
+        float v1 = ATLAS.getV1(slot);
+
+        float x0 = -FRAME_HALF_WIDTH * scale;
+        float x1 = FRAME_HALF_WIDTH * scale;
+        float y0 = FRAME_BOTTOM * scale;
+        float y1 = FRAME_TOP * scale;
+
+        PoseStack.Pose pose = poseStack.last();
+        VertexConsumer consumer = bufferSource.getBuffer(RenderType.entityCutoutNoCull(ATLAS.getLocation()));
+        vertex(consumer, pose, x0, y0, u0, v0, packedLight, overlay);
+        vertex(consumer, pose, x1, y0, u1, v0, packedLight, overlay);
+        vertex(consumer, pose, x1, y1, u1, v1, packedLight, overlay);
+        vertex(consumer, pose, x0, y1, u0, v1, packedLight, overlay);
+    }
+
+    private static void vertex(VertexConsumer consumer, PoseStack.Pose pose, float x, float y, float u, float v,
+                               int packedLight, int overlay) {
+        consumer.addVertex(pose, x, y, 0.0F)
+                .setColor(-1)
+                .setUv(u, v)
+                .setOverlay(overlay)
+                .setLight(packedLight)
+                .setNormal(pose, 0.0F, 0.0F, 1.0F);
+    }
+
+    /**
+     * 生成队列中的快照，在每帧开始（世界渲染之前）调用
+     */
+    public static void processPending() {
+        ATLAS.processPending(DollClientConfig.LOD_IMPOSTOR_SNAPSHOTS_PER_FRAME.get());
+    }
+
+    /**
+     * 清除所有快照
+     */
+    public static void clear() {
+        ATLAS.clear();
+    }
+}
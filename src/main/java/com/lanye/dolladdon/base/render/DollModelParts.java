@@ -0,0 +1,45 @@
+package com.lanye.dolladdon.base.render;
+
+import net.minecraft.client.model.PlayerModel;
+import net.minecraft.client.model.geom.ModelPart;
+
+/**
+ * 玩家模型部件表
+ * 在创建渲染器时对每个 PlayerModel 解析一次所有部件（包括外层 sleeve/pants/jacket），
+ * 渲染时直接访问字段，不再每帧通过反射查找
+ */
+public final class DollModelParts {
+    public final PlayerModel<?> model;
+
+    // 基础层
+    public final ModelPart head;
+    public final ModelPart body;
+    public final ModelPart rightArm;
+    public final ModelPart leftArm;
+    public final ModelPart rightLeg;
+    public final ModelPart leftLeg;
+
+    // 外层（多层皮肤）
+    public final ModelPart hat;
+    public final ModelPart jacket;
+    public final ModelPart rightSleeve;
+    public final ModelPart leftSleeve;
+    public final ModelPart rightPants;
+    public final ModelPart leftPants;
+
+    public DollModelParts(PlayerModel<?> model) {
+        this.model = model;
+        this.head = model.head;
+        this.body = model.body;
+        this.rightArm = model.rightArm;
+        this.leftArm = model.leftArm;
+        this.rightLeg = model.rightLeg;
+        this.leftLeg = model.leftLeg;
+        this.hat = model.hat;
+        this.jacket = model.jacket;
+        this.rightSleeve = model.rightSleeve;
+        this.leftSleeve = model.leftSleeve;
+        this.rightPants = model.rightPants;
+        this.leftPants = model.leftPants;
+    }
+}
@@ -1,197 +1,133 @@
 package com.lanye.dolladdon.base.render;
 
+import com.lanye.dolladdon.api.pose.CompiledDollPose;
+import com.lanye.dolladdon.api.pose.DollPoseLayout;
 import com.mojang.blaze3d.vertex.PoseStack;
 import com.mojang.blaze3d.vertex.VertexConsumer;
-import net.minecraft.client.model.PlayerModel;
+import net.minecraft.client.model.geom.ModelPart;
 import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.client.renderer.RenderType;
-import net.minecraft.resources.ResourceLocation;
 
 /**
  * 玩偶渲染辅助工具类
  * 提供渲染玩家模型的共同功能
  */
 public class DollRenderHelper {
-    
     /**
-     * 渲染玩家模型（包括基础层和外层）
+     * 按姿态渲染玩家模型（基础层和外层）
+     * 依次应用姿态的整体变换、各部件的旋转，然后乘上各部件预先编译好的矩阵渲染各部件
      * 
-     * @param playerModel 玩家模型
+     * @param parts 玩家模型部件表
      * @param poseStack 变换矩阵栈
+     * @param pose 编译后的姿态
      * @param bufferSource 缓冲区源
-     * @param skinLocation 皮肤资源位置
+     * @param cutoutRenderType 基础层渲染类型
+     * @param translucentRenderType 外层渲染类型
      * @param packedLight 光照信息
-     * @param packedOverlay 覆盖纹理
+     * @param overlay 覆盖纹理
+     * @param lod 细节层次：BASE_ONLY 跳过外层，PROXY 只渲染头部和身体的基础层
      */
-    public static void renderPlayerModel(PlayerModel<?> playerModel,
+    public static void renderPosedModel(DollModelParts parts,
                                         PoseStack poseStack,
+                                        CompiledDollPose pose,
                                         MultiBufferSource bufferSource,
-                                        ResourceLocation skinLocation,
+                                        RenderType cutoutRenderType,
+                                        RenderType translucentRenderType,
                                         int packedLight,
-                                        int packedOverlay) {
-        // 获取渲染类型
-        RenderType cutoutRenderType = RenderType.entityCutoutNoCull(skinLocation);
-        RenderType translucentRenderType = RenderType.entityTranslucent(skinLocation);
+                                        int overlay,
+                                        DollRenderLod lod) {
+        if (lod == DollRenderLod.HIDDEN) {
+            return;
+        }
+        
+        // 应用姿态的位置和大小
+        if (!pose.isIdentity(DollPoseLayout.ROOT)) {
+            poseStack.mulPose(pose.getMatrix(DollPoseLayout.ROOT));
+        }
         
-        // 第一步：渲染基础层（base layer）- 所有基础部分
+        // 注意：如果身体有旋转，头部、手臂、身体和腿部都在身体的旋转坐标系中渲染
+        // 它们的旋转值都是相对于身体的，所以直接设置即可
+        setRotation(parts.head, pose, DollPoseLayout.HEAD);
+        setRotation(parts.hat, pose, DollPoseLayout.HAT);
+        // 注意：身体的旋转已经编译进各部件的矩阵，不在这里设置，避免双重旋转
+        parts.body.setRotation(0, 0, 0);
+        setRotation(parts.rightArm, pose, DollPoseLayout.RIGHT_ARM);
+        setRotation(parts.leftArm, pose, DollPoseLayout.LEFT_ARM);
+        setRotation(parts.rightLeg, pose, DollPoseLayout.RIGHT_LEG);
+        setRotation(parts.leftLeg, pose, DollPoseLayout.LEFT_LEG);
+        
+        // 同时设置外层部分的旋转，使它们跟随基础部分的动作
+        // 注意：身体的旋转已经编译进矩阵，所以 jacket 的旋转设为0
+        setRotation(parts.rightSleeve, pose, DollPoseLayout.RIGHT_ARM);
+        setRotation(parts.leftSleeve, pose, DollPoseLayout.LEFT_ARM);
+        setRotation(parts.rightPants, pose, DollPoseLayout.RIGHT_LEG);
+        setRotation(parts.leftPants, pose, DollPoseLayout.LEFT_LEG);
+        parts.jacket.setRotation(0, 0, 0);
+        
+        // 第一步：渲染基础层（base layer）
         VertexConsumer baseVertexConsumer = bufferSource.getBuffer(cutoutRenderType);
+        renderPart(poseStack, parts.body, baseVertexConsumer, packedLight, overlay, pose, DollPoseLayout.BODY);
+        renderPart(poseStack, parts.head, baseVertexConsumer, packedLight, overlay, pose, DollPoseLayout.HEAD);
+        if (lod == DollRenderLod.PROXY) {
+            // 代理模型只有头部和身体
+            return;
+        }
+        renderPart(poseStack, parts.rightArm, baseVertexConsumer, packedLight, overlay, pose, DollPoseLayout.RIGHT_ARM);
+        renderPart(poseStack, parts.leftArm, baseVertexConsumer, packedLight, overlay, pose, DollPoseLayout.LEFT_ARM);
+        renderPart(poseStack, parts.rightLeg, baseVertexConsumer, packedLight, overlay, pose, DollPoseLayout.RIGHT_LEG);
+        renderPart(poseStack, parts.leftLeg, baseVertexConsumer, packedLight, overlay, pose, DollPoseLayout.LEFT_LEG);
         
-        // 渲染基础身体部分（不包括外层）
-        playerModel.head.render(poseStack, baseVertexConsumer, packedLight, packedOverlay);
-        playerModel.body.render(poseStack, baseVertexConsumer, packedLight, packedOverlay);
-        playerModel.rightArm.render(poseStack, baseVertexConsumer, packedLight, packedOverlay);
-        playerModel.leftArm.render(poseStack, baseVertexConsumer, packedLight, packedOverlay);
-        playerModel.rightLeg.render(poseStack, baseVertexConsumer, packedLight, packedOverlay);
-        playerModel.leftLeg.render(poseStack, baseVertexConsumer, packedLight, packedOverlay);
+        if (lod != DollRenderLod.FULL) {
+            return;
+        }
         
         // 第二步：渲染外层（overlay layer）- 使用半透明渲染以正确显示多层皮肤
+        // 注意：获取新的缓冲区可能会结束上一个批次，所以必须在基础层全部渲染完之后再获取
         VertexConsumer overlayVertexConsumer = bufferSource.getBuffer(translucentRenderType);
-        
-        // 渲染hat层（头发外层）
-        playerModel.hat.render(poseStack, overlayVertexConsumer, packedLight, packedOverlay);
-        
-        // 渲染外层部分（overlay layer）- 用于多层皮肤
-        renderOverlayParts(playerModel, poseStack, overlayVertexConsumer, packedLight, packedOverlay);
+        // hat层（头发外层），矩阵中已合并 headScale 和 hatScale
+        renderPart(poseStack, parts.hat, overlayVertexConsumer, packedLight, overlay, pose, DollPoseLayout.HAT);
+        // 手臂外层
+        renderPart(poseStack, parts.leftSleeve, overlayVertexConsumer, packedLight, overlay, pose, DollPoseLayout.LEFT_ARM);
+        renderPart(poseStack, parts.rightSleeve, overlayVertexConsumer, packedLight, overlay, pose, DollPoseLayout.RIGHT_ARM);
+        // 身体和腿部外层
+        renderPart(poseStack, parts.jacket, overlayVertexConsumer, packedLight, overlay, pose, DollPoseLayout.BODY);
+        renderPart(poseStack, parts.leftPants, overlayVertexConsumer, packedLight, overlay, pose, DollPoseLayout.LEFT_LEG);
+        renderPart(poseStack, parts.rightPants, overlayVertexConsumer, packedLight, overlay, pose, DollPoseLayout.RIGHT_LEG);
     }
     
     /**
-     * 设置外层部分的旋转，使它们跟随基础部分的动作
-     * 
-     * @param playerModel 玩家模型
-     * @param bodyRotX 身体的X旋转
-     * @param bodyRotY 身体的Y旋转
-     * @param bodyRotZ 身体的Z旋转
-     * @param leftArmRotX 左臂的X旋转
-     * @param leftArmRotY 左臂的Y旋转
-     * @param leftArmRotZ 左臂的Z旋转
-     * @param rightArmRotX 右臂的X旋转
-     * @param rightArmRotY 右臂的Y旋转
-     * @param rightArmRotZ 右臂的Z旋转
-     * @param leftLegRotX 左腿的X旋转
-     * @param leftLegRotY 左腿的Y旋转
-     * @param leftLegRotZ 左腿的Z旋转
-     * @param rightLegRotX 右腿的X旋转
-     * @param rightLegRotY 右腿的Y旋转
-     * @param rightLegRotZ 右腿的Z旋转
+     * 把姿态中部件的旋转设置到模型部件上
      */
-    public static void setOverlayPartsRotation(PlayerModel<?> playerModel,
-                                              float bodyRotX, float bodyRotY, float bodyRotZ,
-                                              float leftArmRotX, float leftArmRotY, float leftArmRotZ,
-                                              float rightArmRotX, float rightArmRotY, float rightArmRotZ,
-                                              float leftLegRotX, float leftLegRotY, float leftLegRotZ,
-                                              float rightLegRotX, float rightLegRotY, float rightLegRotZ) {
-        try {
-            // 使用反射访问PlayerModel的外层部分并设置旋转
-            java.lang.reflect.Field leftSleeveField = PlayerModel.class.getDeclaredField("leftSleeve");
-            java.lang.reflect.Field rightSleeveField = PlayerModel.class.getDeclaredField("rightSleeve");
-            java.lang.reflect.Field leftPantsField = PlayerModel.class.getDeclaredField("leftPants");
-            java.lang.reflect.Field rightPantsField = PlayerModel.class.getDeclaredField("rightPants");
-            java.lang.reflect.Field jacketField = PlayerModel.class.getDeclaredField("jacket");
-            
-            leftSleeveField.setAccessible(true);
-            rightSleeveField.setAccessible(true);
-            leftPantsField.setAccessible(true);
-            rightPantsField.setAccessible(true);
-            jacketField.setAccessible(true);
-            
-            // leftSleeve应该跟随leftArm的旋转
-            Object leftSleeve = leftSleeveField.get(playerModel);
-            if (leftSleeve instanceof net.minecraft.client.model.geom.ModelPart) {
-                ((net.minecraft.client.model.geom.ModelPart) leftSleeve).setRotation(leftArmRotX, leftArmRotY, leftArmRotZ);
-            }
-            
-            // rightSleeve应该跟随rightArm的旋转
-            Object rightSleeve = rightSleeveField.get(playerModel);
-            if (rightSleeve instanceof net.minecraft.client.model.geom.ModelPart) {
-                ((net.minecraft.client.model.geom.ModelPart) rightSleeve).setRotation(rightArmRotX, rightArmRotY, rightArmRotZ);
-            }
-            
-            // leftPants应该跟随leftLeg的旋转
-            Object leftPants = leftPantsField.get(playerModel);
-            if (leftPants instanceof net.minecraft.client.model.geom.ModelPart) {
-                ((net.minecraft.client.model.geom.ModelPart) leftPants).setRotation(leftLegRotX, leftLegRotY, leftLegRotZ);
-            }
-            
-            // rightPants应该跟随rightLeg的旋转
-            Object rightPants = rightPantsField.get(playerModel);
-            if (rightPants instanceof net.minecraft.client.model.geom.ModelPart) {
-                ((net.minecraft.client.model.geom.ModelPart) rightPants).setRotation(rightLegRotX, rightLegRotY, rightLegRotZ);
-            }
-            
-            // jacket应该跟随body的旋转
-            Object jacket = jacketField.get(playerModel);
-            if (jacket instanceof net.minecraft.client.model.geom.ModelPart) {
-                ((net.minecraft.client.model.geom.ModelPart) jacket).setRotation(bodyRotX, bodyRotY, bodyRotZ);
-            }
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            // 如果模型不支持这些字段，则忽略
-        }
+    private static void setRotation(ModelPart modelPart, CompiledDollPose pose, int part) {
+        modelPart.setRotation(pose.get(part, DollPoseLayout.ROTATION, 0),
+                pose.get(part, DollPoseLayout.ROTATION, 1),
+                pose.get(part, DollPoseLayout.ROTATION, 2));
     }
     
     /**
-     * 渲染外层部分（overlay layer）以支持多层皮肤
-     * 这些外层部分需要使用半透明渲染类型来正确显示叠加层
-     * 
-     * 注意：外层部分已经通过setOverlayPartsRotation方法设置了与基础部分相同的旋转，
-     * 所以它们现在应该能够跟随基础部分的动作。
-     * 
-     * @param playerModel 玩家模型
+     * 渲染单个部件，乘上该部件编译好的变换矩阵（单位矩阵时直接渲染）
      * @param poseStack 变换矩阵栈
-     * @param overlayVertexConsumer 外层顶点消费者
+     * @param modelPart 要渲染的部件
+     * @param vertexConsumer 顶点消费者
      * @param packedLight 光照信息
-     * @param packedOverlay 覆盖纹理
+     * @param overlay 覆盖纹理
+     * @param pose 编译后的姿态
+     * @param part 部件在姿态中的索引，见 {@link DollPoseLayout}
      */
-    public static void renderOverlayParts(PlayerModel<?> playerModel,
-                                         PoseStack poseStack,
-                                         VertexConsumer overlayVertexConsumer,
-                                         int packedLight,
-                                         int packedOverlay) {
-        try {
-            // 使用反射访问PlayerModel的外层部分（如果存在）
-            java.lang.reflect.Field leftSleeveField = PlayerModel.class.getDeclaredField("leftSleeve");
-            java.lang.reflect.Field rightSleeveField = PlayerModel.class.getDeclaredField("rightSleeve");
-            java.lang.reflect.Field leftPantsField = PlayerModel.class.getDeclaredField("leftPants");
-            java.lang.reflect.Field rightPantsField = PlayerModel.class.getDeclaredField("rightPants");
-            java.lang.reflect.Field jacketField = PlayerModel.class.getDeclaredField("jacket");
-            
-            leftSleeveField.setAccessible(true);
-            rightSleeveField.setAccessible(true);
-            leftPantsField.setAccessible(true);
-            rightPantsField.setAccessible(true);
-            jacketField.setAccessible(true);
-            
-            // 渲染左袖子外层
-            Object leftSleeve = leftSleeveField.get(playerModel);
-            if (leftSleeve instanceof net.minecraft.client.model.geom.ModelPart) {
-                ((net.minecraft.client.model.geom.ModelPart) leftSleeve).render(poseStack, overlayVertexConsumer, packedLight, packedOverlay);
-            }
-            
-            // 渲染右袖子外层
-            Object rightSleeve = rightSleeveField.get(playerModel);
-            if (rightSleeve instanceof net.minecraft.client.model.geom.ModelPart) {
-                ((net.minecraft.client.model.geom.ModelPart) rightSleeve).render(poseStack, overlayVertexConsumer, packedLight, packedOverlay);
-            }
-            
-            // 渲染左腿外层
-            Object leftPants = leftPantsField.get(playerModel);
-            if (leftPants instanceof net.minecraft.client.model.geom.ModelPart) {
-                ((net.minecraft.client.model.geom.ModelPart) leftPants).render(poseStack, overlayVertexConsumer, packedLight, packedOverlay);
-            }
-            
-            // 渲染右腿外层
-            Object rightPants = rightPantsField.get(playerModel);
-            if (rightPants instanceof net.minecraft.client.model.geom.ModelPart) {
-                ((net.minecraft.client.model.geom.ModelPart) rightPants).render(poseStack, overlayVertexConsumer, packedLight, packedOverlay);
-            }
-            
-            // 渲染夹克外层（身体外层）
-            Object jacket = jacketField.get(playerModel);
-            if (jacket instanceof net.minecraft.client.model.geom.ModelPart) {
-                ((net.minecraft.client.model.geom.ModelPart) jacket).render(poseStack, overlayVertexConsumer, packedLight, packedOverlay);
-            }
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            // 如果模型不支持这些字段，则忽略
+    private static void renderPart(PoseStack poseStack,
+                                   ModelPart modelPart,
+                                   VertexConsumer vertexConsumer,
+                                   int packedLight,
+                                   int overlay,
+                                   CompiledDollPose pose,
+                                   int part) {
+        if (!pose.hasPartTransforms() || pose.isIdentity(part)) {
+            modelPart.render(poseStack, vertexConsumer, packedLight, overlay);
+            return;
         }
+        poseStack.pushPose();
+        poseStack.mulPose(pose.getMatrix(part));
+        modelPart.render(poseStack, vertexConsumer, packedLight, overlay);
+        poseStack.popPose();
     }
 }
-
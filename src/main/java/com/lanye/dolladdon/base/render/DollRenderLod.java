@@ -0,0 +1,48 @@
+package com.lanye.dolladdon.base.render;
+
+import com.lanye.dolladdon.config.DollClientConfig;
+
+/**
+ * 玩偶渲染的细节层次（LOD）
+ */
+public enum DollRenderLod {
+    // 完整渲染（基础层和外层）
+    FULL("full"),
+    // 只渲染基础层，跳过半透明外层
+    BASE_ONLY("base"),
+    // 低多边形代理模型（只有头部和身体）
+    PROXY("proxy"),
+    // 预先渲染的替身图片（一个朝向相机的四边形），快照生成之前使用 PROXY
+    IMPOSTOR("impostor"),
+    // 不渲染
+    HIDDEN("hidden");
+    
+    private final String debugName;
+    
+    DollRenderLod(String debugName) {
+        this.debugName = debugName;
+    }
+    
+    public String getDebugName() {
+        return debugName;
+    }
+    
+    /**
+     * 根据与相机的距离选择细节层次
+     * 阈值乘以姿态的缩放，缩小的玩偶会更早降低细节
+     * @param distanceSqr 与相机距离的平方
+     * @param poseScale 姿态的缩放（取各轴绝对值的最大值）
+     * @return 细节层次
+     */
+    public static DollRenderLod select(double distanceSqr, float poseScale) {
+        double cutoff = DollClientConfig.LOD_CUTOFF_DISTANCE.get() * poseScale;
+        if (distanceSqr > cutoff * cutoff) {
+            return DollClientConfig.LOD_PROXY_BEYOND_CUTOFF.get() ? PROXY : HIDDEN;
+        }
+        double baseOnly = DollClientConfig.LOD_BASE_ONLY_DISTANCE.get() * poseScale;
+        if (distanceSqr > baseOnly * baseOnly) {
+            return BASE_ONLY;
+        }
+        return FULL;
+    }
+}
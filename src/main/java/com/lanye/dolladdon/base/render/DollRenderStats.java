@@ -0,0 +1,42 @@
+package com.lanye.dolladdon.base.render;
+
+/**
+ * 玩偶渲染统计
+ * 记录每帧各细节层次渲染的玩偶数量，显示在 F3 调试界面
+ * 只在渲染线程访问
+ */
+public class DollRenderStats {
+    private static final DollRenderLod[] LODS = DollRenderLod.values();
+    // 当前帧的计数
+    private static final int[] current = new int[LODS.length];
+    // 上一帧的计数（用于显示）
+    private static final int[] last = new int[LODS.length];
+    
+    /**
+     * 记录一次渲染
+     * @param lod 细节层次
+     */
+    public static void record(DollRenderLod lod) {
+        current[lod.ordinal()]++;
+    }
+    
+    /**
+     * 新的一帧开始时调用，保存上一帧的计数并清零
+     */
+    public static void startFrame() {
+        System.arraycopy(current, 0, last, 0, current.length);
+        java.util.Arrays.fill(current, 0);
+    }
+    
+    /**
+     * 获取上一帧的统计文本
+     * @return 例如 "Dolls: full 12, base 30, proxy 100, hidden 0"
+     */
+    public static String getDebugText() {
+        StringBuilder builder = new StringBuilder("Dolls:");
+        for (int i = 0; i < LODS.length; i++) {
+            builder.append(i == 0 ? " " : ", ").append(LODS[i].getDebugName()).append(' ').append(last[i]);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,280 @@
+package com.lanye.dolladdon.base.render;
+
+import com.lanye.dolladdon.PlayerDollAddon;
+import com.lanye.dolladdon.util.PoseActionManager;
+import com.mojang.blaze3d.pipeline.TextureTarget;
+import com.mojang.blaze3d.platform.GlConst;
+import com.mojang.blaze3d.platform.Lighting;
+import com.mojang.blaze3d.systems.RenderSystem;
+import com.mojang.blaze3d.vertex.ByteBufferBuilder;
+import com.mojang.blaze3d.vertex.PoseStack;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.MultiBufferSource;
+import net.minecraft.client.renderer.texture.AbstractTexture;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.ResourceManager;
+import org.joml.Matrix4fStack;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 玩偶快照图集
+ * 把玩偶模型预先渲染到帧缓冲中的格子里，帧缓冲的颜色附件注册为纹理，之后只需绘制四边形即可
+ *
+ * 每个条目占用同一行中连续的若干个格子（例如多个角度）。快照按需生成：
+ * 请求时加入队列，在下一帧开始时按预算渲染；图集满时淘汰最久未使用的条目。
+ * 姿态或动作资源重新加载后（版本号变化）所有快照失效
+ * 只在渲染线程访问
+ */
+public class DollSnapshotAtlas {
+    private final ResourceLocation location;
+    private final String name;
+    private final int size;
+    private final int cellWidth;
+    private final int cellHeight;
+    private final int cellsPerEntry;
+    private final int slotsPerRow;
+    private final int maxSlots;
+
+    private final Map<Object, Entry> entries = new LinkedHashMap<>(16, 0.75F, true);
+    private final Deque<Entry> pending = new ArrayDeque<>();
+    // 生成失败后空出的槽位，以及还没有使用过的下一个槽位
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private int nextSlot;
+    private TextureTarget target;
+    private MultiBufferSource.BufferSource bufferSource;
+    private long version = PoseActionManager.get(true).getVersion();
+
+    /**
+     * 渲染快照的回调
+     */
+    @FunctionalInterface
+    public interface Snapshot {
+        /**
+         * 渲染条目中的一个格子
+         * 调用时视口已指向该格子并已清空，模型视图矩阵为单位矩阵；投影矩阵和光照由回调设置
+         * @param cell 格子在条目中的索引
+         * @param poseStack 变换矩阵栈
+         * @param bufferSource 缓冲区源（回调返回后立即提交）
+         */
+        void render(int cell, PoseStack poseStack, MultiBufferSource bufferSource);
+    }
+
+    private static class Entry {
+        final Object key;
+        final int slot;
+        final Snapshot snapshot;
+        boolean ready;
+        boolean removed;
+
+        Entry(Object key, int slot, Snapshot snapshot) {
+            this.key = key;
+            this.slot = slot;
+            this.snapshot = snapshot;
+        }
+    }
+
+    /**
+     * @param location 图集纹理的资源位置
+     * @param name 名称（用于日志）
+     * @param size 图集边长（像素）
+     * @param cellWidth 格子宽度（像素）
+     * @param cellHeight 格子高度（像素）
+     * @param cellsPerEntry 每个条目占用的格子数量
+     */
+    public DollSnapshotAtlas(ResourceLocation location, String name, int size, int cellWidth, int cellHeight, int cellsPerEntry) {
+        this.location = location;
+        this.name = name;
+        this.size = size;
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.cellsPerEntry = cellsPerEntry;
+        this.slotsPerRow = size / (cellWidth * cellsPerEntry);
+        this.maxSlots = slotsPerRow * (size / cellHeight);
+    }
+
+    public ResourceLocation getLocation() {
+        return location;
+    }
+
+    /**
+     * 查找快照，不存在时加入生成队列
+     * @param key 条目的键（需要正确实现 equals/hashCode）
+     * @param snapshot 渲染快照的回调，只在生成时调用
+     * @return 条目槽位，快照尚未生成时返回 -1
+     */
+    public int getOrRequest(Object key, Snapshot snapshot) {
+        checkVersion();
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            return entry.ready ? entry.slot : -1;
+        }
+
+        int slot;
+        if (!freeSlots.isEmpty()) {
+            slot = freeSlots.pop();
+        } else if (nextSlot < maxSlots) {
+            slot = nextSlot++;
+        } else {
+            // 图集已满，淘汰最久未使用的条目
+            Iterator<Entry> iterator = entries.values().iterator();
+            Entry eldest = iterator.next();
+            iterator.remove();
+            eldest.removed = true;
+            slot = eldest.slot;
+        }
+        entry = new Entry(key, slot, snapshot);
+        entries.put(key, entry);
+        pending.add(entry);
+        return -1;
+    }
+
+    // 格子在图集中的像素坐标（帧缓冲的原点在左下角）
+    private int cellX(int slot, int cell) {
+        return (slot % slotsPerRow * cellsPerEntry + cell) * cellWidth;
+    }
+
+    private int cellY(int slot) {
+        return slot / slotsPerRow * cellHeight;
+    }
+
+    public float getU0(int slot, int cell) {
+        return (float) cellX(slot, cell) / size;
+    }
+
+    public float getU1(int slot, int cell) {
+        return (float) (cellX(slot, cell) + cellWidth) / size;
+    }
+
+    /**
+     * 格子底边的 V 坐标（帧缓冲纹理的 V 轴向上）
+     */
+    public float getV0(int slot) {
+        return (float) cellY(slot) / size;
+    }
+
+    /**
+     * 格子顶边的 V 坐标
+     */
+    public float getV1(int slot) {
+        return (float) (cellY(slot) + cellHeight) / size;
+    }
+
+    /**
+     * 生成队列中的快照，在每帧开始（世界渲染之前）调用
+     * @param budget 最多生成的条目数量
+     */
+    public void processPending(int budget) {
+        checkVersion();
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (target == null) {
+            init();
+        }
+
+        RenderSystem.backupProjectionMatrix();
+        Matrix4fStack modelViewStack = RenderSystem.getModelViewStack();
+        modelViewStack.pushMatrix();
+        modelViewStack.identity();
+        RenderSystem.applyModelViewMatrix();
+        target.bindWrite(false);
+
+        try {
+            while (budget > 0 && !pending.isEmpty()) {
+                Entry entry = pending.poll();
+                if (entry.removed) {
+                    continue;
+                }
+                budget--;
+                try {
+                    for (int cell = 0; cell < cellsPerEntry; cell++) {
+                        int x = cellX(entry.slot, cell);
+                        int y = cellY(entry.slot);
+
+                        // 清空格子
+                        RenderSystem.viewport(x, y, cellWidth, cellHeight);
+                        RenderSystem.enableScissor(x, y, cellWidth, cellHeight);
+                        RenderSystem.clearColor(0.0F, 0.0F, 0.0F, 0.0F);
+                        RenderSystem.clear(GlConst.GL_COLOR_BUFFER_BIT | GlConst.GL_DEPTH_BUFFER_BIT, Minecraft.ON_OSX);
+                        RenderSystem.disableScissor();
+
+                        PoseStack poseStack = new PoseStack();
+                        entry.snapshot.render(cell, poseStack, bufferSource);
+                        // 每个格子的视口不同，必须立即提交
+                        bufferSource.endBatch();
+                    }
+                    entry.ready = true;
+                } catch (Exception e) {
+                    // 移除失败的条目并空出槽位，下次请求时重新生成
+                    PlayerDollAddon.LOGGER.error("生成玩偶快照失败: {}", name, e);
+                    RenderSystem.disableScissor();
+                    bufferSource.endBatch();
+                    entries.remove(entry.key);
+                    entry.removed = true;
+                    freeSlots.push(entry.slot);
+                }
+            }
+        } finally {
+            RenderSystem.disableScissor();
+            Minecraft.getInstance().getMainRenderTarget().bindWrite(true);
+            Lighting.setupFor3DItems();
+            modelViewStack.popMatrix();
+            RenderSystem.applyModelViewMatrix();
+            RenderSystem.restoreProjectionMatrix();
+        }
+    }
+
+    private void init() {
+        target = new TextureTarget(size, size, true, Minecraft.ON_OSX);
+        target.setClearColor(0.0F, 0.0F, 0.0F, 0.0F);
+        target.clear(Minecraft.ON_OSX);
+        bufferSource = MultiBufferSource.immediate(new ByteBufferBuilder(256 * 1024));
+        Minecraft.getInstance().getTextureManager().register(location, new AtlasTexture());
+    }
+
+    private void checkVersion() {
+        long currentVersion = PoseActionManager.get(true).getVersion();
+        if (currentVersion != version) {
+            clear();
+            version = currentVersion;
+        }
+    }
+
+    /**
+     * 清除所有快照（图集纹理保留，槽位重新分配）
+     */
+    public void clear() {
+        for (Entry entry : entries.values()) {
+            entry.removed = true;
+        }
+        entries.clear();
+        pending.clear();
+        freeSlots.clear();
+        nextSlot = 0;
+    }
+
+    /**
+     * 把图集帧缓冲的颜色附件包装成纹理，注册到 TextureManager 后即可通过资源位置使用
+     */
+    private class AtlasTexture extends AbstractTexture {
+        @Override
+        public void load(ResourceManager resourceManager) {
+            // 纹理内容由帧缓冲渲染生成
+        }
+
+        @Override
+        public int getId() {
+            return target.getColorTextureId();
+        }
+
+        @Override
+        public void releaseId() {
+            // 颜色附件归帧缓冲所有
+        }
+    }
+}
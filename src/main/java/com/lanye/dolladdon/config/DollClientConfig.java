@@ -0,0 +1,68 @@
+package com.lanye.dolladdon.config;
+
+import net.neoforged.neoforge.common.ModConfigSpec;
+
+/**
+ * 客户端配置
+ * 保存在 config/player_doll_addon-client.toml
+ */
+public class DollClientConfig {
+    public static final ModConfigSpec SPEC;
+    
+    // 细节层次（LOD）：距离阈值按姿态的缩放等比例调整
+    public static final ModConfigSpec.DoubleValue LOD_BASE_ONLY_DISTANCE;
+    public static final ModConfigSpec.DoubleValue LOD_CUTOFF_DISTANCE;
+    public static final ModConfigSpec.BooleanValue LOD_PROXY_BEYOND_CUTOFF;
+    public static final ModConfigSpec.BooleanValue LOD_IMPOSTORS;
+    public static final ModConfigSpec.IntValue LOD_IMPOSTOR_SNAPSHOTS_PER_FRAME;
+    
+    // 物品栏图标缓存
+    public static final ModConfigSpec.BooleanValue GUI_ICON_CACHE;
+    public static final ModConfigSpec.IntValue GUI_ICONS_PER_FRAME;
+    
+    // 从服务器下载皮肤
+    public static final ModConfigSpec.IntValue SKIN_DOWNLOADS_IN_FLIGHT;
+    public static final ModConfigSpec.BooleanValue SKIN_FORCE_DOWNLOAD;
+    
+    static {
+        ModConfigSpec.Builder builder = new ModConfigSpec.Builder();
+        
+        builder.comment("玩偶渲染的细节层次（LOD）设置", "距离以方块为单位，会乘以玩偶姿态的缩放").push("lod");
+        LOD_BASE_ONLY_DISTANCE = builder
+                .comment("超过此距离只渲染基础层，跳过半透明外层")
+                .defineInRange("baseOnlyDistance", 24.0, 0.0, 1024.0);
+        LOD_CUTOFF_DISTANCE = builder
+                .comment("超过此距离使用低多边形代理模型或不渲染")
+                .defineInRange("cutoffDistance", 64.0, 0.0, 1024.0);
+        LOD_PROXY_BEYOND_CUTOFF = builder
+                .comment("超过截止距离时是否渲染代理模型（只有头部和身体），为 false 时不渲染")
+                .define("proxyBeyondCutoff", true);
+        LOD_IMPOSTORS = builder
+                .comment("超过截止距离时是否使用预先渲染的替身图片（朝向相机的四边形）代替代理模型")
+                .define("impostors", true);
+        LOD_IMPOSTOR_SNAPSHOTS_PER_FRAME = builder
+                .comment("每帧最多生成多少个替身快照（每个包含多个角度）")
+                .defineInRange("impostorSnapshotsPerFrame", 2, 1, 64);
+        builder.pop();
+        
+        builder.comment("玩偶物品在物品栏中的显示设置").push("gui");
+        GUI_ICON_CACHE = builder
+                .comment("是否把物品栏中的玩偶模型缓存为图标，而不是每帧重新渲染")
+                .define("iconCache", true);
+        GUI_ICONS_PER_FRAME = builder
+                .comment("每帧最多生成多少个图标")
+                .defineInRange("iconsPerFrame", 8, 1, 256);
+        builder.pop();
+        
+        builder.comment("从服务器下载玩偶皮肤的设置").push("network");
+        SKIN_DOWNLOADS_IN_FLIGHT = builder
+                .comment("同时向服务器请求的皮肤数量上限")
+                .defineInRange("skinDownloadsInFlight", 4, 1, 64);
+        SKIN_FORCE_DOWNLOAD = builder
+                .comment("忽略本地皮肤和下载缓存，始终从服务器下载（用于在单人游戏中测试皮肤传输）")
+                .define("forceSkinDownload", false);
+        builder.pop();
+        
+        SPEC = builder.build();
+    }
+}
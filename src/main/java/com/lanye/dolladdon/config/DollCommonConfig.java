@@ -0,0 +1,33 @@
+package com.lanye.dolladdon.config;
+
+import net.neoforged.neoforge.common.ModConfigSpec;
+
+/**
+ * 通用配置（服务端和客户端共用）
+ * 保存在 config/player_doll_addon-common.toml
+ */
+public class DollCommonConfig {
+    public static final ModConfigSpec SPEC;
+    
+    // 服务端集中处理玩偶tick
+    public static final ModConfigSpec.BooleanValue BATCHED_TICKS;
+    // 动作的逐tick姿态表
+    public static final ModConfigSpec.IntValue ACTION_TABLE_BUDGET_KB;
+    
+    static {
+        ModConfigSpec.Builder builder = new ModConfigSpec.Builder();
+        
+        builder.comment("服务端性能设置").push("performance");
+        BATCHED_TICKS = builder
+                .comment("是否由每个世界的玩偶系统集中推进所有玩偶的动作和物理，而不是每个实体单独tick",
+                        "动作只在经过关键帧时更新服务端的姿态（用于碰撞箱），客户端的动画不受影响")
+                .define("batchedTicks", false);
+        ACTION_TABLE_BUDGET_KB = builder
+                .comment("所有动作预先计算的逐tick姿态表共用的内存上限（KB，服务端和客户端各一份），从短动作开始生成，",
+                        "预算用完后剩下的动作按关键帧二分查找；为 0 时不生成姿态表，修改后重新加载动作生效")
+                .defineInRange("actionTableBudgetKb", 4096, 0, 262144);
+        builder.pop();
+        
+        SPEC = builder.build();
+    }
+}
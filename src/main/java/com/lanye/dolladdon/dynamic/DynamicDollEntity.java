@@ -1,48 +1,83 @@
 package com.lanye.dolladdon.dynamic;
 
 import com.lanye.dolladdon.base.entity.BaseDollEntity;
-import com.lanye.dolladdon.init.ModItems;
-import net.minecraft.core.registries.BuiltInRegistries;
-import net.minecraft.resources.ResourceLocation;
+import com.lanye.dolladdon.init.ModEntities;
+import com.lanye.dolladdon.util.DollSkinRegistry;
+import com.lanye.dolladdon.util.DynamicDollLoader;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.syncher.EntityDataAccessor;
+import net.minecraft.network.syncher.EntityDataSerializers;
+import net.minecraft.network.syncher.SynchedEntityData;
 import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.Level;
 
 /**
  * 动态玩偶实体
- * 用于从文件加载的玩偶
+ * 用于从文件加载的玩偶，所有皮肤共用这一个实体类型，皮肤ID同步到客户端
  */
 public class DynamicDollEntity extends BaseDollEntity {
-    private final String dollId;
+    private static final EntityDataAccessor<String> DATA_SKIN_ID = SynchedEntityData.defineId(DynamicDollEntity.class, EntityDataSerializers.STRING);
     
     public DynamicDollEntity(EntityType<? extends DynamicDollEntity> entityType, Level level) {
         super(entityType, level);
-        this.dollId = entityType.getDescriptionId();
     }
     
-    public DynamicDollEntity(EntityType<? extends DynamicDollEntity> entityType, Level level, double x, double y, double z) {
-        super(entityType, level, x, y, z);
-        this.dollId = entityType.getDescriptionId();
+    public DynamicDollEntity(Level level, double x, double y, double z, String skinId) {
+        super(ModEntities.DYNAMIC_DOLL.get(), level, x, y, z);
+        setSkinId(skinId);
     }
     
-    public String getDollId() {
-        return dollId;
+    @Override
+    protected void defineSynchedData(SynchedEntityData.Builder builder) {
+        super.defineSynchedData(builder);
+        builder.define(DATA_SKIN_ID, "");
+    }
+    
+    /**
+     * 获取皮肤ID
+     * @return 皮肤ID，未设置时为空字符串
+     */
+    public String getSkinId() {
+        return this.entityData.get(DATA_SKIN_ID);
+    }
+    
+    public void setSkinId(String skinId) {
+        this.entityData.set(DATA_SKIN_ID, skinId != null ? skinId : "");
     }
     
     @Override
-    protected ItemStack getDollItemStack() {
-        // 从实体类型获取注册名称
-        ResourceLocation entityKey = BuiltInRegistries.ENTITY_TYPE.getKey(this.getType());
-        if (entityKey != null) {
-            String registryName = entityKey.getPath();
-            // 从 ModItems.DYNAMIC_DOLLS 中获取对应的物品
-            var itemHolder = ModItems.DYNAMIC_DOLLS.get(registryName);
-            if (itemHolder != null) {
-                return new ItemStack(itemHolder.get());
+    protected void readAdditionalSaveData(net.minecraft.nbt.CompoundTag tag) {
+        super.readAdditionalSaveData(tag);
+        if (tag.contains("SkinId", net.minecraft.nbt.Tag.TAG_STRING)) {
+            setSkinId(tag.getString("SkinId"));
+        } else {
+            // 旧版本的实体（zzz_<哈希值>）通过注册表别名加载，皮肤ID从原来的实体类型名称中恢复
+            String legacySkinId = DollSkinRegistry.getLegacySkinId(tag.getString("id"));
+            if (legacySkinId != null) {
+                setSkinId(legacySkinId);
             }
         }
-        // 如果找不到，返回空物品堆（不应该发生）
-        return ItemStack.EMPTY;
+    }
+    
+    @Override
+    protected void addAdditionalSaveData(net.minecraft.nbt.CompoundTag tag) {
+        super.addAdditionalSaveData(tag);
+        String skinId = getSkinId();
+        if (!skinId.isEmpty()) {
+            tag.putString("SkinId", skinId);
+        }
+    }
+    
+    @Override
+    protected Component getTypeName() {
+        // 使用皮肤的显示名称
+        DynamicDollLoader.DollInfo info = DollSkinRegistry.get(getSkinId());
+        return info != null ? Component.literal(info.getDisplayName()) : super.getTypeName();
+    }
+    
+    @Override
+    protected ItemStack getDollItemStack() {
+        return DynamicDollItem.createStack(getSkinId());
     }
 }
-
@@ -2,42 +2,55 @@ package com.lanye.dolladdon.dynamic;
 
 import com.lanye.dolladdon.base.entity.BaseDollEntity;
 import com.lanye.dolladdon.dynamic.render.DynamicDollItemRenderer;
+import com.lanye.dolladdon.init.ModDataComponents;
+import com.lanye.dolladdon.init.ModItems;
+import com.lanye.dolladdon.util.DollSkinRegistry;
+import com.lanye.dolladdon.util.DynamicDollLoader;
 import net.minecraft.client.Minecraft;
 import net.minecraft.network.chat.Component;
 import net.minecraft.world.level.Level;
 import net.neoforged.neoforge.client.extensions.common.IClientItemExtensions;
-import net.minecraft.resources.ResourceLocation;
-import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.item.ItemStack;
 
 import java.util.function.Consumer;
 
 /**
  * 动态玩偶物品
- * 用于从文件加载的玩偶
+ * 用于从文件加载的玩偶，所有皮肤共用这一个物品，皮肤由物品上的皮肤ID组件决定
  */
 public class DynamicDollItem extends com.lanye.dolladdon.base.item.BaseDollItem {
-    private final EntityType<DynamicDollEntity> entityType;
-    private final ResourceLocation textureLocation;
-    private final boolean isAlexModel;
-    private final String displayName;
     
-    public DynamicDollItem(EntityType<DynamicDollEntity> entityType, ResourceLocation textureLocation, boolean isAlexModel, String displayName) {
-        super();
-        this.entityType = entityType;
-        this.textureLocation = textureLocation;
-        this.isAlexModel = isAlexModel;
-        this.displayName = displayName;
+    /**
+     * 创建指定皮肤的动态玩偶物品堆
+     * @param skinId 皮肤ID
+     * @return 物品堆
+     */
+    public static ItemStack createStack(String skinId) {
+        ItemStack stack = new ItemStack(ModItems.DYNAMIC_DOLL.get());
+        if (skinId != null && !skinId.isEmpty()) {
+            stack.set(ModDataComponents.DOLL_SKIN, skinId);
+        }
+        return stack;
+    }
+    
+    /**
+     * 获取物品堆上的皮肤ID
+     * @param stack 物品堆
+     * @return 皮肤ID，未设置时为空字符串
+     */
+    public static String getSkinId(ItemStack stack) {
+        return stack.getOrDefault(ModDataComponents.DOLL_SKIN, "");
     }
     
     @Override
     public Component getName(ItemStack stack) {
-        return Component.literal(displayName);
+        DynamicDollLoader.DollInfo info = DollSkinRegistry.get(getSkinId(stack));
+        return info != null ? Component.literal(info.getDisplayName()) : super.getName(stack);
     }
     
     @Override
-    protected BaseDollEntity createDollEntity(Level level, double x, double y, double z) {
-        return new DynamicDollEntity(entityType, level, x, y, z);
+    protected BaseDollEntity createDollEntity(Level level, double x, double y, double z, ItemStack stack) {
+        return new DynamicDollEntity(level, x, y, z, getSkinId(stack));
     }
     
     @Override
@@ -52,22 +65,11 @@ public class DynamicDollItem extends com.lanye.dolladdon.base.item.BaseDollItem
                 if (renderer == null) {
                     renderer = new DynamicDollItemRenderer(
                             minecraft.getBlockEntityRenderDispatcher(),
-                            minecraft.getEntityModels(),
-                            textureLocation,
-                            isAlexModel
+                            minecraft.getEntityModels()
                     );
                 }
                 return renderer;
             }
         });
     }
-    
-    public ResourceLocation getTextureLocation() {
-        return textureLocation;
-    }
-    
-    public boolean isAlexModel() {
-        return isAlexModel;
-    }
 }
-
@@ -1,33 +1,59 @@
 package com.lanye.dolladdon.dynamic.render;
 
 import com.lanye.dolladdon.base.render.BaseDollItemRenderer;
+import com.lanye.dolladdon.dynamic.DynamicDollItem;
+import com.lanye.dolladdon.util.PlayerSkinUtil;
+import com.mojang.blaze3d.vertex.PoseStack;
 import net.minecraft.client.model.PlayerModel;
 import net.minecraft.client.model.geom.EntityModelSet;
 import net.minecraft.client.model.geom.ModelLayers;
+import net.minecraft.client.renderer.BlockEntityWithoutLevelRenderer;
+import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.client.renderer.blockentity.BlockEntityRenderDispatcher;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.ItemDisplayContext;
+import net.minecraft.world.item.ItemStack;
 
 /**
  * 动态玩偶物品渲染器
- * 用于从文件加载的玩偶
+ * 用于从文件加载的玩偶，按物品的皮肤ID选择纹理和模型
  */
-public class DynamicDollItemRenderer extends BaseDollItemRenderer {
-    private final ResourceLocation textureLocation;
-    private final boolean isAlexModel;
+public class DynamicDollItemRenderer extends BlockEntityWithoutLevelRenderer {
+    private final Variant wideRenderer;
+    private final Variant slimRenderer;
     
-    public DynamicDollItemRenderer(BlockEntityRenderDispatcher dispatcher, EntityModelSet modelSet, 
-                                  ResourceLocation textureLocation, boolean isAlexModel) {
-        super(dispatcher, modelSet, new PlayerModel<>(
-            modelSet.bakeLayer(isAlexModel ? ModelLayers.PLAYER_SLIM : ModelLayers.PLAYER), 
-            isAlexModel
-        ));
-        this.textureLocation = textureLocation;
-        this.isAlexModel = isAlexModel;
+    public DynamicDollItemRenderer(BlockEntityRenderDispatcher dispatcher, EntityModelSet modelSet) {
+        super(dispatcher, modelSet);
+        this.wideRenderer = new Variant(dispatcher, modelSet, false);
+        this.slimRenderer = new Variant(dispatcher, modelSet, true);
     }
     
     @Override
-    protected ResourceLocation getSkinLocation() {
-        return textureLocation;
+    public void renderByItem(ItemStack stack, ItemDisplayContext transformType, PoseStack poseStack,
+                             MultiBufferSource bufferSource, int packedLight, int packedOverlay) {
+        (DynamicDollRenderer.isAlexModel(DynamicDollItem.getSkinId(stack)) ? slimRenderer : wideRenderer)
+                .renderByItem(stack, transformType, poseStack, bufferSource, packedLight, packedOverlay);
+    }
+    
+    /**
+     * 使用固定模型的渲染器
+     */
+    private static class Variant extends BaseDollItemRenderer {
+        Variant(BlockEntityRenderDispatcher dispatcher, EntityModelSet modelSet, boolean isAlexModel) {
+            super(dispatcher, modelSet, new PlayerModel<>(
+                modelSet.bakeLayer(isAlexModel ? ModelLayers.PLAYER_SLIM : ModelLayers.PLAYER), 
+                isAlexModel
+            ));
+        }
+        
+        @Override
+        protected ResourceLocation getSkinLocation() {
+            return PlayerSkinUtil.getSteveSkin();
+        }
+        
+        @Override
+        protected ResourceLocation getSkinLocation(ItemStack stack) {
+            return DynamicDollRenderer.getSkinLocation(DynamicDollItem.getSkinId(stack));
+        }
     }
 }
-
@@ -2,30 +2,76 @@ package com.lanye.dolladdon.dynamic.render;
 
 import com.lanye.dolladdon.base.render.BaseDollRenderer;
 import com.lanye.dolladdon.dynamic.DynamicDollEntity;
+import com.lanye.dolladdon.util.DollSkinRegistry;
+import com.lanye.dolladdon.util.DynamicDollLoader;
+import com.lanye.dolladdon.util.PlayerSkinUtil;
+import com.mojang.blaze3d.vertex.PoseStack;
 import net.minecraft.client.model.PlayerModel;
 import net.minecraft.client.model.geom.ModelLayers;
+import net.minecraft.client.renderer.MultiBufferSource;
+import net.minecraft.client.renderer.entity.EntityRenderer;
 import net.minecraft.client.renderer.entity.EntityRendererProvider;
 import net.minecraft.resources.ResourceLocation;
-import net.minecraft.world.entity.player.Player;
 
 /**
  * 动态玩偶实体渲染器
- * 用于从文件加载的玩偶
+ * 用于从文件加载的玩偶，按实体的皮肤ID在皮肤注册表中查找纹理，并选择粗手臂或细手臂模型渲染
  */
-public class DynamicDollRenderer extends BaseDollRenderer<DynamicDollEntity> {
-    private final ResourceLocation skinLocation;
+public class DynamicDollRenderer extends EntityRenderer<DynamicDollEntity> {
+    private final Variant wideRenderer;
+    private final Variant slimRenderer;
     
-    public DynamicDollRenderer(EntityRendererProvider.Context context, ResourceLocation skinLocation, boolean isAlexModel) {
-        super(context, new PlayerModel<>(
-            context.bakeLayer(isAlexModel ? ModelLayers.PLAYER_SLIM : ModelLayers.PLAYER), 
-            isAlexModel
-        ));
-        this.skinLocation = skinLocation;
+    public DynamicDollRenderer(EntityRendererProvider.Context context) {
+        super(context);
+        this.wideRenderer = new Variant(context, false);
+        this.slimRenderer = new Variant(context, true);
     }
     
     @Override
-    protected ResourceLocation getSkinLocation(DynamicDollEntity entity) {
-        return skinLocation;
+    public void render(DynamicDollEntity entity, float entityYaw, float partialTick,
+                       PoseStack poseStack, MultiBufferSource bufferSource, int packedLight) {
+        (isAlexModel(entity.getSkinId()) ? slimRenderer : wideRenderer)
+                .render(entity, entityYaw, partialTick, poseStack, bufferSource, packedLight);
+    }
+    
+    @Override
+    public ResourceLocation getTextureLocation(DynamicDollEntity entity) {
+        return getSkinLocation(entity.getSkinId());
+    }
+    
+    /**
+     * 获取皮肤纹理，皮肤不存在（如文件已删除）时使用Steve默认皮肤
+     * @param skinId 皮肤ID
+     * @return 皮肤资源位置
+     */
+    static ResourceLocation getSkinLocation(String skinId) {
+        DynamicDollLoader.DollInfo info = DollSkinRegistry.get(skinId);
+        return info != null ? info.getTextureLocation() : PlayerSkinUtil.getSteveSkin();
+    }
+    
+    /**
+     * 皮肤是否使用Alex模型（细手臂）
+     * @param skinId 皮肤ID
+     */
+    static boolean isAlexModel(String skinId) {
+        DynamicDollLoader.DollInfo info = DollSkinRegistry.get(skinId);
+        return info != null && info.isAlexModel();
+    }
+    
+    /**
+     * 使用固定模型的渲染器
+     */
+    private static class Variant extends BaseDollRenderer<DynamicDollEntity> {
+        Variant(EntityRendererProvider.Context context, boolean isAlexModel) {
+            super(context, new PlayerModel<>(
+                context.bakeLayer(isAlexModel ? ModelLayers.PLAYER_SLIM : ModelLayers.PLAYER), 
+                isAlexModel
+            ));
+        }
+        
+        @Override
+        protected ResourceLocation getSkinLocation(DynamicDollEntity entity) {
+            return DynamicDollRenderer.getSkinLocation(entity.getSkinId());
+        }
     }
 }
-
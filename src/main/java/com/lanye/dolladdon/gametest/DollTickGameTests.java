@@ -0,0 +1,71 @@
+package com.lanye.dolladdon.gametest;
+
+import com.lanye.dolladdon.PlayerDollAddon;
+import com.lanye.dolladdon.api.action.DollAction;
+import com.lanye.dolladdon.base.entity.BaseDollEntity;
+import com.lanye.dolladdon.config.DollCommonConfig;
+import com.lanye.dolladdon.init.ModEntities;
+import com.lanye.dolladdon.util.PoseActionManager;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.phys.Vec3;
+import net.neoforged.neoforge.gametest.GameTestHolder;
+import net.neoforged.neoforge.gametest.PrefixGameTestTemplate;
+import org.slf4j.Logger;
+
+/**
+ * 玩偶tick的性能测试
+ * 在 72x72 的石头地面上放置 5000 个循环播放动作的玩偶，分别用每个实体单独tick和 {@link com.lanye.dolladdon.base.entity.DollTickSystem}
+ * 集中处理各运行 100 tick，记录两种方式的平均 MSPT
+ * 运行方式：gradlew runGameTestServer
+ */
+@GameTestHolder(PlayerDollAddon.MODID)
+@PrefixGameTestTemplate(false)
+public class DollTickGameTests {
+    private static final Logger LOGGER = PlayerDollAddon.LOGGER;
+    
+    private static final int DOLL_COUNT = 5000;
+    // 地面边长，每个方块放一个玩偶，避免玩偶互相推动
+    private static final int FLOOR_SIZE = 72;
+    // 生成玩偶后等待落地和休眠的时间
+    private static final int WARMUP_TICKS = 40;
+    // 服务器按最近 100 tick 计算平均tick时间
+    private static final int SAMPLE_TICKS = 100;
+    private static final String ACTION = "dance";
+    
+    @GameTest(template = "doll_tick_benchmark", batch = "doll_tick_benchmark", timeoutTicks = 600)
+    public static void batchedTicksMspt(GameTestHelper helper) {
+        DollAction action = PoseActionManager.get(false).getAction(ACTION);
+        if (action == null) {
+            helper.fail("缺少动作: " + ACTION);
+            return;
+        }
+        
+        boolean originalBatched = DollCommonConfig.BATCHED_TICKS.get();
+        DollCommonConfig.BATCHED_TICKS.set(false);
+        for (int i = 0; i < DOLL_COUNT; i++) {
+            BaseDollEntity doll = helper.spawn(ModEntities.STEVE_DOLL.get(), new Vec3(i % FLOOR_SIZE + 0.5, 1.0, i / FLOOR_SIZE + 0.5));
+            doll.setAction(action, 1.0f, true);
+        }
+        
+        MinecraftServer server = helper.getLevel().getServer();
+        long[] mspt = new long[2];
+        helper.startSequence()
+                .thenIdle(WARMUP_TICKS + SAMPLE_TICKS)
+                .thenExecute(() -> {
+                    mspt[0] = server.getAverageTickTimeNanos();
+                    DollCommonConfig.BATCHED_TICKS.set(true);
+                })
+                .thenIdle(SAMPLE_TICKS)
+                .thenExecute(() -> {
+                    mspt[1] = server.getAverageTickTimeNanos();
+                    DollCommonConfig.BATCHED_TICKS.set(originalBatched);
+                    LOGGER.info("{} 个播放动作的玩偶: 每个实体单独tick {} ms/tick，集中处理 {} ms/tick",
+                            DOLL_COUNT, String.format("%.2f", mspt[0] / 1.0e6), String.format("%.2f", mspt[1] / 1.0e6));
+                    helper.assertTrue(helper.getEntities(ModEntities.STEVE_DOLL.get()).size() == DOLL_COUNT,
+                            "测试期间玩偶数量发生了变化");
+                })
+                .thenSucceed();
+    }
+}
@@ -5,6 +5,7 @@ import com.lanye.dolladdon.impl.render.AlexDollItemRenderer;
 import com.lanye.dolladdon.impl.entity.AlexDollEntity;
 import com.lanye.dolladdon.base.entity.BaseDollEntity;
 import net.minecraft.client.Minecraft;
+import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.Level;
 import net.neoforged.neoforge.client.extensions.common.IClientItemExtensions;
 
@@ -17,7 +18,7 @@ import java.util.function.Consumer;
 public class AlexDollItem extends BaseDollItem {
     
     @Override
-    protected BaseDollEntity createDollEntity(Level level, double x, double y, double z) {
+    protected BaseDollEntity createDollEntity(Level level, double x, double y, double z, ItemStack stack) {
         return new AlexDollEntity(level, x, y, z);
     }
     
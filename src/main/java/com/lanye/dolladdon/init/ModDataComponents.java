@@ -0,0 +1,25 @@
+package com.lanye.dolladdon.init;
+
+import com.lanye.dolladdon.PlayerDollAddon;
+import com.lanye.dolladdon.base.item.DollState;
+import com.mojang.serialization.Codec;
+import net.minecraft.core.component.DataComponentType;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.neoforged.neoforge.registries.DeferredHolder;
+import net.neoforged.neoforge.registries.DeferredRegister;
+
+public class ModDataComponents {
+    public static final DeferredRegister.DataComponents DATA_COMPONENTS = DeferredRegister.createDataComponents(PlayerDollAddon.MODID);
+    
+    // 玩偶物品保存的实体状态（姿态和动作）
+    public static final DeferredHolder<DataComponentType<?>, DataComponentType<DollState>> DOLL_STATE = DATA_COMPONENTS.registerComponentType(
+            "doll_state",
+            builder -> builder.persistent(DollState.CODEC).networkSynchronized(DollState.STREAM_CODEC)
+    );
+    
+    // 动态玩偶物品的皮肤ID
+    public static final DeferredHolder<DataComponentType<?>, DataComponentType<String>> DOLL_SKIN = DATA_COMPONENTS.registerComponentType(
+            "doll_skin",
+            builder -> builder.persistent(Codec.STRING).networkSynchronized(ByteBufCodecs.STRING_UTF8)
+    );
+}
@@ -10,9 +10,6 @@ import net.minecraft.world.entity.EntityType;
 import net.neoforged.neoforge.registries.DeferredHolder;
 import net.neoforged.neoforge.registries.DeferredRegister;
 
-import java.util.HashMap;
-import java.util.Map;
-
 public class ModEntities {
     public static final DeferredRegister<EntityType<?>> ENTITIES = DeferredRegister.create(Registries.ENTITY_TYPE, PlayerDollAddon.MODID);
     
@@ -28,21 +25,9 @@ public class ModEntities {
             () -> DollEntityFactory.createDollEntityType("alex_doll", AlexDollEntity::new)
     );
     
-    // 动态注册的玩偶实体（从文件加载）
-    public static final Map<String, DeferredHolder<EntityType<?>, EntityType<DynamicDollEntity>>> DYNAMIC_DOLLS = new HashMap<>();
-    
-    /**
-     * 动态注册玩偶实体
-     * @param registryName 注册名称
-     * @return 注册的实体类型持有者
-     */
-    public static DeferredHolder<EntityType<?>, EntityType<DynamicDollEntity>> registerDynamicDoll(String registryName) {
-        DeferredHolder<EntityType<?>, EntityType<DynamicDollEntity>> holder = ENTITIES.register(
-                registryName,
-                () -> DollEntityFactory.createDollEntityType(registryName, DynamicDollEntity::new)
-        );
-        DYNAMIC_DOLLS.put(registryName, holder);
-        return holder;
-    }
+    // 动态玩偶实体（从文件加载的皮肤共用，皮肤由实体上保存的皮肤ID决定）
+    public static final DeferredHolder<EntityType<?>, EntityType<DynamicDollEntity>> DYNAMIC_DOLL = ENTITIES.register(
+            "dynamic_doll",
+            () -> DollEntityFactory.createDollEntityType("dynamic_doll", DynamicDollEntity::new)
+    );
 }
-
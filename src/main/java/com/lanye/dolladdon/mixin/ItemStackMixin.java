@@ -0,0 +1,25 @@
+package com.lanye.dolladdon.mixin;
+
+import com.lanye.dolladdon.util.DollSkinRegistry;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.nbt.Tag;
+import net.minecraft.world.item.ItemStack;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import java.util.Optional;
+
+/**
+ * 迁移旧版本的动态玩偶物品
+ * 注册表别名只能把 zzz_&lt;哈希值&gt; 映射到通用的动态玩偶物品，皮肤ID需要从原始NBT中的物品名称恢复
+ */
+@Mixin(ItemStack.class)
+public abstract class ItemStackMixin {
+    @Inject(method = "parse(Lnet/minecraft/core/HolderLookup$Provider;Lnet/minecraft/nbt/Tag;)Ljava/util/Optional;", at = @At("RETURN"))
+    private static void player_doll_addon$migrateLegacyDynamicDoll(HolderLookup.Provider lookupProvider, Tag tag,
+                                                                   CallbackInfoReturnable<Optional<ItemStack>> cir) {
+        cir.getReturnValue().ifPresent(stack -> DollSkinRegistry.migrateLegacyItem(stack, tag));
+    }
+}
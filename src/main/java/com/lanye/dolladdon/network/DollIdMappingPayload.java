@@ -0,0 +1,34 @@
+package com.lanye.dolladdon.network;
+
+import com.lanye.dolladdon.PlayerDollAddon;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.List;
+
+/**
+ * 姿态和动作ID映射（服务端 -> 客户端）
+ * 列表中的名称按顺序对应新分配的ID
+ * @param reset 是否先清除客户端已有的映射（玩家加入时发送完整映射）
+ * @param poses 新增的姿态名称
+ * @param actions 新增的动作名称
+ */
+public record DollIdMappingPayload(boolean reset, List<String> poses, List<String> actions) implements CustomPacketPayload {
+    public static final CustomPacketPayload.Type<DollIdMappingPayload> TYPE =
+            new CustomPacketPayload.Type<>(ResourceLocation.fromNamespaceAndPath(PlayerDollAddon.MODID, "id_mapping"));
+    
+    public static final StreamCodec<ByteBuf, DollIdMappingPayload> STREAM_CODEC = StreamCodec.composite(
+            ByteBufCodecs.BOOL, DollIdMappingPayload::reset,
+            ByteBufCodecs.STRING_UTF8.apply(ByteBufCodecs.list()), DollIdMappingPayload::poses,
+            ByteBufCodecs.STRING_UTF8.apply(ByteBufCodecs.list()), DollIdMappingPayload::actions,
+            DollIdMappingPayload::new
+    );
+    
+    @Override
+    public CustomPacketPayload.Type<DollIdMappingPayload> type() {
+        return TYPE;
+    }
+}
@@ -0,0 +1,34 @@
+package com.lanye.dolladdon.network;
+
+import com.lanye.dolladdon.PlayerDollAddon;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * 服务器姿态和动作集合的一个分块（服务端 -> 客户端）
+ * 数据较大时超过自定义数据包的大小上限，按分块发送，客户端收齐后再校验哈希
+ * @param hash 内容哈希值
+ * @param index 分块序号
+ * @param total 分块数量
+ * @param data 使用 DollRegistryCodec 编码的数据中的一段
+ */
+public record DollRegistryDataPayload(String hash, int index, int total, byte[] data) implements CustomPacketPayload {
+    public static final CustomPacketPayload.Type<DollRegistryDataPayload> TYPE =
+            new CustomPacketPayload.Type<>(ResourceLocation.fromNamespaceAndPath(PlayerDollAddon.MODID, "registry_data"));
+    
+    public static final StreamCodec<ByteBuf, DollRegistryDataPayload> STREAM_CODEC = StreamCodec.composite(
+            ByteBufCodecs.STRING_UTF8, DollRegistryDataPayload::hash,
+            ByteBufCodecs.VAR_INT, DollRegistryDataPayload::index,
+            ByteBufCodecs.VAR_INT, DollRegistryDataPayload::total,
+            ByteBufCodecs.BYTE_ARRAY, DollRegistryDataPayload::data,
+            DollRegistryDataPayload::new
+    );
+    
+    @Override
+    public CustomPacketPayload.Type<DollRegistryDataPayload> type() {
+        return TYPE;
+    }
+}
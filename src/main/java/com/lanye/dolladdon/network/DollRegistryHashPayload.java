@@ -0,0 +1,28 @@
+package com.lanye.dolladdon.network;
+
+import com.lanye.dolladdon.PlayerDollAddon;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * 服务器姿态和动作集合的内容哈希（服务端 -> 客户端）
+ * 客户端本地缓存中有相同哈希的数据时直接使用，否则回复 {@link DollRegistryRequestPayload} 请求完整数据
+ * @param hash 编码后内容的哈希值
+ */
+public record DollRegistryHashPayload(String hash) implements CustomPacketPayload {
+    public static final CustomPacketPayload.Type<DollRegistryHashPayload> TYPE =
+            new CustomPacketPayload.Type<>(ResourceLocation.fromNamespaceAndPath(PlayerDollAddon.MODID, "registry_hash"));
+    
+    public static final StreamCodec<ByteBuf, DollRegistryHashPayload> STREAM_CODEC = StreamCodec.composite(
+            ByteBufCodecs.STRING_UTF8, DollRegistryHashPayload::hash,
+            DollRegistryHashPayload::new
+    );
+    
+    @Override
+    public CustomPacketPayload.Type<DollRegistryHashPayload> type() {
+        return TYPE;
+    }
+}
@@ -0,0 +1,27 @@
+package com.lanye.dolladdon.network;
+
+import com.lanye.dolladdon.PlayerDollAddon;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * 请求服务器的姿态和动作集合（客户端 -> 服务端）
+ * @param hash 客户端缺少的内容哈希值
+ */
+public record DollRegistryRequestPayload(String hash) implements CustomPacketPayload {
+    public static final CustomPacketPayload.Type<DollRegistryRequestPayload> TYPE =
+            new CustomPacketPayload.Type<>(ResourceLocation.fromNamespaceAndPath(PlayerDollAddon.MODID, "registry_request"));
+    
+    public static final StreamCodec<ByteBuf, DollRegistryRequestPayload> STREAM_CODEC = StreamCodec.composite(
+            ByteBufCodecs.STRING_UTF8, DollRegistryRequestPayload::hash,
+            DollRegistryRequestPayload::new
+    );
+    
+    @Override
+    public CustomPacketPayload.Type<DollRegistryRequestPayload> type() {
+        return TYPE;
+    }
+}
@@ -0,0 +1,259 @@
+package com.lanye.dolladdon.network;
+
+import com.lanye.dolladdon.PlayerDollAddon;
+import com.lanye.dolladdon.util.DollRegistryCodec;
+import com.lanye.dolladdon.util.PoseActionManager;
+import net.minecraft.Util;
+import net.minecraft.server.level.ServerPlayer;
+import net.neoforged.neoforge.network.PacketDistributor;
+import net.neoforged.neoforge.network.handling.IPayloadContext;
+import org.slf4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 姿态和动作集合的同步
+ * 服务端在玩家加入和重新加载后发送内容哈希，客户端本地缓存中没有这个哈希时才请求完整数据，
+ * 完整数据分块传输，收到的数据按哈希保存在 player_doll/cache/poses 中，再次加入同一服务器时不需要重新传输
+ */
+public class DollRegistrySync {
+    private static final Logger LOGGER = PlayerDollAddon.LOGGER;
+    
+    // 客户端缓存目录（相对于游戏目录）
+    private static final String CACHE_DIR = "player_doll/cache/poses";
+    // 每个分块的大小
+    private static final int CHUNK_SIZE = 30 * 1024;
+    // 客户端接受的分块数量上限（约 30 MB）
+    private static final int MAX_CHUNKS = 1024;
+    
+    // 服务端编码后的数据（按资源版本号缓存）
+    private record Blob(long version, String hash, byte[] data) {
+    }
+    private static volatile Blob serverBlob;
+    // 服务端已经向每个连接发送过完整数据的哈希，同一个哈希只发送一次，只在服务端主线程访问
+    private static final Map<UUID, String> SENT = new HashMap<>();
+    
+    // 客户端等待的内容哈希和已经收到的分块，只在客户端主线程访问
+    private static String expectedHash;
+    private static byte[][] chunks;
+    private static int received;
+    // 收到新的哈希或断开连接时递增，后台解析完成后据此丢弃过期的结果
+    private static int generation;
+    
+    /**
+     * 向玩家发送服务器的内容哈希（服务端）
+     * 单人游戏和局域网主机与服务端读取同一个目录，不需要同步
+     * @param player 玩家
+     */
+    public static void sendHash(ServerPlayer player) {
+        if (player.connection.getConnection().isMemoryConnection()) {
+            return;
+        }
+        PacketDistributor.sendToPlayer(player, new DollRegistryHashPayload(getServerBlob().hash()));
+    }
+    
+    /**
+     * 获取编码后的服务器姿态和动作，资源版本号变化时重新编码
+     */
+    private static Blob getServerBlob() {
+        Blob blob = serverBlob;
+        PoseActionManager.Snapshot snapshot = PoseActionManager.get(false).getSnapshot();
+        if (blob == null || blob.version() != snapshot.version()) {
+            byte[] data = DollRegistryCodec.encode(snapshot.poses(), snapshot.actions());
+            blob = new Blob(snapshot.version(), DollRegistryCodec.hash(data), data);
+            serverBlob = blob;
+        }
+        return blob;
+    }
+    
+    /**
+     * 收到服务器的内容哈希（客户端）：缓存命中时直接使用，否则请求完整数据
+     * 缓存文件在IO线程读取、校验和解析，完成后回到主线程应用
+     */
+    public static void handleHash(DollRegistryHashPayload payload, IPayloadContext context) {
+        String hash = payload.hash();
+        expectedHash = hash;
+        chunks = null;
+        int current = ++generation;
+        CompletableFuture.supplyAsync(() -> {
+                    byte[] cached = readCache(hash);
+                    return cached != null ? decode(hash, cached) : null;
+                }, Util.ioPool())
+                .thenAcceptAsync(contents -> {
+                    // 读取期间服务器可能已经重新加载并发送了新的哈希
+                    if (current != generation) {
+                        return;
+                    }
+                    if (contents != null) {
+                        apply(contents);
+                        LOGGER.info("使用缓存的服务器姿态数据: {}", hash);
+                        expectedHash = null;
+                        return;
+                    }
+                    context.reply(new DollRegistryRequestPayload(hash));
+                }, context::enqueueWork);
+    }
+    
+    /**
+     * 客户端请求完整数据（服务端）：按分块发送
+     * 每个连接的同一个哈希只发送一次，重复的请求直接忽略
+     */
+    public static void handleRequest(DollRegistryRequestPayload payload, IPayloadContext context) {
+        Blob blob = getServerBlob();
+        UUID player = context.player().getUUID();
+        if (blob.hash().equals(SENT.get(player))) {
+            return;
+        }
+        // 请求期间服务器可能已经重新加载，只回复当前的哈希，由客户端重新检查缓存后再请求
+        if (!blob.hash().equals(payload.hash())) {
+            context.reply(new DollRegistryHashPayload(blob.hash()));
+            return;
+        }
+        SENT.put(player, blob.hash());
+        byte[] data = blob.data();
+        int total = Math.max(1, (data.length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        for (int i = 0; i < total; i++) {
+            int from = i * CHUNK_SIZE;
+            int to = Math.min(data.length, from + CHUNK_SIZE);
+            context.reply(new DollRegistryDataPayload(blob.hash(), i, total, Arrays.copyOfRange(data, from, to)));
+        }
+    }
+    
+    /**
+     * 收到数据分块（客户端）：全部收到后在后台线程校验哈希和解析，回到主线程使用，并写入缓存
+     */
+    public static void handleData(DollRegistryDataPayload payload, IPayloadContext context) {
+        String hash = payload.hash();
+        // 只接收正在等待的哈希，服务器重新加载前的数据直接丢弃
+        if (!hash.equals(expectedHash) || payload.total() <= 0 || payload.total() > MAX_CHUNKS
+                || payload.index() < 0 || payload.index() >= payload.total()) {
+            return;
+        }
+        if (chunks == null) {
+            chunks = new byte[payload.total()][];
+            received = 0;
+        }
+        if (chunks.length != payload.total() || chunks[payload.index()] != null) {
+            return;
+        }
+        chunks[payload.index()] = payload.data();
+        if (++received < chunks.length) {
+            return;
+        }
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] chunk : chunks) {
+            out.writeBytes(chunk);
+        }
+        byte[] data = out.toByteArray();
+        expectedHash = null;
+        chunks = null;
+        int current = generation;
+        CompletableFuture.supplyAsync(() -> {
+                    if (!hash.equals(DollRegistryCodec.hash(data))) {
+                        LOGGER.warn("服务器姿态数据的哈希值不匹配，已忽略: {}", hash);
+                        return null;
+                    }
+                    return decode(hash, data);
+                }, Util.backgroundExecutor())
+                .thenAcceptAsync(contents -> {
+                    if (contents == null || current != generation) {
+                        return;
+                    }
+                    apply(contents);
+                    Util.ioPool().execute(() -> writeCache(hash, data));
+                }, context::enqueueWork);
+    }
+    
+    /**
+     * 玩家断开连接时清除发送记录（服务端）
+     * @param player 玩家
+     */
+    public static void forget(ServerPlayer player) {
+        SENT.remove(player.getUUID());
+    }
+    
+    /**
+     * 断开连接时清除接收状态（客户端）
+     */
+    public static void reset() {
+        expectedHash = null;
+        chunks = null;
+        generation++;
+    }
+    
+    /**
+     * 解析数据并生成动作的姿态表（后台线程）
+     * @return 解析结果，失败时返回null
+     */
+    private static DollRegistryCodec.Contents decode(String hash, byte[] data) {
+        try {
+            DollRegistryCodec.Contents contents = DollRegistryCodec.decode(data);
+            return new DollRegistryCodec.Contents(contents.poses(), PoseActionManager.get(true).prepareActions(contents.actions()));
+        } catch (Exception e) {
+            LOGGER.warn("解析服务器姿态数据失败: {}", hash, e);
+            return null;
+        }
+    }
+    
+    private static void apply(DollRegistryCodec.Contents contents) {
+        PoseActionManager.get(true).applyRemote(contents.poses(), contents.actions());
+    }
+    
+    private static Path getCacheFile(String hash) {
+        Path gameDir;
+        try {
+            Class<?> fmlPathsClass = Class.forName("net.neoforged.fml.loading.FMLPaths");
+            java.lang.reflect.Method gameDirMethod = fmlPathsClass.getMethod("getGamePath");
+            gameDir = (Path) gameDirMethod.invoke(null);
+        } catch (Exception e) {
+            gameDir = Paths.get(".").toAbsolutePath().normalize();
+        }
+        // 哈希值只包含十六进制字符，可以直接作为文件名
+        return gameDir.resolve(CACHE_DIR).resolve(hash + ".bin");
+    }
+    
+    private static byte[] readCache(String hash) {
+        if (!hash.matches("[0-9a-f]+")) {
+            return null;
+        }
+        try {
+            byte[] data = Files.readAllBytes(getCacheFile(hash));
+            // 缓存文件损坏时重新请求
+            return hash.equals(DollRegistryCodec.hash(data)) ? data : null;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOGGER.warn("读取姿态缓存失败: {}", hash, e);
+            return null;
+        }
+    }
+    
+    private static void writeCache(String hash, byte[] data) {
+        try {
+            Path file = getCacheFile(hash);
+            Files.createDirectories(file.getParent());
+            // 先写入临时文件再原子移动，写入过程中崩溃不会留下不完整的缓存
+            Path temp = Files.createTempFile(file.getParent(), hash, ".tmp");
+            try {
+                Files.write(temp, data);
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("写入姿态缓存失败: {}", hash, e);
+        }
+    }
+}
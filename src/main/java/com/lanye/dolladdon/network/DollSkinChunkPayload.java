@@ -0,0 +1,34 @@
+package com.lanye.dolladdon.network;
+
+import com.lanye.dolladdon.PlayerDollAddon;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * 皮肤文件的一个分块（服务端 -> 客户端）
+ * 分块数量为0表示服务器没有这个皮肤
+ * @param hash 皮肤ID（PNG文件的MD5）
+ * @param index 分块序号
+ * @param total 分块数量
+ * @param data 分块内容
+ */
+public record DollSkinChunkPayload(String hash, int index, int total, byte[] data) implements CustomPacketPayload {
+    public static final CustomPacketPayload.Type<DollSkinChunkPayload> TYPE =
+            new CustomPacketPayload.Type<>(ResourceLocation.fromNamespaceAndPath(PlayerDollAddon.MODID, "skin_chunk"));
+    
+    public static final StreamCodec<ByteBuf, DollSkinChunkPayload> STREAM_CODEC = StreamCodec.composite(
+            ByteBufCodecs.STRING_UTF8, DollSkinChunkPayload::hash,
+            ByteBufCodecs.VAR_INT, DollSkinChunkPayload::index,
+            ByteBufCodecs.VAR_INT, DollSkinChunkPayload::total,
+            ByteBufCodecs.BYTE_ARRAY, DollSkinChunkPayload::data,
+            DollSkinChunkPayload::new
+    );
+    
+    @Override
+    public CustomPacketPayload.Type<DollSkinChunkPayload> type() {
+        return TYPE;
+    }
+}
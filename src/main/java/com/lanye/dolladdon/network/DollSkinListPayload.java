@@ -0,0 +1,45 @@
+package com.lanye.dolladdon.network;
+
+import com.lanye.dolladdon.PlayerDollAddon;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.List;
+
+/**
+ * 服务器上的玩偶皮肤列表（服务端 -> 客户端）
+ * 客户端只请求本地和下载缓存中都没有的皮肤
+ * @param skins 皮肤列表
+ */
+public record DollSkinListPayload(List<Skin> skins) implements CustomPacketPayload {
+    public static final CustomPacketPayload.Type<DollSkinListPayload> TYPE =
+            new CustomPacketPayload.Type<>(ResourceLocation.fromNamespaceAndPath(PlayerDollAddon.MODID, "skin_list"));
+    
+    /**
+     * 皮肤
+     * @param hash 皮肤ID（PNG文件的MD5）
+     * @param displayName 显示名称
+     * @param alexModel 是否为Alex模型（细手臂）
+     */
+    public record Skin(String hash, String displayName, boolean alexModel) {
+        public static final StreamCodec<ByteBuf, Skin> STREAM_CODEC = StreamCodec.composite(
+                ByteBufCodecs.STRING_UTF8, Skin::hash,
+                ByteBufCodecs.STRING_UTF8, Skin::displayName,
+                ByteBufCodecs.BOOL, Skin::alexModel,
+                Skin::new
+        );
+    }
+    
+    public static final StreamCodec<ByteBuf, DollSkinListPayload> STREAM_CODEC = StreamCodec.composite(
+            Skin.STREAM_CODEC.apply(ByteBufCodecs.list()), DollSkinListPayload::skins,
+            DollSkinListPayload::new
+    );
+    
+    @Override
+    public CustomPacketPayload.Type<DollSkinListPayload> type() {
+        return TYPE;
+    }
+}
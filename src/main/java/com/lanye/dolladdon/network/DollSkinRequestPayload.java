@@ -0,0 +1,27 @@
+package com.lanye.dolladdon.network;
+
+import com.lanye.dolladdon.PlayerDollAddon;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * 请求皮肤文件（客户端 -> 服务端）
+ * @param hash 皮肤ID（PNG文件的MD5）
+ */
+public record DollSkinRequestPayload(String hash) implements CustomPacketPayload {
+    public static final CustomPacketPayload.Type<DollSkinRequestPayload> TYPE =
+            new CustomPacketPayload.Type<>(ResourceLocation.fromNamespaceAndPath(PlayerDollAddon.MODID, "skin_request"));
+    
+    public static final StreamCodec<ByteBuf, DollSkinRequestPayload> STREAM_CODEC = StreamCodec.composite(
+            ByteBufCodecs.STRING_UTF8, DollSkinRequestPayload::hash,
+            DollSkinRequestPayload::new
+    );
+    
+    @Override
+    public CustomPacketPayload.Type<DollSkinRequestPayload> type() {
+        return TYPE;
+    }
+}
@@ -0,0 +1,392 @@
+package com.lanye.dolladdon.network;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.lanye.dolladdon.PlayerDollAddon;
+import com.lanye.dolladdon.config.DollClientConfig;
+import com.lanye.dolladdon.util.DollSkinRegistry;
+import com.lanye.dolladdon.util.DynamicDollLoader;
+import com.lanye.dolladdon.util.DynamicTextureManager;
+import net.minecraft.Util;
+import net.minecraft.server.level.ServerPlayer;
+import net.neoforged.neoforge.network.PacketDistributor;
+import net.neoforged.neoforge.network.handling.IPayloadContext;
+import org.slf4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 玩偶皮肤的分发
+ * 服务端在玩家加入时发送皮肤列表，客户端只请求本地和下载缓存中都没有的皮肤，
+ * 同时进行的请求数量有上限；皮肤文件分块传输，按MD5保存在 player_doll/cache/skins 中
+ * 服务端对每个连接的请求做限制：同一个皮肤只发送一次，同时读取的数量有上限，文件在IO线程读取并缓存
+ */
+public class DollSkinSync {
+    private static final Logger LOGGER = PlayerDollAddon.LOGGER;
+    
+    // 客户端下载缓存目录（相对于游戏目录）
+    private static final String CACHE_DIR = "player_doll/cache/skins";
+    private static volatile Path cacheDir;
+    // 每个分块的大小
+    private static final int CHUNK_SIZE = 30 * 1024;
+    // 服务端允许发送的皮肤文件大小上限
+    private static final long MAX_SKIN_BYTES = 4L * 1024 * 1024;
+    // 客户端接受的分块数量上限（按文件大小上限计算）
+    private static final int MAX_CHUNKS = (int) ((MAX_SKIN_BYTES + CHUNK_SIZE - 1) / CHUNK_SIZE);
+    // 服务端每个连接同时读取的皮肤数量上限（不小于客户端配置的最大值）
+    private static final int MAX_READS_PER_PLAYER = 64;
+    // 服务端皮肤文件内容缓存的总大小上限
+    private static final long SERVER_CACHE_LIMIT = 16L * 1024 * 1024;
+    
+    // 客户端下载状态，只在客户端主线程访问
+    private static final Deque<DollSkinListPayload.Skin> QUEUE = new ArrayDeque<>();
+    private static final Map<String, Download> IN_FLIGHT = new HashMap<>();
+    // 断开连接时递增，之前的连接中还没有完成的IO任务不再生效
+    private static int session;
+    
+    // 服务端每个连接的请求状态，只在服务端主线程访问
+    private static final Map<UUID, Requests> REQUESTS = new HashMap<>();
+    private static final Cache<String, byte[]> SERVER_CACHE = CacheBuilder.newBuilder()
+            .maximumWeight(SERVER_CACHE_LIMIT)
+            .weigher((String hash, byte[] bytes) -> bytes.length)
+            .build();
+    
+    /**
+     * 正在下载的皮肤
+     */
+    private static class Download {
+        private final DollSkinListPayload.Skin skin;
+        private byte[][] chunks;
+        private int received;
+    
+        private Download(DollSkinListPayload.Skin skin) {
+            this.skin = skin;
+        }
+    }
+    
+    /**
+     * 一个连接已经开始发送的皮肤和正在读取的数量
+     * 只记录本地存在并且已经开始读取的皮肤，数量不会超过服务器的皮肤数量
+     */
+    private static class Requests {
+        private final Set<String> requested = new HashSet<>();
+        private int reading;
+    }
+    
+    /**
+     * 向玩家发送服务器的皮肤列表（服务端）
+     * @param player 玩家
+     */
+    public static void sendSkinList(ServerPlayer player) {
+        List<DollSkinListPayload.Skin> skins = new ArrayList<>();
+        for (DynamicDollLoader.DollInfo info : DollSkinRegistry.getAll()) {
+            skins.add(new DollSkinListPayload.Skin(info.getSkinId(), info.getDisplayName(), info.isAlexModel()));
+        }
+        if (!skins.isEmpty()) {
+            PacketDistributor.sendToPlayer(player, new DollSkinListPayload(skins));
+        }
+    }
+    
+    /**
+     * 收到皮肤列表（客户端）：已有的皮肤直接使用，缺少的加入下载队列
+     */
+    public static void handleSkinList(DollSkinListPayload payload, IPayloadContext context) {
+        boolean force = DollClientConfig.SKIN_FORCE_DOWNLOAD.get();
+        List<DollSkinListPayload.Skin> candidates = new ArrayList<>();
+        for (DollSkinListPayload.Skin skin : payload.skins()) {
+            if (!isValidHash(skin.hash())) {
+                continue;
+            }
+            if (!force && DollSkinRegistry.get(skin.hash()) != null) {
+                continue;
+            }
+            candidates.add(skin);
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+        
+        // 在IO线程检查下载缓存，完成后回到主线程注册已有的皮肤并请求缺少的皮肤
+        int currentSession = session;
+        CompletableFuture.supplyAsync(() -> force ? Map.<String, Long>of() : findCached(candidates), Util.ioPool())
+                .thenAcceptAsync(cached -> {
+                    if (currentSession != session) {
+                        return;
+                    }
+                    int missing = 0;
+                    for (DollSkinListPayload.Skin skin : candidates) {
+                        Long size = cached.get(skin.hash());
+                        if (size != null) {
+                            register(skin, getCacheFile(skin.hash()), size);
+                        } else if (!IN_FLIGHT.containsKey(skin.hash())) {
+                            QUEUE.add(skin);
+                            missing++;
+                        }
+                    }
+                    if (missing > 0) {
+                        LOGGER.info("需要从服务器下载 {} 个玩偶皮肤", missing);
+                    }
+                    requestMore(context);
+                }, context::enqueueWork);
+    }
+    
+    /**
+     * 客户端请求皮肤文件（服务端）：只发送皮肤注册表中的文件，按分块发送
+     */
+    public static void handleRequest(DollSkinRequestPayload payload, IPayloadContext context) {
+        String hash = payload.hash();
+        Requests requests = REQUESTS.computeIfAbsent(context.player().getUUID(), uuid -> new Requests());
+        // 同一个连接中每个皮肤只发送一次，重复的请求直接忽略
+        if (requests.requested.contains(hash)) {
+            return;
+        }
+        // 只发送本地扫描到的皮肤，不转发下载缓存中的文件
+        DynamicDollLoader.DollInfo info = DollSkinRegistry.getLocal(hash);
+        if (info == null || requests.reading >= MAX_READS_PER_PLAYER) {
+            // 通知客户端放弃这个皮肤，释放请求名额；没有记录为已发送，之后可以重新请求
+            context.reply(new DollSkinChunkPayload(hash, 0, 0, new byte[0]));
+            return;
+        }
+        
+        // 文件在IO线程读取，完成后回到主线程发送
+        requests.requested.add(hash);
+        requests.reading++;
+        CompletableFuture.supplyAsync(() -> readSkin(info), Util.ioPool())
+                .thenAcceptAsync(data -> {
+                    requests.reading--;
+                    if (data == null) {
+                        requests.requested.remove(hash);
+                        context.reply(new DollSkinChunkPayload(hash, 0, 0, new byte[0]));
+                        return;
+                    }
+                    int total = Math.max(1, (data.length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+                    for (int i = 0; i < total; i++) {
+                        int from = i * CHUNK_SIZE;
+                        int to = Math.min(data.length, from + CHUNK_SIZE);
+                        context.reply(new DollSkinChunkPayload(hash, i, total, Arrays.copyOfRange(data, from, to)));
+                    }
+                }, context::enqueueWork);
+    }
+    
+    /**
+     * 读取本地皮肤文件（IO线程），内容按皮肤ID缓存
+     * @return 文件内容，文件过大或读取失败时返回null
+     */
+    private static byte[] readSkin(DynamicDollLoader.DollInfo info) {
+        try {
+            return SERVER_CACHE.get(info.getSkinId(), () -> {
+                if (Files.size(info.getFilePath()) > MAX_SKIN_BYTES) {
+                    throw new IOException("皮肤文件过大");
+                }
+                return Files.readAllBytes(info.getFilePath());
+            });
+        } catch (ExecutionException e) {
+            LOGGER.warn("读取玩偶皮肤失败: {}", info.getFilePath(), e.getCause());
+            return null;
+        }
+    }
+    
+    /**
+     * 玩家断开连接时清除请求状态（服务端）
+     * @param player 玩家
+     */
+    public static void forget(ServerPlayer player) {
+        REQUESTS.remove(player.getUUID());
+    }
+    
+    /**
+     * 收到皮肤分块（客户端）：全部收到后校验MD5，写入下载缓存并注册皮肤
+     */
+    public static void handleChunk(DollSkinChunkPayload payload, IPayloadContext context) {
+        Download download = IN_FLIGHT.get(payload.hash());
+        if (download == null) {
+            return;
+        }
+        // 分块数量由服务器决定，超过文件大小上限对应的数量时放弃这个皮肤，不按这个数量分配数组
+        if (payload.total() <= 0 || payload.total() > MAX_CHUNKS || payload.index() < 0 || payload.index() >= payload.total()
+                || payload.data().length > CHUNK_SIZE) {
+            IN_FLIGHT.remove(payload.hash());
+            requestMore(context);
+            return;
+        }
+        if (download.chunks == null) {
+            download.chunks = new byte[payload.total()][];
+        }
+        if (download.chunks.length != payload.total() || download.chunks[payload.index()] != null) {
+            return;
+        }
+        download.chunks[payload.index()] = payload.data();
+        if (++download.received < download.chunks.length) {
+            return;
+        }
+    
+        IN_FLIGHT.remove(payload.hash());
+        finish(download, context);
+        requestMore(context);
+    }
+    
+    /**
+     * 在IO线程拼接、校验并写入下载缓存，完成后回到主线程注册皮肤
+     */
+    private static void finish(Download download, IPayloadContext context) {
+        DollSkinListPayload.Skin skin = download.skin;
+        byte[][] chunks = download.chunks;
+        int currentSession = session;
+        CompletableFuture.supplyAsync(() -> save(skin.hash(), chunks), Util.ioPool())
+                .thenAcceptAsync(size -> {
+                    if (size >= 0 && currentSession == session) {
+                        register(skin, getCacheFile(skin.hash()), size);
+                    }
+                }, context::enqueueWork);
+    }
+    
+    /**
+     * 拼接分块并校验MD5，通过后写入下载缓存
+     * 先写入临时文件再原子移动，缓存目录中只会出现完整的文件
+     * @return 文件大小，校验或写入失败时返回-1
+     */
+    private static long save(String hash, byte[][] chunks) {
+        byte[] data = assemble(hash, chunks);
+        if (data == null) {
+            LOGGER.warn("下载的玩偶皮肤校验失败，已丢弃: {}", hash);
+            return -1;
+        }
+        try {
+            Path cacheFile = getCacheFile(hash);
+            Files.createDirectories(cacheFile.getParent());
+            Path temp = Files.createTempFile(cacheFile.getParent(), hash, ".tmp");
+            try {
+                Files.write(temp, data);
+                Files.move(temp, cacheFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            return data.length;
+        } catch (IOException e) {
+            LOGGER.warn("保存下载的玩偶皮肤失败: {}", hash, e);
+            return -1;
+        }
+    }
+    
+    /**
+     * 按顺序拼接分块并校验MD5
+     * @param hash 皮肤ID（期望的MD5）
+     * @param chunks 全部分块
+     * @return 文件内容，MD5不匹配时返回null
+     */
+    static byte[] assemble(String hash, byte[][] chunks) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] chunk : chunks) {
+            out.writeBytes(chunk);
+        }
+        byte[] data = out.toByteArray();
+        return hash.equals(md5(data)) ? data : null;
+    }
+    
+    /**
+     * 在请求数量上限内继续请求队列中的皮肤
+     */
+    private static void requestMore(IPayloadContext context) {
+        int limit = DollClientConfig.SKIN_DOWNLOADS_IN_FLIGHT.get();
+        while (IN_FLIGHT.size() < limit && !QUEUE.isEmpty()) {
+            DollSkinListPayload.Skin skin = QUEUE.poll();
+            IN_FLIGHT.put(skin.hash(), new Download(skin));
+            context.reply(new DollSkinRequestPayload(skin.hash()));
+        }
+    }
+    
+    /**
+     * 注册下载缓存中的皮肤，纹理按皮肤ID读取缓存文件
+     */
+    private static void register(DollSkinListPayload.Skin skin, Path file, long size) {
+        DynamicDollLoader.DollInfo info = DynamicDollLoader.createDollInfo(skin.hash(), skin.displayName(), skin.alexModel(), file);
+        if (info == null) {
+            return;
+        }
+        DynamicTextureManager.registerRemote(info.getTextureLocation(), new DynamicTextureManager.TextureEntry(file, size));
+        DollSkinRegistry.registerRemote(info);
+    }
+    
+    /**
+     * 断开连接时清除下载状态和下载的皮肤（客户端）
+     */
+    public static void reset() {
+        session++;
+        QUEUE.clear();
+        IN_FLIGHT.clear();
+        DollSkinRegistry.clearRemote();
+        DynamicTextureManager.clearRemote();
+    }
+    
+    /**
+     * 查找下载缓存中已有的皮肤（IO线程）
+     * 缓存按MD5命名且只会原子地写入完整的文件，文件存在且大小合理即可使用，不再重新计算哈希
+     * @return 皮肤ID到文件大小的映射
+     */
+    private static Map<String, Long> findCached(List<DollSkinListPayload.Skin> skins) {
+        Map<String, Long> cached = new HashMap<>();
+        for (DollSkinListPayload.Skin skin : skins) {
+            Path file = getCacheFile(skin.hash());
+            try {
+                long size = Files.size(file);
+                if (size > 0 && size <= MAX_SKIN_BYTES) {
+                    cached.put(skin.hash(), size);
+                }
+            } catch (IOException e) {
+                // 文件不存在，需要下载
+            }
+        }
+        return cached;
+    }
+    
+    // 皮肤ID同时用作缓存文件名，只接受MD5格式
+    private static boolean isValidHash(String hash) {
+        return hash.length() == 32 && hash.chars().allMatch(c -> (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'));
+    }
+    
+    private static String md5(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 算法不可用", e);
+        }
+    }
+    
+    private static Path getCacheFile(String hash) {
+        // 皮肤列表可能有几千个皮肤，缓存目录只查找一次
+        Path dir = cacheDir;
+        if (dir == null) {
+            Path gameDir;
+            try {
+                Class<?> fmlPathsClass = Class.forName("net.neoforged.fml.loading.FMLPaths");
+                java.lang.reflect.Method gameDirMethod = fmlPathsClass.getMethod("getGamePath");
+                gameDir = (Path) gameDirMethod.invoke(null);
+            } catch (Exception e) {
+                gameDir = Paths.get(".").toAbsolutePath().normalize();
+            }
+            dir = gameDir.resolve(CACHE_DIR);
+            cacheDir = dir;
+        }
+        return dir.resolve(hash + ".png");
+    }
+}
@@ -0,0 +1,74 @@
+package com.lanye.dolladdon.network;
+
+import com.lanye.dolladdon.PlayerDollAddon;
+import com.lanye.dolladdon.util.DollIdRegistry;
+import net.minecraft.server.level.ServerPlayer;
+import net.neoforged.bus.api.SubscribeEvent;
+import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.event.OnDatapackSyncEvent;
+import net.neoforged.neoforge.event.entity.player.PlayerEvent;
+import net.neoforged.neoforge.event.server.ServerStoppedEvent;
+import net.neoforged.neoforge.network.PacketDistributor;
+import net.neoforged.neoforge.network.event.RegisterPayloadHandlersEvent;
+import net.neoforged.neoforge.network.registration.PayloadRegistrar;
+
+/**
+ * 网络数据包注册和同步
+ */
+@EventBusSubscriber(modid = PlayerDollAddon.MODID)
+public class ModNetwork {
+    // 协议版本，数据包格式变化时修改
+    private static final String PROTOCOL_VERSION = "2";
+    
+    @SubscribeEvent
+    public static void onRegisterPayloadHandlers(RegisterPayloadHandlersEvent event) {
+        PayloadRegistrar registrar = event.registrar(PROTOCOL_VERSION);
+        // 处理器默认在主线程执行
+        registrar.playToClient(DollIdMappingPayload.TYPE, DollIdMappingPayload.STREAM_CODEC,
+                (payload, context) -> DollIdRegistry.get(true).apply(payload));
+        registrar.playToClient(DollRegistryHashPayload.TYPE, DollRegistryHashPayload.STREAM_CODEC, DollRegistrySync::handleHash);
+        registrar.playToServer(DollRegistryRequestPayload.TYPE, DollRegistryRequestPayload.STREAM_CODEC, DollRegistrySync::handleRequest);
+        registrar.playToClient(DollRegistryDataPayload.TYPE, DollRegistryDataPayload.STREAM_CODEC, DollRegistrySync::handleData);
+        registrar.playToClient(DollSkinListPayload.TYPE, DollSkinListPayload.STREAM_CODEC, DollSkinSync::handleSkinList);
+        registrar.playToServer(DollSkinRequestPayload.TYPE, DollSkinRequestPayload.STREAM_CODEC, DollSkinSync::handleRequest);
+        registrar.playToClient(DollSkinChunkPayload.TYPE, DollSkinChunkPayload.STREAM_CODEC, DollSkinSync::handleChunk);
+    }
+    
+    /**
+     * 玩家加入和执行 /reload 后同步服务器的姿态和动作
+     */
+    @SubscribeEvent
+    public static void onDatapackSync(OnDatapackSyncEvent event) {
+        event.getRelevantPlayers().forEach(DollRegistrySync::sendHash);
+    }
+    
+    /**
+     * 玩家加入时发送完整的姿态和动作ID映射，以及服务器的皮肤列表
+     */
+    @SubscribeEvent
+    public static void onPlayerLoggedIn(PlayerEvent.PlayerLoggedInEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) {
+            PacketDistributor.sendToPlayer(player, DollIdRegistry.get(false).createFullPayload());
+            DollSkinSync.sendSkinList(player);
+        }
+    }
+    
+    /**
+     * 玩家离开时清除皮肤和姿态数据的请求状态
+     */
+    @SubscribeEvent
+    public static void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) {
+            DollSkinSync.forget(player);
+            DollRegistrySync.forget(player);
+        }
+    }
+    
+    /**
+     * 服务器关闭后清除ID映射，下次启动重新分配
+     */
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        DollIdRegistry.get(false).clear();
+    }
+}
@@ -23,6 +23,9 @@ import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 /**
  * 动作加载器
@@ -159,21 +162,12 @@ public class ActionLoader {
                 .filter(path -> path.toString().endsWith(".json"))
                 .filter(Files::isRegularFile)
                 .forEach(actionFile -> {
-                    try {
-                        String fileName = actionFile.getFileName().toString();
-                        String name = fileName.substring(0, fileName.length() - ".json".length());
-                        
-                        try (InputStreamReader reader = new InputStreamReader(
-                                Files.newInputStream(actionFile), StandardCharsets.UTF_8)) {
-                            JsonObject json = GSON.fromJson(reader, JsonObject.class);
-                            // 解析动作时，如果引用了姿态，需要从文件系统加载
-                            DollAction action = parseActionFromFileSystem(json, actionsDir.getParent().resolve("poses"));
-                            if (action != null) {
-                                actions.put(name, action);
-                            }
-                        }
-                    } catch (Exception e) {
-                        LOGGER.error("从文件系统加载动作文件失败: {}", actionFile, e);
+                    String fileName = actionFile.getFileName().toString();
+                    String name = fileName.substring(0, fileName.length() - ".json".length());
+                    
+                    DollAction action = loadActionFromFileSystem(actionFile);
+                    if (action != null) {
+                        actions.put(name, action);
                     }
                 });
         } catch (Exception e) {
@@ -183,6 +177,28 @@ public class ActionLoader {
         return actions;
     }
     
+    /**
+     * 从文件系统加载单个动作文件
+     * 引用的姿态从同级的 poses 目录加载
+     * @param actionFile 动作文件路径
+     * @return 加载的动作，如果失败返回null
+     */
+    public static DollAction loadActionFromFileSystem(Path actionFile) {
+        if (!Files.isRegularFile(actionFile)) {
+            return null;
+        }
+        
+        try (InputStreamReader reader = new InputStreamReader(
+                Files.newInputStream(actionFile), StandardCharsets.UTF_8)) {
+            JsonObject json = GSON.fromJson(reader, JsonObject.class);
+            // 解析动作时，如果引用了姿态，需要从文件系统加载
+            return parseActionFromFileSystem(json, actionFile.getParent().getParent().resolve("poses"));
+        } catch (Exception e) {
+            LOGGER.error("从文件系统加载动作文件失败: {}", actionFile, e);
+            return null;
+        }
+    }
+    
     /**
      * 从文件系统解析动作（用于处理姿态引用）
      */
@@ -230,48 +246,66 @@ public class ActionLoader {
      * 加载所有动作（从 ResourceManager 和文件系统）
      */
     public static Map<String, DollAction> loadAllActions(ResourceManager resourceManager) {
-        Map<String, DollAction> actions = new HashMap<>();
-        
-        // 首先从 ResourceManager 加载（资源包中的动作）
-        try {
-            var resources = resourceManager.listResources("actions", path -> path.getPath().endsWith(".json"));
+        return loadAllActionsAsync(resourceManager, Runnable::run).join();
+    }
+    
+    /**
+     * 异步加载所有动作（从 ResourceManager 和文件系统）
+     * 每个动作文件作为单独的任务在执行器上并行解析
+     * @param resourceManager 资源管理器
+     * @param executor 解析文件使用的执行器
+     * @return 加载的动作映射（文件系统中的动作覆盖资源包中的同名动作）
+     */
+    public static CompletableFuture<Map<String, DollAction>> loadAllActionsAsync(ResourceManager resourceManager, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            Map<String, CompletableFuture<DollAction>> tasks = new HashMap<>();
             
-            for (var entry : resources.entrySet()) {
-                ResourceLocation location = entry.getKey();
-                String name = location.getPath().substring("actions/".length(), location.getPath().length() - ".json".length());
+            // 首先从 ResourceManager 加载（资源包中的动作）
+            try {
+                var resources = resourceManager.listResources("actions", path -> path.getPath().endsWith(".json"));
                 
-                try {
-                    DollAction action = loadAction(resourceManager, name);
-                    if (action != null) {
-                        actions.put(name, action);
+                for (ResourceLocation location : resources.keySet()) {
+                    String name = location.getPath().substring("actions/".length(), location.getPath().length() - ".json".length());
+                    tasks.put(name, CompletableFuture.supplyAsync(() -> loadAction(resourceManager, name), executor));
+                }
+            } catch (Exception e) {
+                LOGGER.error("扫描动作资源失败", e);
+            }
+            
+            // 然后从文件系统加载（文件系统中的动作会覆盖资源包中的同名动作）
+            Path actionsDir = getGameDir().resolve(PlayerDollAddon.ACTIONS_DIR);
+            if (Files.isDirectory(actionsDir)) {
+                try (Stream<Path> paths = Files.list(actionsDir)) {
+                    for (Path actionFile : paths.filter(path -> path.toString().endsWith(".json")).toList()) {
+                        String fileName = actionFile.getFileName().toString();
+                        String name = fileName.substring(0, fileName.length() - ".json".length());
+                        tasks.put(name, CompletableFuture.supplyAsync(() -> loadActionFromFileSystem(actionFile), executor));
                     }
                 } catch (Exception e) {
-                    LOGGER.error("加载动作文件失败: {}", location, e);
+                    LOGGER.error("扫描文件系统动作目录失败: {}", actionsDir, e);
                 }
             }
-        } catch (Exception e) {
-            LOGGER.error("扫描动作资源失败", e);
-        }
-        
-        // 然后从文件系统加载（文件系统中的动作会覆盖资源包中的同名动作）
+            return tasks;
+        }, executor).thenCompose(tasks -> CompletableFuture.allOf(tasks.values().toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    Map<String, DollAction> actions = new HashMap<>();
+                    tasks.forEach((name, task) -> {
+                        DollAction action = task.join();
+                        if (action != null) {
+                            actions.put(name, action);
+                        }
+                    });
+                    return actions;
+                }));
+    }
+    
+    private static Path getGameDir() {
         try {
-            Path gameDir;
-            try {
-                Class<?> fmlPathsClass = Class.forName("net.neoforged.fml.loading.FMLPaths");
-                java.lang.reflect.Method gameDirMethod = fmlPathsClass.getMethod("getGamePath");
-                gameDir = (Path) gameDirMethod.invoke(null);
-            } catch (Exception e) {
-                gameDir = java.nio.file.Paths.get(".").toAbsolutePath().normalize();
-            }
-            
-            Path actionsDir = gameDir.resolve(PlayerDollAddon.ACTIONS_DIR);
-            Map<String, DollAction> fileSystemActions = loadActionsFromFileSystem(actionsDir);
-            actions.putAll(fileSystemActions); // 文件系统的动作会覆盖资源包中的同名动作
+            Class<?> fmlPathsClass = Class.forName("net.neoforged.fml.loading.FMLPaths");
+            java.lang.reflect.Method gameDirMethod = fmlPathsClass.getMethod("getGamePath");
+            return (Path) gameDirMethod.invoke(null);
         } catch (Exception e) {
-            LOGGER.error("从文件系统加载动作失败", e);
+            return java.nio.file.Paths.get(".").toAbsolutePath().normalize();
         }
-        
-        return actions;
     }
 }
-
@@ -0,0 +1,259 @@
+package com.lanye.dolladdon.util;
+
+import com.lanye.dolladdon.PlayerDollAddon;
+import com.lanye.dolladdon.api.action.DollAction;
+import com.lanye.dolladdon.api.pose.DollPose;
+import net.minecraft.server.MinecraftServer;
+import net.neoforged.neoforge.server.ServerLifecycleHooks;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 玩偶文件监视器
+ * 在后台线程监视皮肤、姿态和动作目录，文件变化平息后只重新解析变化的文件并发布新的快照，
+ * 无需重启游戏或按 F3+T 重新加载资源
+ */
+public class DollFileWatcher {
+    private static final Logger LOGGER = PlayerDollAddon.LOGGER;
+    
+    // 最后一次文件事件之后等待的时间，编辑器保存时通常会连续触发多个事件
+    private static final long DEBOUNCE_MILLIS = 500;
+    
+    private static Thread thread;
+    private static WatchService watchService;
+    
+    private final Path pngDir;
+    private final Path posesDir;
+    private final Path actionsDir;
+    // 姿态和动作的变化在这个执行器上应用（客户端主线程）
+    private final Executor mainThread;
+    private final Map<WatchKey, Path> watchedDirs = new HashMap<>();
+    
+    // 等待处理的变化
+    private boolean skinsChanged;
+    private final Set<Path> changedPoseFiles = new LinkedHashSet<>();
+    private final Set<Path> changedActionFiles = new LinkedHashSet<>();
+    
+    private DollFileWatcher(Path gameDir, Executor mainThread) {
+        this.pngDir = gameDir.resolve(PlayerDollAddon.PNG_DIR).normalize();
+        this.posesDir = gameDir.resolve(PlayerDollAddon.POSES_DIR).normalize();
+        this.actionsDir = gameDir.resolve(PlayerDollAddon.ACTIONS_DIR).normalize();
+        this.mainThread = mainThread;
+    }
+    
+    /**
+     * 启动文件监视器（重复调用时忽略）
+     * @param gameDir 游戏目录
+     * @param mainThread 应用姿态和动作变化的执行器
+     */
+    public static synchronized void start(Path gameDir, Executor mainThread) {
+        if (thread != null) {
+            return;
+        }
+        
+        DollFileWatcher watcher = new DollFileWatcher(gameDir, mainThread);
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            // 皮肤目录支持子目录，姿态和动作目录只加载第一层文件
+            watcher.registerTree(watcher.pngDir);
+            watcher.register(watcher.posesDir);
+            watcher.register(watcher.actionsDir);
+        } catch (IOException e) {
+            LOGGER.error("启动玩偶文件监视器失败", e);
+            stop();
+            return;
+        }
+        
+        thread = new Thread(watcher::run, "Doll-File-Watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * 停止文件监视器
+     */
+    public static synchronized void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                LOGGER.warn("关闭玩偶文件监视器失败", e);
+            }
+            watchService = null;
+        }
+        thread = null;
+    }
+    
+    private void register(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            Files.createDirectories(dir);
+        }
+        WatchKey key = dir.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        watchedDirs.put(key, dir);
+    }
+    
+    private void registerTree(Path root) throws IOException {
+        if (!Files.isDirectory(root)) {
+            Files.createDirectories(root);
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path dir : paths.filter(Files::isDirectory).toList()) {
+                register(dir);
+            }
+        }
+    }
+    
+    private void run() {
+        WatchService service = watchService;
+        try {
+            while (true) {
+                // 有待处理的变化时只等待防抖时间，超时说明文件已经平息
+                WatchKey key = hasPendingChanges()
+                        ? service.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)
+                        : service.take();
+                if (key == null) {
+                    flush();
+                    continue;
+                }
+                
+                Path dir = watchedDirs.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (dir == null) {
+                        continue;
+                    }
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // 事件丢失，无法确定变化的文件，整个目录重新处理
+                        handleOverflow(dir);
+                        continue;
+                    }
+                    handleChange(dir.resolve((Path) event.context()), event.kind());
+                }
+                if (!key.reset()) {
+                    watchedDirs.remove(key);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // 监视器已停止
+        }
+    }
+    
+    private void handleChange(Path path, WatchEvent.Kind<?> kind) {
+        if (path.startsWith(pngDir)) {
+            // 新建的子目录也需要监视
+            if (kind == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                try {
+                    registerTree(path);
+                } catch (IOException e) {
+                    LOGGER.warn("无法监视新建的皮肤目录: {}", path, e);
+                }
+                skinsChanged = true;
+            } else if (path.toString().toLowerCase().endsWith(".png")) {
+                skinsChanged = true;
+            }
+        } else if (path.toString().endsWith(".json")) {
+            if (path.getParent().equals(posesDir)) {
+                changedPoseFiles.add(path);
+            } else if (path.getParent().equals(actionsDir)) {
+                changedActionFiles.add(path);
+            }
+        }
+    }
+    
+    private void handleOverflow(Path dir) {
+        if (dir.startsWith(pngDir)) {
+            skinsChanged = true;
+            return;
+        }
+        Set<Path> target = dir.equals(posesDir) ? changedPoseFiles : changedActionFiles;
+        try (Stream<Path> paths = Files.list(dir)) {
+            paths.filter(path -> path.toString().endsWith(".json")).forEach(target::add);
+        } catch (IOException e) {
+            LOGGER.warn("重新列出目录失败: {}", dir, e);
+        }
+    }
+    
+    private boolean hasPendingChanges() {
+        return skinsChanged || !changedPoseFiles.isEmpty() || !changedActionFiles.isEmpty();
+    }
+    
+    /**
+     * 处理积累的变化：只重新解析变化的文件，然后发布新的快照
+     */
+    private void flush() {
+        if (skinsChanged) {
+            skinsChanged = false;
+            // 扫描时按清单复用没有变化的文件，只有变化的文件会重新计算哈希值，同时发布新的纹理索引
+            DynamicDollLoader.invalidateScan(PlayerDollAddon.PNG_DIR);
+            List<DynamicDollLoader.DollInfo> infos = DynamicDollLoader.scanDirectory(PlayerDollAddon.PNG_DIR);
+            DollSkinRegistry.publish(infos);
+        }
+        
+        if (changedPoseFiles.isEmpty() && changedActionFiles.isEmpty()) {
+            return;
+        }
+        
+        Map<String, DollPose> changedPoses = new HashMap<>();
+        Set<String> removedPoses = new HashSet<>();
+        for (Path file : changedPoseFiles) {
+            DollPose pose = PoseLoader.loadPoseFromFileSystem(file);
+            if (pose != null) {
+                changedPoses.put(getName(file), pose);
+            } else if (!Files.exists(file)) {
+                removedPoses.add(getName(file));
+            }
+        }
+        
+        Map<String, DollAction> changedActions = new HashMap<>();
+        Set<String> removedActions = new HashSet<>();
+        for (Path file : changedActionFiles) {
+            DollAction action = ActionLoader.loadActionFromFileSystem(file);
+            if (action != null) {
+                changedActions.put(getName(file), action);
+            } else if (!Files.exists(file)) {
+                removedActions.add(getName(file));
+            }
+        }
+        
+        LOGGER.info("玩偶文件变化: 姿态 {} 个，动作 {} 个", changedPoseFiles.size(), changedActionFiles.size());
+        changedPoseFiles.clear();
+        changedActionFiles.clear();
+        
+        // 解析和生成姿态表在监视线程完成，主线程只负责替换
+        Map<String, DollAction> clientActions = PoseActionManager.get(true).prepareActions(changedActions);
+        mainThread.execute(() -> PoseActionManager.get(true).applyFileChanges(changedPoses, removedPoses, clientActions, removedActions));
+        // 单人游戏的内置服务端读取同一个目录，在服务端线程上应用同样的变化（使用服务端自己的姿态表副本）
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (server != null) {
+            Map<String, DollAction> serverActions = PoseActionManager.get(false).prepareActions(changedActions);
+            server.execute(() -> PoseActionManager.get(false).applyFileChanges(changedPoses, removedPoses, serverActions, removedActions));
+        }
+    }
+    
+    private static String getName(Path file) {
+        String fileName = file.getFileName().toString();
+        return fileName.substring(0, fileName.length() - ".json".length());
+    }
+}
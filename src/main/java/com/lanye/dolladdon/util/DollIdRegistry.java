@@ -0,0 +1,132 @@
+package com.lanye.dolladdon.util;
+
+import com.lanye.dolladdon.network.DollIdMappingPayload;
+import net.neoforged.neoforge.network.PacketDistributor;
+import net.neoforged.neoforge.server.ServerLifecycleHooks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 姿态和动作的数字ID注册表
+ * 服务端按名称分配ID（只追加，不会变化），客户端通过 {@link DollIdMappingPayload} 接收同样的映射，
+ * 实体同步数据中只发送ID（VarInt），不再依赖两端排序后的姿态列表一致
+ */
+public class DollIdRegistry {
+    /**
+     * 没有ID（默认standing姿态或没有动作）
+     */
+    public static final int NONE = -1;
+    
+    // 服务端分配ID，客户端接收映射（单人游戏中两者位于同一个进程，必须分开保存）
+    private static final DollIdRegistry SERVER = new DollIdRegistry(true);
+    private static final DollIdRegistry CLIENT = new DollIdRegistry(false);
+    
+    private final boolean authoritative;
+    private final List<String> poseNames = new ArrayList<>();
+    private final Map<String, Integer> poseIds = new HashMap<>();
+    private final List<String> actionNames = new ArrayList<>();
+    private final Map<String, Integer> actionIds = new HashMap<>();
+    
+    private DollIdRegistry(boolean authoritative) {
+        this.authoritative = authoritative;
+    }
+    
+    /**
+     * 获取对应端的注册表
+     * @param clientSide 是否为客户端
+     */
+    public static DollIdRegistry get(boolean clientSide) {
+        return clientSide ? CLIENT : SERVER;
+    }
+    
+    /**
+     * 获取姿态ID，服务端遇到新名称时分配新ID并同步给所有玩家
+     * @param name 姿态名称
+     * @return 姿态ID，客户端不存在时返回 {@link #NONE}
+     */
+    public int getPoseId(String name) {
+        return getOrAssign(name, poseNames, poseIds, true);
+    }
+    
+    /**
+     * 获取动作ID，服务端遇到新名称时分配新ID并同步给所有玩家
+     * @param name 动作名称
+     * @return 动作ID，客户端不存在时返回 {@link #NONE}
+     */
+    public int getActionId(String name) {
+        return getOrAssign(name, actionNames, actionIds, false);
+    }
+    
+    /**
+     * @return 姿态名称，ID未知时返回null
+     */
+    public String getPoseName(int id) {
+        return id >= 0 && id < poseNames.size() ? poseNames.get(id) : null;
+    }
+    
+    /**
+     * @return 动作名称，ID未知时返回null
+     */
+    public String getActionName(int id) {
+        return id >= 0 && id < actionNames.size() ? actionNames.get(id) : null;
+    }
+    
+    private int getOrAssign(String name, List<String> names, Map<String, Integer> ids, boolean pose) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        if (!authoritative) {
+            return NONE;
+        }
+        
+        int newId = names.size();
+        names.add(name);
+        ids.put(name, newId);
+        // 新ID立即发送，保证客户端先收到映射再收到使用这个ID的实体数据
+        if (ServerLifecycleHooks.getCurrentServer() != null) {
+            PacketDistributor.sendToAllPlayers(pose
+                    ? new DollIdMappingPayload(false, List.of(name), List.of())
+                    : new DollIdMappingPayload(false, List.of(), List.of(name)));
+        }
+        return newId;
+    }
+    
+    /**
+     * 创建包含全部映射的数据包（玩家加入时发送）
+     */
+    public DollIdMappingPayload createFullPayload() {
+        return new DollIdMappingPayload(true, List.copyOf(poseNames), List.copyOf(actionNames));
+    }
+    
+    /**
+     * 应用服务端发送的映射（客户端）
+     * @param payload 映射数据包
+     */
+    public void apply(DollIdMappingPayload payload) {
+        if (payload.reset()) {
+            clear();
+        }
+        for (String name : payload.poses()) {
+            poseIds.put(name, poseNames.size());
+            poseNames.add(name);
+        }
+        for (String name : payload.actions()) {
+            actionIds.put(name, actionNames.size());
+            actionNames.add(name);
+        }
+    }
+    
+    /**
+     * 清除所有映射（服务器关闭时）
+     */
+    public void clear() {
+        poseNames.clear();
+        poseIds.clear();
+        actionNames.clear();
+        actionIds.clear();
+    }
+}
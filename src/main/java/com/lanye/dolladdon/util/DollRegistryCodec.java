@@ -0,0 +1,161 @@
+package com.lanye.dolladdon.util;
+
+import com.lanye.dolladdon.api.action.ActionKeyframe;
+import com.lanye.dolladdon.api.action.DollAction;
+import com.lanye.dolladdon.api.action.SimpleDollAction;
+import com.lanye.dolladdon.api.pose.DollPose;
+import com.lanye.dolladdon.api.pose.DollPoseLayout;
+import com.lanye.dolladdon.api.pose.SimpleDollPose;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.FriendlyByteBuf;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 姿态和动作集合的二进制编码
+ * 用于服务端向客户端同步姿态和动作，以及客户端按内容哈希缓存到磁盘
+ *
+ * 格式：格式版本, 姿态数量, [键名, 姿态], 动作数量, [键名, 名称, 是否循环, 关键帧数量, [tick, 姿态]]
+ * 其中姿态为 [名称, 显示名称, 紧凑数据]
+ * 按键名的字母顺序写入，相同内容总是得到相同的字节和哈希值
+ */
+public class DollRegistryCodec {
+    // 格式变化时修改，旧格式的缓存会被忽略
+    private static final int FORMAT_VERSION = 1;
+    
+    /**
+     * 解码后的姿态和动作
+     */
+    public record Contents(Map<String, DollPose> poses, Map<String, DollAction> actions) {
+    }
+    
+    /**
+     * 编码姿态和动作
+     * @param poses 姿态
+     * @param actions 动作
+     * @return 编码后的字节
+     */
+    public static byte[] encode(Map<String, DollPose> poses, Map<String, DollAction> actions) {
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        try {
+            buf.writeVarInt(FORMAT_VERSION);
+            float[] data = new float[DollPoseLayout.SIZE];
+            
+            buf.writeVarInt(poses.size());
+            for (Map.Entry<String, DollPose> entry : new TreeMap<>(poses).entrySet()) {
+                buf.writeUtf(entry.getKey());
+                writePose(buf, entry.getValue(), data);
+            }
+            
+            buf.writeVarInt(actions.size());
+            for (Map.Entry<String, DollAction> entry : new TreeMap<>(actions).entrySet()) {
+                DollAction action = entry.getValue();
+                buf.writeUtf(entry.getKey());
+                buf.writeUtf(action.getName());
+                buf.writeBoolean(action.isLooping());
+                if (action instanceof SimpleDollAction simpleAction) {
+                    ActionKeyframe[] keyframes = simpleAction.getKeyframes();
+                    buf.writeVarInt(keyframes.length);
+                    for (ActionKeyframe keyframe : keyframes) {
+                        buf.writeVarInt(keyframe.getTick());
+                        writePose(buf, keyframe.getPose(), data);
+                    }
+                } else {
+                    // 其他实现没有关键帧，按tick逐帧采样；没有姿态的tick沿用上一帧，第一帧没有时使用默认站立姿态
+                    int duration = action.getDuration();
+                    buf.writeVarInt(duration);
+                    DollPose previous = SimpleDollPose.getDefaultStandingPose();
+                    for (int tick = 0; tick < duration; tick++) {
+                        DollPose pose = action.getPoseAt(tick);
+                        if (pose != null) {
+                            previous = pose;
+                        }
+                        buf.writeVarInt(tick);
+                        writePose(buf, previous, data);
+                    }
+                }
+            }
+            
+            byte[] bytes = new byte[buf.readableBytes()];
+            buf.readBytes(bytes);
+            return bytes;
+        } finally {
+            buf.release();
+        }
+    }
+    
+    /**
+     * 解码姿态和动作
+     * @param bytes 编码后的字节
+     * @return 解码结果
+     * @throws IllegalArgumentException 格式版本不匹配时
+     */
+    public static Contents decode(byte[] bytes) {
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.wrappedBuffer(bytes));
+        try {
+            int version = buf.readVarInt();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("不支持的姿态数据格式版本: " + version);
+            }
+            float[] data = new float[DollPoseLayout.SIZE];
+            
+            int poseCount = buf.readVarInt();
+            Map<String, DollPose> poses = new HashMap<>(poseCount);
+            for (int i = 0; i < poseCount; i++) {
+                String key = buf.readUtf();
+                poses.put(key, readPose(buf, data));
+            }
+            
+            int actionCount = buf.readVarInt();
+            Map<String, DollAction> actions = new HashMap<>(actionCount);
+            for (int i = 0; i < actionCount; i++) {
+                String key = buf.readUtf();
+                String name = buf.readUtf();
+                boolean looping = buf.readBoolean();
+                ActionKeyframe[] keyframes = new ActionKeyframe[buf.readVarInt()];
+                for (int k = 0; k < keyframes.length; k++) {
+                    int tick = buf.readVarInt();
+                    keyframes[k] = new ActionKeyframe(tick, readPose(buf, data));
+                }
+                actions.put(key, new SimpleDollAction(name, looping, keyframes));
+            }
+            return new Contents(poses, actions);
+        } finally {
+            buf.release();
+        }
+    }
+    
+    /**
+     * 计算编码后内容的哈希值（MD5，小写十六进制）
+     */
+    public static String hash(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 算法不可用", e);
+        }
+    }
+    
+    private static void writePose(FriendlyByteBuf buf, DollPose pose, float[] data) {
+        buf.writeUtf(pose.getName());
+        buf.writeUtf(pose.getDisplayName());
+        pose.copyInto(data, 0);
+        for (float value : data) {
+            buf.writeFloat(value);
+        }
+    }
+    
+    private static DollPose readPose(FriendlyByteBuf buf, float[] data) {
+        String name = buf.readUtf();
+        String displayName = buf.readUtf();
+        for (int i = 0; i < data.length; i++) {
+            data[i] = buf.readFloat();
+        }
+        return new SimpleDollPose(name, displayName, data);
+    }
+}
@@ -0,0 +1,145 @@
+package com.lanye.dolladdon.util;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.lanye.dolladdon.PlayerDollAddon;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 皮肤清单
+ * 记录每个PNG文件（相对路径、大小、修改时间）对应的哈希值、显示名称和模型类型，
+ * 启动时文件没有变化就直接使用清单中的结果，不再读取文件计算哈希值
+ *
+ * 清单先写入临时文件再原子替换；读取失败（文件损坏、格式不对）时视为空清单，所有文件重新扫描
+ */
+public class DollSkinManifest {
+    private static final Logger LOGGER = PlayerDollAddon.LOGGER;
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    // 格式版本，格式变化时递增，旧清单会被忽略
+    private static final int FORMAT_VERSION = 1;
+    
+    /**
+     * 清单条目
+     * @param path 相对于皮肤目录的路径（使用 / 分隔）
+     * @param size 文件大小
+     * @param modifiedTime 修改时间（毫秒）
+     * @param hash 文件内容的哈希值
+     * @param displayName 显示名称
+     * @param alexModel 是否为Alex模型
+     */
+    public record Entry(String path, long size, long modifiedTime, String hash, String displayName, boolean alexModel) {
+    }
+    
+    private final Map<String, Entry> entries;
+    
+    private DollSkinManifest(Map<String, Entry> entries) {
+        this.entries = entries;
+    }
+    
+    /**
+     * 查找与文件当前状态一致的条目
+     * @param path 相对路径
+     * @param size 文件大小
+     * @param modifiedTime 修改时间（毫秒）
+     * @return 条目，不存在或文件已变化时返回null
+     */
+    public Entry find(String path, long size, long modifiedTime) {
+        Entry entry = entries.get(path);
+        return entry != null && entry.size == size && entry.modifiedTime == modifiedTime ? entry : null;
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    /**
+     * 读取清单
+     * @param file 清单文件
+     * @return 清单，文件不存在或无法解析时返回空清单
+     */
+    public static DollSkinManifest load(Path file) {
+        Map<String, Entry> entries = new HashMap<>();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            JsonObject root = JsonParser.parseReader(reader).getAsJsonObject();
+            if (root.get("version").getAsInt() != FORMAT_VERSION) {
+                return new DollSkinManifest(entries);
+            }
+            for (JsonElement element : root.getAsJsonArray("entries")) {
+                JsonObject json = element.getAsJsonObject();
+                Entry entry = new Entry(
+                        json.get("path").getAsString(),
+                        json.get("size").getAsLong(),
+                        json.get("modified").getAsLong(),
+                        json.get("hash").getAsString(),
+                        json.get("displayName").getAsString(),
+                        json.get("alex").getAsBoolean());
+                entries.put(entry.path(), entry);
+            }
+        } catch (NoSuchFileException e) {
+            // 第一次启动，没有清单
+        } catch (Exception e) {
+            LOGGER.warn("皮肤清单无法读取，将重新扫描所有皮肤: {}", file, e);
+            entries.clear();
+        }
+        return new DollSkinManifest(entries);
+    }
+    
+    /**
+     * 原子地写入清单
+     * @param file 清单文件
+     * @param entries 条目
+     */
+    public static void save(Path file, Collection<Entry> entries) {
+        JsonArray array = new JsonArray();
+        for (Entry entry : entries) {
+            JsonObject json = new JsonObject();
+            json.addProperty("path", entry.path());
+            json.addProperty("size", entry.size());
+            json.addProperty("modified", entry.modifiedTime());
+            json.addProperty("hash", entry.hash());
+            json.addProperty("displayName", entry.displayName());
+            json.addProperty("alex", entry.alexModel());
+            array.add(json);
+        }
+        JsonObject root = new JsonObject();
+        root.addProperty("version", FORMAT_VERSION);
+        root.add("entries", array);
+        
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                GSON.toJson(root, writer);
+            }
+            try {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("保存皮肤清单失败: {}", file, e);
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ignored) {
+                // 临时文件会在下次保存时覆盖
+            }
+        }
+    }
+}
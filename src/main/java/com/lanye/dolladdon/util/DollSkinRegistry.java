@@ -0,0 +1,130 @@
+package com.lanye.dolladdon.util;
+
+import com.lanye.dolladdon.PlayerDollAddon;
+import com.lanye.dolladdon.init.ModDataComponents;
+import com.lanye.dolladdon.init.ModItems;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 动态玩偶皮肤注册表
+ * 所有从文件加载的玩偶共用一个实体类型和物品，具体的皮肤由实体和物品上保存的皮肤ID在这里查找
+ */
+public class DollSkinRegistry {
+    /**
+     * 旧版本为每个皮肤注册的实体和物品名称前缀（zzz_&lt;哈希值&gt;）
+     */
+    public static final String LEGACY_PREFIX = "zzz_";
+    
+    // 按扫描顺序保存，创造模式物品栏按这个顺序显示
+    // 不可变快照，热重载时整体替换，渲染线程和服务端线程读取时无需加锁
+    private static volatile Map<String, DynamicDollLoader.DollInfo> skins = Map.of();
+    // 从服务器下载的皮肤，本地没有同一个皮肤ID时使用
+    private static volatile Map<String, DynamicDollLoader.DollInfo> remoteSkins = Map.of();
+    
+    /**
+     * 注册皮肤
+     * @param info 玩偶信息
+     */
+    public static synchronized void register(DynamicDollLoader.DollInfo info) {
+        Map<String, DynamicDollLoader.DollInfo> updated = new LinkedHashMap<>(skins);
+        updated.put(info.getSkinId(), info);
+        skins = Collections.unmodifiableMap(updated);
+    }
+    
+    /**
+     * 用新的扫描结果替换所有皮肤（文件热重载时使用）
+     * @param infos 玩偶信息（按扫描顺序）
+     */
+    public static synchronized void publish(Collection<DynamicDollLoader.DollInfo> infos) {
+        Map<String, DynamicDollLoader.DollInfo> updated = new LinkedHashMap<>();
+        for (DynamicDollLoader.DollInfo info : infos) {
+            updated.put(info.getSkinId(), info);
+        }
+        skins = Collections.unmodifiableMap(updated);
+    }
+    
+    /**
+     * 添加从服务器下载的皮肤
+     * @param info 玩偶信息（文件位于下载缓存目录中）
+     */
+    public static synchronized void registerRemote(DynamicDollLoader.DollInfo info) {
+        Map<String, DynamicDollLoader.DollInfo> updated = new LinkedHashMap<>(remoteSkins);
+        updated.put(info.getSkinId(), info);
+        remoteSkins = Collections.unmodifiableMap(updated);
+    }
+    
+    /**
+     * 清除从服务器下载的皮肤（断开连接时）
+     */
+    public static synchronized void clearRemote() {
+        remoteSkins = Map.of();
+    }
+    
+    /**
+     * 查找皮肤
+     * @param skinId 皮肤ID
+     * @return 玩偶信息，不存在时返回null
+     */
+    public static DynamicDollLoader.DollInfo get(String skinId) {
+        if (skinId == null || skinId.isEmpty()) {
+            return null;
+        }
+        DynamicDollLoader.DollInfo info = skins.get(skinId);
+        return info != null ? info : remoteSkins.get(skinId);
+    }
+    
+    /**
+     * 查找本地扫描到的皮肤（不包含从服务器下载的皮肤）
+     * @param skinId 皮肤ID
+     * @return 玩偶信息，不存在时返回null
+     */
+    public static DynamicDollLoader.DollInfo getLocal(String skinId) {
+        return skinId == null || skinId.isEmpty() ? null : skins.get(skinId);
+    }
+    
+    /**
+     * 获取本地扫描到的所有皮肤（按扫描顺序，不包含从服务器下载的皮肤）
+     */
+    public static Collection<DynamicDollLoader.DollInfo> getAll() {
+        return skins.values();
+    }
+    
+    /**
+     * 从旧版本的注册名称（如 player_doll_addon:zzz_&lt;哈希值&gt;）中取出皮肤ID
+     * @param registryId 注册名称
+     * @return 皮肤ID，不是旧版本的动态玩偶时返回null
+     */
+    public static String getLegacySkinId(String registryId) {
+        ResourceLocation location = ResourceLocation.tryParse(registryId);
+        if (location == null || !location.getNamespace().equals(PlayerDollAddon.MODID)
+                || !location.getPath().startsWith(LEGACY_PREFIX)) {
+            return null;
+        }
+        return location.getPath().substring(LEGACY_PREFIX.length());
+    }
+    
+    /**
+     * 迁移旧版本的动态玩偶物品
+     * 旧物品通过注册表别名加载为通用的动态玩偶物品，皮肤ID从原来的物品名称中恢复
+     * @param stack 加载后的物品堆
+     * @param tag 物品堆的原始NBT
+     */
+    public static void migrateLegacyItem(ItemStack stack, Tag tag) {
+        if (!(tag instanceof CompoundTag compoundTag) || !stack.is(ModItems.DYNAMIC_DOLL.get())
+                || stack.has(ModDataComponents.DOLL_SKIN)) {
+            return;
+        }
+        String skinId = getLegacySkinId(compoundTag.getString("id"));
+        if (skinId != null) {
+            stack.set(ModDataComponents.DOLL_SKIN, skinId);
+        }
+    }
+}
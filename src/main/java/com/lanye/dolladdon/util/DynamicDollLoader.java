@@ -1,19 +1,29 @@
 package com.lanye.dolladdon.util;
 
 import com.lanye.dolladdon.PlayerDollAddon;
-import com.lanye.dolladdon.util.DynamicTextureManager;
 import net.minecraft.resources.ResourceLocation;
 import org.slf4j.Logger;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
 
 /**
@@ -23,27 +33,43 @@ import java.util.stream.Stream;
 public class DynamicDollLoader {
     private static final Logger LOGGER = PlayerDollAddon.LOGGER;
     
+    // 已扫描目录的结果（按目录路径）
+    private static final Map<String, List<DollInfo>> SCAN_RESULTS = new ConcurrentHashMap<>();
+    // 单个文件的扫描结果（reused 表示直接使用了清单中的条目）
+    private record ScanResult(DollInfo info, DollSkinManifest.Entry entry, boolean reused) {
+    }
+    
+    // 每个扫描线程复用的读取缓冲区
+    private static final ThreadLocal<byte[]> THREAD_BUFFER = ThreadLocal.withInitial(() -> new byte[16 * 1024]);
+    
     /**
      * 玩偶信息类
      */
     public static class DollInfo {
-        private final String fileName;           // 原始文件名（不含扩展名）
+        private final String skinId;             // 皮肤ID（文件内容的哈希值）
         private final String displayName;        // 显示名称（处理后的）
         private final boolean isAlexModel;       // 是否为Alex模型（细手臂）
         private final ResourceLocation textureLocation; // 纹理资源位置
         private final Path filePath;             // 文件路径
         
-        public DollInfo(String fileName, String displayName, boolean isAlexModel, 
+        public DollInfo(String skinId, String displayName, boolean isAlexModel, 
                        ResourceLocation textureLocation, Path filePath) {
-            this.fileName = fileName;
+            this.skinId = skinId;
             this.displayName = displayName;
             this.isAlexModel = isAlexModel;
             this.textureLocation = textureLocation;
             this.filePath = filePath;
         }
         
-        public String getFileName() {
-            return fileName;
+        public String getSkinId() {
+            return skinId;
+        }
+        
+        /**
+         * 旧版本为这个皮肤单独注册的实体和物品名称（用于迁移）
+         */
+        public String getLegacyRegistryName() {
+            return DollSkinRegistry.LEGACY_PREFIX + skinId;
         }
         
         public String getDisplayName() {
@@ -65,10 +91,23 @@ public class DynamicDollLoader {
     
     /**
      * 扫描目录并加载所有PNG文件
+     * 每个目录只扫描一次，之后返回同一份结果（模组构造和客户端初始化共享）
      * @param directoryPath 目录路径（相对于游戏目录）
-     * @return 玩偶信息列表
+     * @return 玩偶信息列表（不可修改）
      */
     public static List<DollInfo> scanDirectory(String directoryPath) {
+        return SCAN_RESULTS.computeIfAbsent(directoryPath, DynamicDollLoader::doScanDirectory);
+    }
+    
+    /**
+     * 丢弃已缓存的扫描结果，下次调用 {@link #scanDirectory(String)} 时重新扫描
+     * @param directoryPath 目录路径（相对于游戏目录）
+     */
+    public static void invalidateScan(String directoryPath) {
+        SCAN_RESULTS.remove(directoryPath);
+    }
+    
+    private static List<DollInfo> doScanDirectory(String directoryPath) {
         List<DollInfo> dollInfos = new ArrayList<>();
         
         try {
@@ -94,31 +133,119 @@ public class DynamicDollLoader {
                     Files.createDirectories(targetDir);
                 } catch (IOException e) {
                     LOGGER.error("无法创建玩偶材质目录: {}", targetDir, e);
-                    return dollInfos;
+                    return List.of();
                 }
             }
             
-            // 扫描PNG文件
+            // 先列出所有PNG文件，再并行解析（主要开销是读取文件和计算哈希值）
+            List<Path> pngFiles;
             try (Stream<Path> paths = Files.walk(targetDir)) {
-                paths.filter(Files::isRegularFile)
-                     .filter(path -> path.toString().toLowerCase().endsWith(".png"))
-                     .forEach(path -> {
-                         try {
-                             DollInfo info = parseDollFile(path, targetDir);
-                             if (info != null) {
-                                 dollInfos.add(info);
-                             }
-                         } catch (Exception e) {
-                             LOGGER.error("解析玩偶文件失败: {}", path, e);
-                         }
-                     });
+                pngFiles = paths.filter(Files::isRegularFile)
+                        .filter(path -> path.toString().toLowerCase().endsWith(".png"))
+                        .toList();
+            }
+            
+            // 没有变化的文件直接使用清单中的哈希值
+            Path manifestFile = targetDir.resolveSibling(targetDir.getFileName() + "_manifest.json");
+            DollSkinManifest manifest = DollSkinManifest.load(manifestFile);
+            
+            List<ScanResult> results = parseAll(pngFiles, targetDir, manifest);
+            List<DollSkinManifest.Entry> entries = new ArrayList<>(results.size());
+            Map<ResourceLocation, DynamicTextureManager.TextureEntry> textures = new HashMap<>();
+            int reused = 0;
+            for (ScanResult result : results) {
+                DollInfo info = result.info();
+                textures.put(info.getTextureLocation(), new DynamicTextureManager.TextureEntry(info.getFilePath(), result.entry().size()));
+                dollInfos.add(info);
+                entries.add(result.entry());
+                if (result.reused()) {
+                    reused++;
+                }
+            }
+            
+            // 解析完成后一次性建立纹理索引
+            DynamicTextureManager.publish(textures);
+            
+            int rehashed = results.size() - reused;
+            LOGGER.info("扫描玩偶皮肤完成: 共 {} 个，复用清单 {} 个，重新计算哈希 {} 个", results.size(), reused, rehashed);
+            // 有新文件、文件变化或删除时更新清单
+            if (rehashed > 0 || entries.size() != manifest.size()) {
+                DollSkinManifest.save(manifestFile, entries);
             }
             
         } catch (Exception e) {
             LOGGER.error("扫描玩偶材质目录失败: {}", directoryPath, e);
         }
         
-        return dollInfos;
+        return Collections.unmodifiableList(dollInfos);
+    }
+    
+    /**
+     * 使用有界线程池并行解析玩偶文件
+     * @param files PNG文件列表
+     * @param baseDir 基础目录
+     * @param manifest 上次扫描的清单
+     * @return 解析成功的结果（保持文件列表的顺序）
+     */
+    private static List<ScanResult> parseAll(List<Path> files, Path baseDir, DollSkinManifest manifest) throws InterruptedException {
+        if (files.isEmpty()) {
+            return List.of();
+        }
+        
+        int threads = Math.min(files.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Doll-Skin-Scanner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<ScanResult>> futures = new ArrayList<>(files.size());
+            for (Path path : files) {
+                futures.add(executor.submit(() -> scanFile(path, baseDir, manifest)));
+            }
+            
+            List<ScanResult> results = new ArrayList<>(files.size());
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    ScanResult result = futures.get(i).get();
+                    if (result != null) {
+                        results.add(result);
+                    }
+                } catch (ExecutionException e) {
+                    LOGGER.error("解析玩偶文件失败: {}", files.get(i), e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * 扫描单个文件：文件大小和修改时间与清单一致时直接使用清单的结果，否则重新解析
+     * @param filePath 文件路径
+     * @param baseDir 基础目录
+     * @param manifest 上次扫描的清单
+     * @return 扫描结果，如果不是玩偶文件或解析失败返回null
+     */
+    private static ScanResult scanFile(Path filePath, Path baseDir, DollSkinManifest manifest) throws IOException {
+        String relativePath = baseDir.relativize(filePath).toString().replace('\\', '/');
+        BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modifiedTime = attributes.lastModifiedTime().toMillis();
+        
+        DollSkinManifest.Entry entry = manifest.find(relativePath, size, modifiedTime);
+        if (entry != null) {
+            DollInfo info = createDollInfo(entry.hash(), entry.displayName(), entry.alexModel(), filePath);
+            return info != null ? new ScanResult(info, entry, true) : null;
+        }
+        
+        DollInfo info = parseDollFile(filePath, baseDir);
+        if (info == null) {
+            return null;
+        }
+        return new ScanResult(info, new DollSkinManifest.Entry(relativePath, size, modifiedTime,
+                info.getSkinId(), info.getDisplayName(), info.isAlexModel()), false);
     }
     
     /**
@@ -163,6 +290,14 @@ public class DynamicDollLoader {
             return null;
         }
         
+        return createDollInfo(fileHash, displayName, isAlexModel, filePath);
+    }
+    
+    /**
+     * 根据哈希值创建玩偶信息
+     * @return 玩偶信息，如果无法创建资源位置返回null
+     */
+    public static DollInfo createDollInfo(String fileHash, String displayName, boolean isAlexModel, Path filePath) {
         // 使用哈希值作为资源路径（确保符合 ResourceLocation 的要求：只包含 [a-z0-9/._-]）
         String resourcePath = "textures/entity/" + fileHash;
         ResourceLocation textureLocation;
@@ -172,18 +307,12 @@ public class DynamicDollLoader {
                 resourcePath
             );
         } catch (Exception e) {
-            LOGGER.error("创建 ResourceLocation 失败: {} (资源路径: {})", fileName, resourcePath, e);
+            LOGGER.error("创建 ResourceLocation 失败: {} (资源路径: {})", filePath.getFileName(), resourcePath, e);
             return null;
         }
         
-        // 注册纹理文件路径到管理器
-        DynamicTextureManager.registerTexture(textureLocation, filePath);
-        
-        // 生成注册名称（使用哈希值，因为它已经符合规范）
-        // 加上前缀标识符，确保模型文件名和注册名称一致，Minecraft 才能找到对应的模型文件
-        String registryName = com.lanye.dolladdon.util.DynamicModelGenerator.DYNAMIC_MODEL_PREFIX + fileHash;
-        
-        return new DollInfo(registryName, displayName, isAlexModel, textureLocation, filePath);
+        // 哈希值同时作为皮肤ID，保存在实体和物品上
+        return new DollInfo(fileHash, displayName, isAlexModel, textureLocation, filePath);
     }
     
     /**
@@ -211,15 +340,14 @@ public class DynamicDollLoader {
     private static String calculateFileHash(Path filePath) {
         try {
             MessageDigest md = MessageDigest.getInstance("MD5");
-            byte[] fileBytes = Files.readAllBytes(filePath);
-            byte[] hashBytes = md.digest(fileBytes);
-            
-            // 将字节数组转换为十六进制字符串
-            StringBuilder sb = new StringBuilder();
-            for (byte b : hashBytes) {
-                sb.append(String.format("%02x", b));
+            // 分块读取计算哈希值，不把整个文件读入内存
+            try (InputStream in = new DigestInputStream(Files.newInputStream(filePath), md)) {
+                byte[] buffer = THREAD_BUFFER.get();
+                while (in.read(buffer) != -1) {
+                    // 读取过程中已更新摘要
+                }
             }
-            return sb.toString();
+            return HexFormat.of().formatHex(md.digest());
         } catch (NoSuchAlgorithmException e) {
             LOGGER.error("MD5 算法不可用", e);
             return null;
@@ -229,4 +357,3 @@ public class DynamicDollLoader {
         }
     }
 }
-
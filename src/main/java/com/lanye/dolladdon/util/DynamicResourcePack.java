@@ -14,7 +14,6 @@ import org.slf4j.Logger;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashSet;
 import java.util.Optional;
@@ -22,7 +21,8 @@ import java.util.Set;
 
 /**
  * 动态资源包
- * 用于加载外部文件（纹理、模型等）
+ * 用于加载外部文件（皮肤纹理）
+ * 所有动态玩偶共用 dynamic_doll 物品，它的模型随模组一起打包，不需要通过这里提供
  */
 public class DynamicResourcePack implements PackResources {
     private static final Logger LOGGER = PlayerDollAddon.LOGGER;
@@ -47,19 +47,9 @@ public class DynamicResourcePack implements PackResources {
             return null;
         }
         
-        // 如果是纹理，从 player_doll/png 目录加载
+        // 如果是纹理，从 player_doll/png 目录加载（只查找扫描时建立的索引，不访问文件系统）
         if (path.startsWith("textures/entity/")) {
-            Path texturePath = DynamicTextureManager.getTexturePath(location);
-            if (texturePath != null && Files.exists(texturePath) && Files.isRegularFile(texturePath)) {
-                return () -> Files.newInputStream(texturePath);
-            }
-        }
-        
-        // 如果是模型，不需要通过动态资源包提供
-        // 模型文件应该已经在编译时生成到 src/main/resources 并打包到 JAR 中
-        // Minecraft 会从 JAR 包中加载这些模型文件
-        if (path.startsWith("models/")) {
-            return null;
+            return DynamicTextureManager.open(location);
         }
         
         return null;
@@ -74,27 +64,17 @@ public class DynamicResourcePack implements PackResources {
         
         // 列出纹理资源
         if (path.equals("textures/entity")) {
-            for (var entry : DynamicTextureManager.TEXTURE_PATHS.entrySet()) {
+            for (var entry : DynamicTextureManager.getTextures().entrySet()) {
                 ResourceLocation location = entry.getKey();
                 if (location.getNamespace().equals(namespace) && location.getPath().startsWith("textures/entity/")) {
-                    Path filePath = entry.getValue();
-                    if (Files.exists(filePath) && Files.isRegularFile(filePath)) {
-                        try {
-                            output.accept(location, () -> Files.newInputStream(filePath));
-                        } catch (Exception e) {
-                            LOGGER.error("列出纹理资源失败: {}", location, e);
-                        }
+                    try {
+                        output.accept(location, DynamicTextureManager.open(location, entry.getValue()));
+                    } catch (Exception e) {
+                        LOGGER.error("列出纹理资源失败: {}", location, e);
                     }
                 }
             }
         }
-        
-        // 不通过动态资源包列出模型资源
-        // 模型文件应该已经在编译时生成到 src/main/resources 并打包到 JAR 中
-        // Minecraft 会从 JAR 包中自动发现这些模型文件
-        if (path.equals("models/item") || path.equals("models")) {
-            return;
-        }
     }
     
     @Override
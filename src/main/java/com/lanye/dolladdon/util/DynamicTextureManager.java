@@ -1,28 +1,95 @@
 package com.lanye.dolladdon.util;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.lanye.dolladdon.PlayerDollAddon;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.IoSupplier;
 import org.slf4j.Logger;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 /**
  * 动态纹理管理器
  * 管理从文件系统加载的纹理文件
+ *
+ * 纹理索引在扫描时一次性建立（不可变），查找和列出资源时不再访问文件系统；
+ * 小文件的内容缓存在有上限的内存缓存中，大文件通过内存映射读取
  */
 public class DynamicTextureManager {
     private static final Logger LOGGER = PlayerDollAddon.LOGGER;
-    public static final Map<ResourceLocation, Path> TEXTURE_PATHS = new HashMap<>();
+    
+    // 不超过这个大小的纹理缓存文件内容（玩家皮肤通常只有几KB）
+    private static final long SMALL_TEXTURE_BYTES = 64 * 1024;
+    // 内存缓存的总大小上限
+    private static final long BYTE_CACHE_LIMIT = 32L * 1024 * 1024;
+    
+    /**
+     * 纹理条目
+     * @param path 文件路径
+     * @param size 扫描时的文件大小
+     */
+    public record TextureEntry(Path path, long size) {
+    }
+    
+    private static volatile Map<ResourceLocation, TextureEntry> index = Map.of();
+    // 从服务器下载的纹理（文件在下载缓存目录中），本地扫描不会替换这些条目
+    private static volatile Map<ResourceLocation, TextureEntry> remoteIndex = Map.of();
+    private static final Cache<ResourceLocation, byte[]> BYTE_CACHE = CacheBuilder.newBuilder()
+            .maximumWeight(BYTE_CACHE_LIMIT)
+            .weigher((ResourceLocation location, byte[] bytes) -> bytes.length)
+            .build();
+    
+    /**
+     * 替换纹理索引（扫描完成后调用）
+     * @param textures 资源位置到纹理条目的映射
+     */
+    public static void publish(Map<ResourceLocation, TextureEntry> textures) {
+        index = Map.copyOf(textures);
+        BYTE_CACHE.invalidateAll();
+    }
     
     /**
-     * 注册纹理文件路径
+     * 添加从服务器下载的纹理
      * @param resourceLocation 资源位置
-     * @param filePath 文件路径
+     * @param entry 纹理条目
+     */
+    public static synchronized void registerRemote(ResourceLocation resourceLocation, TextureEntry entry) {
+        Map<ResourceLocation, TextureEntry> updated = new HashMap<>(remoteIndex);
+        updated.put(resourceLocation, entry);
+        remoteIndex = Map.copyOf(updated);
+    }
+    
+    /**
+     * 清除从服务器下载的纹理（断开连接时）
+     */
+    public static synchronized void clearRemote() {
+        for (ResourceLocation location : remoteIndex.keySet()) {
+            BYTE_CACHE.invalidate(location);
+        }
+        remoteIndex = Map.of();
+    }
+    
+    private static TextureEntry find(ResourceLocation resourceLocation) {
+        TextureEntry entry = index.get(resourceLocation);
+        return entry != null ? entry : remoteIndex.get(resourceLocation);
+    }
+    
+    /**
+     * 获取纹理索引（不可变，只包含本地扫描到的纹理）
      */
-    public static void registerTexture(ResourceLocation resourceLocation, Path filePath) {
-        TEXTURE_PATHS.put(resourceLocation, filePath);
+    public static Map<ResourceLocation, TextureEntry> getTextures() {
+        return index;
     }
     
     /**
@@ -31,7 +98,8 @@ public class DynamicTextureManager {
      * @return 文件路径，如果不存在返回null
      */
     public static Path getTexturePath(ResourceLocation resourceLocation) {
-        return TEXTURE_PATHS.get(resourceLocation);
+        TextureEntry entry = find(resourceLocation);
+        return entry != null ? entry.path() : null;
     }
     
     /**
@@ -40,14 +108,89 @@ public class DynamicTextureManager {
      * @return 是否已注册
      */
     public static boolean isTextureRegistered(ResourceLocation resourceLocation) {
-        return TEXTURE_PATHS.containsKey(resourceLocation);
+        return find(resourceLocation) != null;
+    }
+    
+    /**
+     * 获取读取纹理内容的 IoSupplier
+     * @param resourceLocation 资源位置
+     * @return IoSupplier，纹理未注册时返回null
+     */
+    public static IoSupplier<InputStream> open(ResourceLocation resourceLocation) {
+        TextureEntry entry = find(resourceLocation);
+        return entry != null ? open(resourceLocation, entry) : null;
+    }
+    
+    /**
+     * 获取读取纹理内容的 IoSupplier
+     * @param resourceLocation 资源位置
+     * @param entry 纹理条目
+     * @return IoSupplier
+     */
+    public static IoSupplier<InputStream> open(ResourceLocation resourceLocation, TextureEntry entry) {
+        if (entry.size() <= SMALL_TEXTURE_BYTES) {
+            return () -> new ByteArrayInputStream(readCached(resourceLocation, entry.path()));
+        }
+        return () -> new ByteBufferInputStream(map(entry.path()));
+    }
+    
+    private static byte[] readCached(ResourceLocation resourceLocation, Path path) throws IOException {
+        try {
+            return BYTE_CACHE.get(resourceLocation, () -> Files.readAllBytes(path));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+    
+    private static ByteBuffer map(Path path) throws IOException {
+        // 映射在通道关闭后仍然有效
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
     }
     
     /**
      * 清除所有注册的纹理
      */
     public static void clear() {
-        TEXTURE_PATHS.clear();
+        index = Map.of();
+        BYTE_CACHE.invalidateAll();
+    }
+    
+    /**
+     * 读取 ByteBuffer 的输入流
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+        
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+        
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+        
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+        
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
     }
 }
-
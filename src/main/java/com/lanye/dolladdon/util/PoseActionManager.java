@@ -2,41 +2,89 @@ package com.lanye.dolladdon.util;
 
 import com.lanye.dolladdon.PlayerDollAddon;
 import com.lanye.dolladdon.api.action.DollAction;
+import com.lanye.dolladdon.api.action.SimpleDollAction;
 import com.lanye.dolladdon.api.pose.DollPose;
-import net.minecraft.server.packs.resources.ResourceManager;
+import com.lanye.dolladdon.config.DollCommonConfig;
 import org.slf4j.Logger;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 姿态和动作管理器
  * 管理所有加载的姿态和动作资源
+ * 服务端和客户端各有一份（单人游戏中两者位于同一个进程，/reload 和 F3+T 不能互相覆盖）
  */
 public class PoseActionManager {
     private static final Logger LOGGER = PlayerDollAddon.LOGGER;
+    // 姿态表的默认内存预算（KB），配置未加载时使用
+    private static final int DEFAULT_TABLE_BUDGET_KB = 4096;
     
-    private static final Map<String, DollPose> poses = new HashMap<>();
-    private static final Map<String, DollAction> actions = new HashMap<>();
+    private static final PoseActionManager SERVER = new PoseActionManager();
+    private static final PoseActionManager CLIENT = new PoseActionManager();
     
     /**
-     * 加载所有姿态和动作资源
-     * 应该在游戏启动时或资源重载时调用（如执行 /reload 命令）
+     * 某一时刻的全部姿态和动作（不可变）
+     * @param poses 姿态映射
+     * @param actions 动作映射
+     * @param version 版本号，每次发布新快照时递增
      */
-    public static void loadResources(ResourceManager resourceManager) {
-        // 加载所有姿态（从资源包和文件系统）
-        Map<String, DollPose> loadedPoses = PoseLoader.loadAllPoses(resourceManager);
-        
-        poses.clear();
-        poses.putAll(loadedPoses);
-        
-        // 加载所有动作
-        Map<String, DollAction> loadedActions = ActionLoader.loadAllActions(resourceManager);
-        
-        actions.clear();
-        actions.putAll(loadedActions);
+    public record Snapshot(Map<String, DollPose> poses, Map<String, DollAction> actions, long version) {
+    }
+    
+    // 当前快照，写入时复制并整体替换，读取无需加锁
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of(), 0);
+    
+    // 本地加载的姿态和动作（资源包和文件系统），只在持有锁时访问
+    private Map<String, DollPose> localPoses = Map.of();
+    private Map<String, DollAction> localActions = Map.of();
+    // 服务器同步的姿态和动作，连接服务器期间覆盖本地的同名条目（只用于客户端）
+    private Map<String, DollPose> remotePoses = Map.of();
+    private Map<String, DollAction> remoteActions = Map.of();
+    
+    private PoseActionManager() {
+    }
+    
+    /**
+     * 获取对应端的管理器
+     * @param clientSide 是否为客户端
+     */
+    public static PoseActionManager get(boolean clientSide) {
+        return clientSide ? CLIENT : SERVER;
+    }
+    
+    /**
+     * 用已经解析完成的姿态和动作替换当前的全部资源
+     * 供资源重载监听器在准备阶段完成后调用，动作应已经过 {@link #prepareActions(Map)} 处理
+     * @param loadedPoses 加载的姿态
+     * @param loadedActions 加载的动作
+     */
+    public synchronized void applyResources(Map<String, DollPose> loadedPoses, Map<String, DollAction> loadedActions) {
+        publish(loadedPoses, loadedActions);
+    }
+    
+    /**
+     * 获取当前快照
+     * 需要同时读取多个姿态或动作并保证一致时使用
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+    
+    /**
+     * 获取资源版本号
+     * 姿态或动作每次重新加载或注册后都会递增
+     * @return 当前版本号
+     */
+    public long getVersion() {
+        return snapshot.version();
     }
     
     /**
@@ -44,8 +92,8 @@ public class PoseActionManager {
      * @param name 姿态名称
      * @return 姿态，如果不存在返回null
      */
-    public static DollPose getPose(String name) {
-        return poses.get(name);
+    public DollPose getPose(String name) {
+        return snapshot.poses().get(name);
     }
     
     /**
@@ -53,24 +101,24 @@ public class PoseActionManager {
      * @param name 动作名称
      * @return 动作，如果不存在返回null
      */
-    public static DollAction getAction(String name) {
-        return actions.get(name);
+    public DollAction getAction(String name) {
+        return snapshot.actions().get(name);
     }
     
     /**
      * 获取所有姿态
-     * @return 姿态映射
+     * @return 姿态映射（不可修改）
      */
-    public static Map<String, DollPose> getAllPoses() {
-        return new HashMap<>(poses);
+    public Map<String, DollPose> getAllPoses() {
+        return snapshot.poses();
     }
     
     /**
      * 获取所有动作
-     * @return 动作映射
+     * @return 动作映射（不可修改）
      */
-    public static Map<String, DollAction> getAllActions() {
-        return new HashMap<>(actions);
+    public Map<String, DollAction> getAllActions() {
+        return snapshot.actions();
     }
     
     /**
@@ -78,24 +126,177 @@ public class PoseActionManager {
      * @param name 姿态名称
      * @param pose 姿态对象
      */
-    public static void registerPose(String name, DollPose pose) {
-        poses.put(name, pose);
+    public synchronized void registerPose(String name, DollPose pose) {
+        Map<String, DollPose> updated = new HashMap<>(localPoses);
+        updated.put(name, pose);
+        publish(updated, localActions);
     }
     
     /**
-     * 注册自定义动作（供开发者使用）
+     * 注册自定义动作（供开发者使用），注册的动作不生成姿态表，按关键帧二分查找
      * @param name 动作名称
      * @param action 动作对象
      */
-    public static void registerAction(String name, DollAction action) {
-        actions.put(name, action);
+    public synchronized void registerAction(String name, DollAction action) {
+        Map<String, DollAction> updated = new HashMap<>(localActions);
+        updated.put(name, action);
+        publish(localPoses, updated);
+    }
+    
+    /**
+     * 应用文件监视器检测到的增量变化（只包含发生变化的文件）
+     * 所有变化一起生效并只递增一次版本号，动作应已经过 {@link #prepareActions(Map)} 处理
+     * @param changedPoses 新增或修改的姿态
+     * @param removedPoses 被删除的姿态名称
+     * @param changedActions 新增或修改的动作
+     * @param removedActions 被删除的动作名称
+     */
+    public synchronized void applyFileChanges(Map<String, DollPose> changedPoses, Set<String> removedPoses,
+                                              Map<String, DollAction> changedActions, Set<String> removedActions) {
+        Map<String, DollPose> updatedPoses = new HashMap<>(localPoses);
+        updatedPoses.keySet().removeAll(removedPoses);
+        updatedPoses.putAll(changedPoses);
+        Map<String, DollAction> updatedActions = new HashMap<>(localActions);
+        updatedActions.keySet().removeAll(removedActions);
+        updatedActions.putAll(changedActions);
+        publish(updatedPoses, updatedActions);
+    }
+    
+    /**
+     * 使用服务器同步的姿态和动作（客户端连接服务器时）
+     * 本地的同名姿态和动作会被覆盖，断开连接后调用 {@link #clearRemote()} 恢复
+     * 动作应已经过 {@link #prepareActions(Map)} 处理
+     * @param poses 服务器的姿态
+     * @param actions 服务器的动作
+     */
+    public synchronized void applyRemote(Map<String, DollPose> poses, Map<String, DollAction> actions) {
+        remotePoses = Map.copyOf(poses);
+        remoteActions = Map.copyOf(actions);
+        publish(localPoses, localActions);
+    }
+    
+    /**
+     * 清除服务器同步的姿态和动作（断开连接时）
+     */
+    public synchronized void clearRemote() {
+        if (remotePoses.isEmpty() && remoteActions.isEmpty()) {
+            return;
+        }
+        remotePoses = Map.of();
+        remoteActions = Map.of();
+        publish(localPoses, localActions);
+    }
+    
+    /**
+     * 发布新快照（调用方需持有锁），姿态表已经在发布之前生成，这里只替换快照和释放姿态表
+     * @param newPoses 本地姿态
+     * @param newActions 本地动作
+     */
+    private void publish(Map<String, DollPose> newPoses, Map<String, DollAction> newActions) {
+        localPoses = Map.copyOf(newPoses);
+        localActions = Map.copyOf(newActions);
+        Snapshot previous = snapshot;
+        Snapshot next = new Snapshot(overlay(localPoses, remotePoses), overlay(localActions, remoteActions), previous.version() + 1);
+        allocateTables(previous.actions(), next.actions());
+        snapshot = next;
+    }
+    
+    /**
+     * 在共用的内存预算内为快照中的动作保留姿态表（只释放，不生成），并释放不再使用的动作的姿态表
+     * 从短动作开始保留，保证尽量多的动作可以查表；超出预算的动作按关键帧二分查找
+     * @param oldActions 上一个快照的动作
+     * @param newActions 新快照的动作
+     */
+    private static void allocateTables(Map<String, DollAction> oldActions, Map<String, DollAction> newActions) {
+        Map<SimpleDollAction, Boolean> retained = new IdentityHashMap<>();
+        List<SimpleDollAction> baked = new ArrayList<>();
+        for (DollAction action : newActions.values()) {
+            if (action instanceof SimpleDollAction simple && retained.put(simple, Boolean.TRUE) == null && simple.hasTable()) {
+                baked.add(simple);
+            }
+        }
+        for (DollAction action : oldActions.values()) {
+            if (action instanceof SimpleDollAction simple && !retained.containsKey(simple)) {
+                simple.releaseTable();
+            }
+        }
+        keepWithinBudget(baked, getTableBudget());
+    }
+    
+    /**
+     * 在后台线程为即将发布的动作生成姿态表，返回的映射交给这个管理器的 apply 方法发布
+     * 带姿态表的 {@link SimpleDollAction} 是新的副本，只属于这个管理器：服务端和客户端传入同一个实例时
+     * 各自得到自己的副本，一端释放姿态表不会影响另一端；发布时再按整个快照裁剪到预算以内
+     * 可以在任何线程调用，不持有锁
+     * @param actions 解析好的动作
+     * @return 替换为带姿态表副本的动作映射
+     */
+    public Map<String, DollAction> prepareActions(Map<String, DollAction> actions) {
+        List<Map.Entry<String, DollAction>> candidates = new ArrayList<>();
+        for (Map.Entry<String, DollAction> entry : actions.entrySet()) {
+            if (entry.getValue() instanceof SimpleDollAction simple && simple.getTableSize() > 0) {
+                candidates.add(entry);
+            }
+        }
+        candidates.sort(Comparator.comparingLong((Map.Entry<String, DollAction> entry) -> ((SimpleDollAction) entry.getValue()).getTableSize())
+                .thenComparing(Map.Entry::getKey));
+        
+        Map<String, DollAction> prepared = new HashMap<>(actions);
+        long budget = getTableBudget();
+        int skipped = 0;
+        for (Map.Entry<String, DollAction> entry : candidates) {
+            SimpleDollAction action = (SimpleDollAction) entry.getValue();
+            long size = action.getTableSize();
+            if (size <= budget) {
+                budget -= size;
+                prepared.put(entry.getKey(), action.withTable());
+            } else {
+                skipped++;
+            }
+        }
+        if (skipped > 0) {
+            LOGGER.debug("姿态表内存预算不足，{} 个动作中有 {} 个按关键帧查找", candidates.size(), skipped);
+        }
+        return prepared;
+    }
+    
+    /**
+     * 从短动作开始保留姿态表，超出预算的释放
+     */
+    private static void keepWithinBudget(List<SimpleDollAction> baked, long budget) {
+        baked.sort(Comparator.comparingLong(SimpleDollAction::getTableSize).thenComparing(SimpleDollAction::getName));
+        for (SimpleDollAction action : baked) {
+            long size = action.getTableSize();
+            if (size <= budget) {
+                budget -= size;
+            } else {
+                action.releaseTable();
+            }
+        }
+    }
+    
+    private static long getTableBudget() {
+        return (long) getTableBudgetKilobytes() * 1024 / Float.BYTES;
+    }
+    
+    private static int getTableBudgetKilobytes() {
+        return DollCommonConfig.SPEC.isLoaded() ? DollCommonConfig.ACTION_TABLE_BUDGET_KB.get() : DEFAULT_TABLE_BUDGET_KB;
+    }
+    
+    private static <T> Map<String, T> overlay(Map<String, T> local, Map<String, T> remote) {
+        if (remote.isEmpty()) {
+            return local;
+        }
+        Map<String, T> merged = new HashMap<>(local);
+        merged.putAll(remote);
+        return Map.copyOf(merged);
     }
     
     /**
      * 从文件系统重新加载姿态文件（动态读取）
      * 可以在游戏运行时调用此方法来重新加载 poses 目录中的姿态文件
      */
-    public static void reloadPosesFromFileSystem() {
+    public void reloadPosesFromFileSystem() {
         try {
             Path gameDir;
             try {
@@ -110,12 +311,9 @@ public class PoseActionManager {
             Map<String, DollPose> fileSystemPoses = PoseLoader.loadPosesFromFileSystem(posesDir);
             
             // 更新姿态映射（保留资源包中的姿态，但用文件系统中的姿态覆盖同名姿态）
-            for (Map.Entry<String, DollPose> entry : fileSystemPoses.entrySet()) {
-                poses.put(entry.getKey(), entry.getValue());
-            }
+            applyFileChanges(fileSystemPoses, Set.of(), Map.of(), Set.of());
         } catch (Exception e) {
             LOGGER.error("从文件系统重新加载姿态失败", e);
         }
     }
 }
-
@@ -0,0 +1,61 @@
+package com.lanye.dolladdon.util;
+
+import com.lanye.dolladdon.PlayerDollAddon;
+import com.lanye.dolladdon.api.action.DollAction;
+import com.lanye.dolladdon.api.pose.DollPose;
+import net.minecraft.server.packs.resources.PreparableReloadListener;
+import net.minecraft.server.packs.resources.ResourceManager;
+import net.minecraft.util.profiling.ProfilerFiller;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 姿态和动作的资源重载监听器
+ * 准备阶段在后台执行器上并行解析所有文件并生成动作的姿态表，应用阶段只在主线程替换准备好的结果
+ * 服务端（/reload）和客户端（F3+T）各注册一个，只替换自己这一端的姿态和动作
+ */
+public class PoseActionReloadListener implements PreparableReloadListener {
+    private final boolean clientSide;
+    
+    // 准备阶段的解析结果
+    private record Loaded(Map<String, DollPose> poses, Map<String, DollAction> actions) {
+    }
+    
+    /**
+     * @param clientSide 是否为客户端的资源重载
+     */
+    public PoseActionReloadListener(boolean clientSide) {
+        this.clientSide = clientSide;
+    }
+    
+    @Override
+    public CompletableFuture<Void> reload(PreparableReloadListener.PreparationBarrier preparationBarrier,
+                                          ResourceManager resourceManager,
+                                          ProfilerFiller preparationsProfiler,
+                                          ProfilerFiller reloadProfiler,
+                                          Executor backgroundExecutor,
+                                          Executor gameExecutor) {
+        return PoseLoader.loadAllPosesAsync(resourceManager, backgroundExecutor)
+                .thenCombine(ActionLoader.loadAllActionsAsync(resourceManager, backgroundExecutor), Loaded::new)
+                .thenApplyAsync(loaded -> new Loaded(loaded.poses(), PoseActionManager.get(clientSide).prepareActions(loaded.actions())),
+                        backgroundExecutor)
+                .exceptionally(e -> {
+                    // 加载失败时保留现有的姿态和动作，不中断整个资源重载
+                    PlayerDollAddon.LOGGER.error("资源重载过程中发生异常", e);
+                    return null;
+                })
+                .thenCompose(preparationBarrier::wait)
+                .thenAcceptAsync(loaded -> {
+                    if (loaded != null) {
+                        PoseActionManager.get(clientSide).applyResources(loaded.poses(), loaded.actions());
+                    }
+                }, gameExecutor);
+    }
+    
+    @Override
+    public String getName() {
+        return "PlayerDollAddon poses and actions";
+    }
+}
@@ -21,6 +21,9 @@ import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 /**
  * 姿态加载器
@@ -252,54 +255,83 @@ public class PoseLoader {
      * 加载所有姿态（从 ResourceManager 和文件系统）
      */
     public static Map<String, DollPose> loadAllPoses(ResourceManager resourceManager) {
-        Map<String, DollPose> poses = new HashMap<>();
-        
-        // 首先从 ResourceManager 加载（资源包中的姿态）
-        try {
-            var resources = resourceManager.listResources("poses", path -> path.getPath().endsWith(".json"));
+        return loadAllPosesAsync(resourceManager, Runnable::run).join();
+    }
+    
+    /**
+     * 异步加载所有姿态（从 ResourceManager 和文件系统）
+     * 每个姿态文件作为单独的任务在执行器上并行解析
+     * @param resourceManager 资源管理器
+     * @param executor 解析文件使用的执行器
+     * @return 加载的姿态映射（文件系统中的姿态覆盖资源包中的同名姿态）
+     */
+    public static CompletableFuture<Map<String, DollPose>> loadAllPosesAsync(ResourceManager resourceManager, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            Map<String, CompletableFuture<DollPose>> tasks = new HashMap<>();
             
-            for (var entry : resources.entrySet()) {
-                ResourceLocation location = entry.getKey();
-                String name = location.getPath().substring("poses/".length(), location.getPath().length() - ".json".length());
+            // 首先从 ResourceManager 加载（资源包中的姿态）
+            try {
+                var resources = resourceManager.listResources("poses", path -> path.getPath().endsWith(".json"));
                 
-                try {
+                for (var entry : resources.entrySet()) {
+                    ResourceLocation location = entry.getKey();
+                    String name = location.getPath().substring("poses/".length(), location.getPath().length() - ".json".length());
                     Resource resource = entry.getValue();
-                    try (InputStream inputStream = resource.open();
-                         InputStreamReader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
-                        
-                        JsonObject json = GSON.fromJson(reader, JsonObject.class);
-                        DollPose pose = parsePose(json);
-                        if (pose != null) {
-                            poses.put(name, pose);
-                        }
+                    tasks.put(name, CompletableFuture.supplyAsync(() -> loadPose(location, resource), executor));
+                }
+            } catch (Exception e) {
+                LOGGER.error("扫描姿态资源失败", e);
+            }
+            
+            // 然后从文件系统加载（文件系统中的姿态会覆盖资源包中的同名姿态）
+            Path posesDir = getGameDir().resolve(PlayerDollAddon.POSES_DIR);
+            if (Files.isDirectory(posesDir)) {
+                try (Stream<Path> paths = Files.list(posesDir)) {
+                    for (Path poseFile : paths.filter(path -> path.toString().endsWith(".json")).toList()) {
+                        String fileName = poseFile.getFileName().toString();
+                        String name = fileName.substring(0, fileName.length() - ".json".length());
+                        tasks.put(name, CompletableFuture.supplyAsync(() -> loadPoseFromFileSystem(poseFile), executor));
                     }
                 } catch (Exception e) {
-                    LOGGER.error("加载姿态文件失败: {}", location, e);
+                    LOGGER.error("扫描文件系统姿态目录失败: {}", posesDir, e);
                 }
             }
+            return tasks;
+        }, executor).thenCompose(tasks -> CompletableFuture.allOf(tasks.values().toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    Map<String, DollPose> poses = new HashMap<>();
+                    tasks.forEach((name, task) -> {
+                        DollPose pose = task.join();
+                        if (pose != null) {
+                            poses.put(name, pose);
+                        }
+                    });
+                    return poses;
+                }));
+    }
+    
+    /**
+     * 从资源包中的资源加载单个姿态
+     * @return 加载的姿态，如果失败返回null
+     */
+    private static DollPose loadPose(ResourceLocation location, Resource resource) {
+        try (InputStream inputStream = resource.open();
+             InputStreamReader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+            JsonObject json = GSON.fromJson(reader, JsonObject.class);
+            return parsePose(json);
         } catch (Exception e) {
-            LOGGER.error("扫描姿态资源失败", e);
+            LOGGER.error("加载姿态文件失败: {}", location, e);
+            return null;
         }
-        
-        // 然后从文件系统加载（文件系统中的姿态会覆盖资源包中的同名姿态）
+    }
+    
+    private static Path getGameDir() {
         try {
-            Path gameDir;
-            try {
-                Class<?> fmlPathsClass = Class.forName("net.neoforged.fml.loading.FMLPaths");
-                java.lang.reflect.Method gameDirMethod = fmlPathsClass.getMethod("getGamePath");
-                gameDir = (Path) gameDirMethod.invoke(null);
-            } catch (Exception e) {
-                gameDir = Paths.get(".").toAbsolutePath().normalize();
-            }
-            
-            Path posesDir = gameDir.resolve(PlayerDollAddon.POSES_DIR);
-            Map<String, DollPose> fileSystemPoses = loadPosesFromFileSystem(posesDir);
-            poses.putAll(fileSystemPoses); // 文件系统的姿态会覆盖资源包中的同名姿态
+            Class<?> fmlPathsClass = Class.forName("net.neoforged.fml.loading.FMLPaths");
+            java.lang.reflect.Method gameDirMethod = fmlPathsClass.getMethod("getGamePath");
+            return (Path) gameDirMethod.invoke(null);
         } catch (Exception e) {
-            LOGGER.error("从文件系统加载姿态失败", e);
+            return Paths.get(".").toAbsolutePath().normalize();
         }
-        
-        return poses;
     }
 }
-